@@ -0,0 +1,179 @@
+package com.abnamro.examples.dao;
+
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Open-addressing hash map with primitive long keys and primitive long values, the long-valued sibling of the
+ * LongObjectHashMap. We use it to map person ids onto the position of their record in an off-heap store, without a
+ * single object per entry.
+ *
+ * A slot is empty when its value is NO_VALUE, so only values of zero or higher are supported. That suits offsets.
+ *
+ * Note that this map is NOT thread-safe, the owner is responsible for guarding access to it.
+ */
+final class LongLongHashMap {
+    static final long NO_VALUE = -1L;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    LongLongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    LongLongHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR)));
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value for the key, or NO_VALUE if the key is not present.
+     */
+    long get(long key) {
+        int index = indexOf(key);
+        return index < 0 ? NO_VALUE : values[index];
+    }
+
+    boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Stores the value for the key and returns the value it replaced, or NO_VALUE if the key was not present.
+     */
+    long put(long key, long value) {
+        requireValid(value);
+
+        int index = slot(key);
+        while (values[index] != NO_VALUE) {
+            if (keys[index] == key) {
+                long previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(values.length << 1);
+        }
+        return NO_VALUE;
+    }
+
+    long remove(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return NO_VALUE;
+        }
+
+        long previous = values[index];
+        shiftBack(index);
+        size--;
+        return previous;
+    }
+
+    void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+
+    /**
+     * Replaces every value with the result of the function applied to its key and value, used when the values (the
+     * offsets) move, as example after compaction.
+     */
+    void replaceAll(LongBinaryOperator function) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != NO_VALUE) {
+                long value = function.applyAsLong(keys[i], values[i]);
+                requireValid(value);
+                values[i] = value;
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        int index = slot(key);
+        while (values[index] != NO_VALUE) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Backward-shift deletion, see the LongObjectHashMap.
+     */
+    private void shiftBack(int freed) {
+        int index = freed;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == NO_VALUE) {
+                break;
+            }
+
+            int home = slot(keys[index]);
+            if (((index - home) & mask) >= ((index - freed) & mask)) {
+                keys[freed] = keys[index];
+                values[freed] = values[index];
+                freed = index;
+            }
+        }
+        values[freed] = NO_VALUE;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != NO_VALUE) {
+                int index = slot(oldKeys[i]);
+                while (values[index] != NO_VALUE) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        Arrays.fill(values, NO_VALUE);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int result = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return result < 0 ? 1 << 30 : result;
+    }
+
+    private static void requireValid(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("negative values are not supported");
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.abnamro.examples.dao;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Sorted set of primitive longs, the stores use it to hold ids in id order: all ids of the store and the ids of the
+ * persons with a last name. Large sets keep their values in blocks of at most BLOCK_SIZE values, every block sorted
+ * and holding lower values than the blocks after it, like the leaves of a B-tree with a single level above them.
+ * Finding a value takes a binary search over the first values of the blocks and one within a block, so a page of
+ * persons starts with a seek and takes the ids that follow, and every page is as fast as the first one.
+ *
+ * An add or remove only shifts the values of one block. A full block is split in two, which shifts the references to
+ * the blocks after it, but only once per BLOCK_SIZE / 2 adds to that block. So changes take about the same time
+ * however large the set is. Adding a value larger than all others, as when loading persons in id order, starts a new
+ * block when the last one is full, so those blocks are filled completely. A block that becomes empty is dropped, but
+ * blocks are not merged, so a set that had many values removed may use up to twice the memory it needs.
+ *
+ * Most sets are small, like the ids of the persons with a rare last name, so a set keeps its values in a single array
+ * on the heap until it outgrows BLOCK_SIZE, costing an object and an array of 8 bytes per value. The blocks are long
+ * buffers, either on the heap or in direct memory for the off-heap store. The heap then only holds a buffer object
+ * per block of values.
+ *
+ * Note that this set is NOT thread-safe, the owner is responsible for guarding access to it, also while iterating.
+ */
+final class SortedLongSet {
+    static final int BLOCK_SIZE = 1024;
+
+    private final boolean direct;
+
+    // the values while the set is small, null once they are kept in blocks
+    private long[] values;
+    private LongBuffer[] blocks;
+    private int[] sizes;
+    private int blockCount;
+    private int size;
+
+    /**
+     * @param direct true to keep the blocks of values in direct memory, false to keep them on the heap
+     */
+    SortedLongSet(boolean direct) {
+        this.direct = direct;
+        clear();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the lowest value, or throws a NoSuchElementException if the set is empty.
+     */
+    long first() {
+        return iterator().nextLong();
+    }
+
+    /**
+     * Adds the value and returns true, or returns false if the value was already present.
+     */
+    boolean add(long value) {
+        if (values == null && blockCount == 0) {
+            insertBlock(0);
+        }
+
+        int block = Math.max(blockOf(value), 0);
+        int index = search(block, value);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+
+        if (values != null) {
+            if (size < BLOCK_SIZE) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, Math.min(values.length << 1, BLOCK_SIZE));
+                }
+                System.arraycopy(values, index, values, index + 1, size - index);
+                values[index] = value;
+                size++;
+                return true;
+            }
+            moveToBlocks();
+        }
+
+        if (sizes[block] == BLOCK_SIZE) {
+            if (block == blockCount - 1 && index == BLOCK_SIZE) {
+                insertBlock(++block);
+                index = 0;
+            } else {
+                split(block);
+                if (index > sizes[block]) {
+                    index -= sizes[block];
+                    block++;
+                }
+            }
+        }
+
+        LongBuffer target = blocks[block];
+        move(target, index, index + 1, sizes[block] - index);
+        target.put(index, value);
+        sizes[block]++;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the value and returns true, or returns false if the value was not present.
+     */
+    boolean remove(long value) {
+        int block = blockOf(value);
+        int index = block < 0 ? -1 : search(block, value);
+        if (index < 0) {
+            return false;
+        }
+
+        size--;
+        if (values != null) {
+            System.arraycopy(values, index + 1, values, index, size - index);
+            return true;
+        }
+
+        move(blocks[block], index + 1, index, sizes[block] - index - 1);
+        sizes[block]--;
+        if (sizes[block] == 0) {
+            removeBlock(block);
+        }
+        return true;
+    }
+
+    /**
+     * Removes all values, the memory of the blocks is released when the garbage collector collects them.
+     */
+    void clear() {
+        values = new long[1];
+        blocks = null;
+        sizes = null;
+        blockCount = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the values in ascending order.
+     */
+    PrimitiveIterator.OfLong iterator() {
+        return new Cursor(0, 0);
+    }
+
+    /**
+     * Returns the values larger than the given one in ascending order.
+     */
+    PrimitiveIterator.OfLong iteratorAfter(long value) {
+        int block = blockOf(value);
+        if (block < 0) {
+            return iterator();
+        }
+
+        int index = search(block, value);
+        return new Cursor(block, index >= 0 ? index + 1 : -index - 1);
+    }
+
+    private int blockCount() {
+        return values != null ? 1 : blockCount;
+    }
+
+    private int sizeOf(int block) {
+        return values != null ? size : sizes[block];
+    }
+
+    private long valueAt(int block, int index) {
+        return values != null ? values[index] : blocks[block].get(index);
+    }
+
+    /**
+     * Returns the index of the last block with a first value that is not larger than the given one, or -1 if there is
+     * none.
+     */
+    private int blockOf(long value) {
+        int low = 0;
+        int high = blockCount() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (sizeOf(middle) > 0 && valueAt(middle, 0) <= value) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Returns the index of the value in the block or, like Arrays.binarySearch, (-(insertion point) - 1).
+     */
+    private int search(int block, long value) {
+        int low = 0;
+        int high = sizeOf(block) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long current = valueAt(block, middle);
+            if (current < value) {
+                low = middle + 1;
+            } else if (current > value) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Moves the values of a set that outgrew its single array to the first block.
+     */
+    private void moveToBlocks() {
+        long[] full = values;
+        values = null;
+        blocks = new LongBuffer[4];
+        sizes = new int[4];
+
+        insertBlock(0);
+        blocks[0].duplicate().put(full, 0, size);
+        sizes[0] = size;
+    }
+
+    /**
+     * Moves the upper half of a full block to a new block after it.
+     */
+    private void split(int block) {
+        insertBlock(block + 1);
+
+        int half = BLOCK_SIZE / 2;
+        LongBuffer upper = blocks[block].duplicate();
+        upper.position(half).limit(BLOCK_SIZE);
+        blocks[block + 1].duplicate().put(upper);
+
+        sizes[block] = half;
+        sizes[block + 1] = BLOCK_SIZE - half;
+    }
+
+    private void insertBlock(int block) {
+        if (blockCount == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blockCount << 1);
+            sizes = Arrays.copyOf(sizes, blockCount << 1);
+        }
+        System.arraycopy(blocks, block, blocks, block + 1, blockCount - block);
+        System.arraycopy(sizes, block, sizes, block + 1, blockCount - block);
+
+        blocks[block] = direct
+                ? ByteBuffer.allocateDirect(BLOCK_SIZE * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer()
+                : LongBuffer.allocate(BLOCK_SIZE);
+        sizes[block] = 0;
+        blockCount++;
+    }
+
+    private void removeBlock(int block) {
+        System.arraycopy(blocks, block + 1, blocks, block, blockCount - block - 1);
+        System.arraycopy(sizes, block + 1, sizes, block, blockCount - block - 1);
+        blocks[--blockCount] = null;
+    }
+
+    /**
+     * Moves length values within a block, the source and target ranges may overlap.
+     */
+    private static void move(LongBuffer block, int from, int to, int length) {
+        if (block.hasArray()) {
+            System.arraycopy(block.array(), block.arrayOffset() + from, block.array(), block.arrayOffset() + to, length);
+        } else if (to > from) {
+            for (int i = length - 1; i >= 0; i--) {
+                block.put(to + i, block.get(from + i));
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                block.put(to + i, block.get(from + i));
+            }
+        }
+    }
+
+    /**
+     * Walks the values from a position in a block. A position at the end of a block continues with the next one.
+     */
+    private final class Cursor implements PrimitiveIterator.OfLong {
+        private int block;
+        private int index;
+
+        private Cursor(int block, int index) {
+            this.block = block;
+            this.index = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (block < blockCount() && index == sizeOf(block)) {
+                block++;
+                index = 0;
+            }
+            return block < blockCount();
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return valueAt(block, index++);
+        }
+    }
+}
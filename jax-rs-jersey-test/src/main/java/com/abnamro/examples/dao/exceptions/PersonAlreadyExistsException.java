@@ -1,12 +1,16 @@
 package com.abnamro.examples.dao.exceptions;
 
+/**
+ * Thrown when a client adds a person that already exists, mapped onto a 400. Like the PersonDoesNotExistException it
+ * is an expected outcome, so it has no stack trace.
+ */
 public class PersonAlreadyExistsException extends Exception {
 
     public PersonAlreadyExistsException(final String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public PersonAlreadyExistsException(final String message, final Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
@@ -1,11 +1,12 @@
 package com.abnamro.examples.jaxrs.annotations;
 
-import javax.ws.rs.NameBinding;
 import javax.ws.rs.core.Response;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 
-@NameBinding
+/**
+ * The status code a resource method returns instead of the default 200, applied by the StatusFilter.
+ */
 @Retention(RetentionPolicy.RUNTIME)
 public @interface Status {
     Response.Status value() default Response.Status.OK;
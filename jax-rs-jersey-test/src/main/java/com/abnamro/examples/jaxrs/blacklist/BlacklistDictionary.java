@@ -0,0 +1,156 @@
+package com.abnamro.examples.jaxrs.blacklist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The blacklist in use, that is reloaded when its file changes.
+ *
+ * A background thread checks the modification time and size of the file, and when they changed compiles the file into
+ * a new Blacklist and swaps it in. Requests only read the current blacklist, so they never wait for a reload, and a
+ * request that already started keeps the blacklist it started with. When the file cannot be read or compiled the
+ * current blacklist stays in use and the next check tries again. Replace the file by moving a complete file in place,
+ * so a check does not read a half written file.
+ *
+ * Configured with the system properties 'blacklist.file' (properties file with term=replacement, UTF-8) and
+ * 'blacklist.reload.interval' (milliseconds, default 5000, 0 to not reload). Without a file the hard coded default
+ * terms are used.
+ */
+public final class BlacklistDictionary implements Closeable {
+    private static final String FILE_PROPERTY = "blacklist.file";
+    private static final String INTERVAL_PROPERTY = "blacklist.reload.interval";
+    private static final long DEFAULT_INTERVAL_MILLIS = 5000;
+
+    private final Path file;
+    private final BlacklistMetrics metrics = new BlacklistMetrics();
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Blacklist current;
+    private FileTime lastModified;
+    private long lastSize;
+
+    /**
+     * Compiles the blacklist in the file, and checks the file for changes every interval (if positive).
+     */
+    public BlacklistDictionary(Path file, long intervalMillis) throws IOException {
+        this.file = file;
+        reload();
+
+        if (intervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "blacklist-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::reloadQuietly, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    private BlacklistDictionary(Blacklist blacklist) {
+        this.file = null;
+        this.scheduler = null;
+        this.current = blacklist;
+        metrics.recordBuild(blacklist.size(), 0);
+    }
+
+    /**
+     * Returns a dictionary that always uses the given blacklist.
+     */
+    public static BlacklistDictionary of(Blacklist blacklist) {
+        return new BlacklistDictionary(blacklist);
+    }
+
+    /**
+     * Returns the dictionary configured with the system properties 'blacklist.file' and 'blacklist.reload.interval',
+     * or one with the default terms when no file is configured.
+     */
+    public static BlacklistDictionary fromSystemProperties() {
+        String path = System.getProperty(FILE_PROPERTY);
+        if (path == null) {
+            return of(Blacklist.defaults());
+        }
+
+        long interval = Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_MILLIS);
+        try {
+            return new BlacklistDictionary(Paths.get(path), interval);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read blacklist " + path, e);
+        }
+    }
+
+    /**
+     * Returns the blacklist in use.
+     */
+    public Blacklist current() {
+        return current;
+    }
+
+    public BlacklistMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Replaces all blacklisted terms in the text.
+     */
+    public String replaceAll(String text) {
+        return current.replaceAll(text, metrics);
+    }
+
+    /**
+     * Compiles the file into a new blacklist and swaps it in, if the file changed since the last (re)load.
+     *
+     * @return true if the blacklist has been replaced
+     */
+    public synchronized boolean reload() throws IOException {
+        if (file == null) {
+            return false;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.lastModifiedTime().equals(lastModified) && attributes.size() == lastSize) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+        Blacklist blacklist;
+        try {
+            blacklist = Blacklist.load(file);
+        } catch (IOException | RuntimeException e) {
+            metrics.recordFailedBuild();
+            throw e;
+        }
+
+        current = blacklist;
+        lastModified = attributes.lastModifiedTime();
+        lastSize = attributes.size();
+        metrics.recordBuild(blacklist.size(), System.nanoTime() - start);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (IOException | RuntimeException e) {
+            // the current blacklist stays in use, the next check tries again
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.abnamro.examples.jaxrs.blacklist;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a BlacklistDictionary: how often the blacklisted terms are found (the match rate) and how long it takes
+ * to compile the blacklist.
+ *
+ * The scan counters are updated by every request, so they are LongAdders that do not make concurrent requests contend
+ * for a single counter. The build counters are only updated by the thread that (re)loads the blacklist.
+ */
+public final class BlacklistMetrics {
+    private final LongAdder scans = new LongAdder();
+    private final LongAdder scansWithMatches = new LongAdder();
+    private final LongAdder scannedBytes = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+
+    private volatile long builds;
+    private volatile long failedBuilds;
+    private volatile long lastBuildNanos;
+    private volatile int terms;
+
+    void recordScan(long bytes, long matchCount) {
+        scans.increment();
+        scannedBytes.add(bytes);
+        if (matchCount > 0) {
+            scansWithMatches.increment();
+            matches.add(matchCount);
+        }
+    }
+
+    synchronized void recordBuild(int termCount, long nanos) {
+        builds++;
+        lastBuildNanos = nanos;
+        terms = termCount;
+    }
+
+    synchronized void recordFailedBuild() {
+        failedBuilds++;
+    }
+
+    /**
+     * Returns the number of scanned texts (request bodies and names).
+     */
+    public long getScans() {
+        return scans.sum();
+    }
+
+    public long getScansWithMatches() {
+        return scansWithMatches.sum();
+    }
+
+    public long getScannedBytes() {
+        return scannedBytes.sum();
+    }
+
+    /**
+     * Returns the number of replaced terms.
+     */
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    /**
+     * Returns the fraction of the scanned texts that contained at least one blacklisted term.
+     */
+    public double getMatchRate() {
+        long count = getScans();
+        return count == 0 ? 0.0 : (double) getScansWithMatches() / count;
+    }
+
+    /**
+     * Returns the number of times the blacklist has been compiled, the initial build included.
+     */
+    public long getBuilds() {
+        return builds;
+    }
+
+    /**
+     * Returns the number of reloads that failed, in which case the previous blacklist stays in use.
+     */
+    public long getFailedBuilds() {
+        return failedBuilds;
+    }
+
+    public long getLastBuildMillis() {
+        return lastBuildNanos / 1_000_000;
+    }
+
+    /**
+     * Returns the number of terms in the blacklist in use.
+     */
+    public int getTerms() {
+        return terms;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("terms=%d builds=%d failedBuilds=%d lastBuildMillis=%d scans=%d matches=%d matchRate=%.4f",
+                getTerms(), getBuilds(), getFailedBuilds(), getLastBuildMillis(), getScans(), getMatches(),
+                getMatchRate());
+    }
+}
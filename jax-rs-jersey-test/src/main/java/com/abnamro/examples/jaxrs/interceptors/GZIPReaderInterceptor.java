@@ -1,11 +1,13 @@
 package com.abnamro.examples.jaxrs.interceptors;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.ext.Provider;
 import javax.ws.rs.ext.ReaderInterceptor;
 import javax.ws.rs.ext.ReaderInterceptorContext;
 import java.io.IOException;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * A JAX-RS 2.0 interceptor gives a developer access to a message body as it is being read or written. Therefore
@@ -15,18 +17,28 @@ import java.util.zip.GZIPInputStream;
  * chain (the order of execution is undefined, unless you specify a priority value for each installed interceptor).
  *
  * This response interceptor is bounded with @CompressData. It needs to be used bij JAX-RS clients to process
- * responses from resources have compressed their data!
+ * responses from resources have compressed their data! It decompresses the body according to the Content-Encoding
+ * header, since the writer only compresses when it is worth it.
  *
  * Note : we did not give both the gzip-interceptors the same binding because we only want ONE of them to be bound to
  * a resource (the writer) and not both of them.
  */
 @Provider
 public class GZIPReaderInterceptor implements ReaderInterceptor {
+    private static final String GZIP = "gzip";
+    private static final String X_GZIP = "x-gzip";
+    private static final String DEFLATE = "deflate";
 
     @Override
     public Object aroundReadFrom(ReaderInterceptorContext context)
             throws IOException, WebApplicationException {
-        context.setInputStream(new GZIPInputStream(context.getInputStream()));
+        String encoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+
+        if(GZIP.equalsIgnoreCase(encoding) || X_GZIP.equalsIgnoreCase(encoding)) {
+            context.setInputStream(new GZIPInputStream(context.getInputStream()));
+        } else if(DEFLATE.equalsIgnoreCase(encoding)) {
+            context.setInputStream(new InflaterInputStream(context.getInputStream()));
+        }
         return context.proceed();
     }
 }
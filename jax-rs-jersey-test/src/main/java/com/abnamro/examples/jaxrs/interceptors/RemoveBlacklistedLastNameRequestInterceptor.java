@@ -1,14 +1,15 @@
 package com.abnamro.examples.jaxrs.interceptors;
 
+import com.abnamro.examples.domain.api.Person;
 import com.abnamro.examples.jaxrs.bindings.BlackListLastNames;
-import org.apache.commons.lang3.StringUtils;
+import com.abnamro.examples.jaxrs.blacklist.BlacklistDictionary;
+import com.abnamro.examples.jaxrs.blacklist.BlacklistMetrics;
 
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.ext.Provider;
 import javax.ws.rs.ext.ReaderInterceptor;
 import javax.ws.rs.ext.ReaderInterceptorContext;
-import java.io.*;
-import java.util.stream.Collectors;
+import java.io.IOException;
 
 /**
  * A JAX-RS 2.0 interceptor gives a developer access to a message body as it is being read or written. Therefore
@@ -18,26 +19,39 @@ import java.util.stream.Collectors;
  * chain (the order of execution is undefined, unless you specify a priority value for each installed interceptor).
  *
  * We have bound this interceptor using @BlackListLastNames to resources that use the same binding.
+ *
+ * The body itself is passed on untouched to the json provider. Once it has parsed the person, the blacklisted names
+ * are removed from its last name, so the keys and other fields of the json that happen to contain a blacklisted name
+ * are left alone and no copy of the body is made. See the BlacklistDictionary for how the names are configured and
+ * reloaded.
  */
 @Provider
 @BlackListLastNames
 public class RemoveBlacklistedLastNameRequestInterceptor implements ReaderInterceptor {
-    private static final String[] BLACKLIST = { "Asshole", "Shitface" };
-    private static final String[] CLEANLIST = { "A***e", "S***e" };
+    private static final BlacklistDictionary DICTIONARY = BlacklistDictionary.fromSystemProperties();
 
     @Override
     public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
-        String body = extractMessageBody(context);
+        Object entity = context.proceed();
 
-        context.setInputStream(
-                new ByteArrayInputStream(StringUtils.replaceEach(body, BLACKLIST, CLEANLIST).getBytes())
-        );
+        if(entity instanceof Person) {
+            Person person = (Person) entity;
+            person.setLastName(removeBlacklistedNames(person.getLastName()));
+        }
+        return entity;
+    }
 
-        return context.proceed();
+    /**
+     * Replaces the blacklisted names in the text, also used by resources that read their body themselves.
+     */
+    public static String removeBlacklistedNames(String text) {
+        return DICTIONARY.replaceAll(text);
     }
 
-    private String extractMessageBody(ReaderInterceptorContext context) {
-        InputStream is = context.getInputStream();
-        return new BufferedReader(new InputStreamReader(is)).lines().collect(Collectors.joining("\n"));
+    /**
+     * Returns the match rate and build time of the blacklist, shared by all requests.
+     */
+    public static BlacklistMetrics metrics() {
+        return DICTIONARY.metrics();
     }
 }
@@ -0,0 +1,47 @@
+package com.abnamro.examples.jaxrs.streaming;
+
+import com.abnamro.examples.domain.api.Person;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes persons as newline delimited json (one person per line), the format the BulkPersonImport reads. Every person
+ * is serialized straight to the response stream, so we never build the complete body in memory and the client can
+ * start processing the first persons while the rest is still being written. The persons are taken from a stream one
+ * by one, so they are not collected in a list first either, and the stream is closed when it has been written.
+ *
+ * We deliberately write newline delimited json and not a top-level json array, see the SafeList for why.
+ */
+public class BulkPersonExport implements StreamingOutput {
+    private static final ObjectWriter PERSON_WRITER = new ObjectMapper()
+            .writerFor(Person.class)
+            .withRootValueSeparator("")
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final Stream<Person> persons;
+
+    public BulkPersonExport(Stream<Person> persons) {
+        this.persons = persons;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        try (Stream<Person> items = persons; JsonGenerator generator = PERSON_WRITER.createGenerator(output)) {
+            Iterator<Person> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                PERSON_WRITER.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
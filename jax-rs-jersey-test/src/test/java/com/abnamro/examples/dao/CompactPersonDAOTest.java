@@ -0,0 +1,41 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.domain.api.Person;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactPersonDAOTest extends PersonDAOContractTest {
+
+    @Override
+    protected PersonDAO<Person> createDAO() {
+        // deliberately too small, so the maps have to grow
+        return new CompactPersonDAO(2);
+    }
+
+    @Test
+    void shouldShareTheLastNameOfThePersonsHavingIt() throws Exception {
+        String first = new String("Janssen");
+        String second = new String("Janssen");
+
+        dao.add(new Person(1L, "Jan", first));
+        dao.add(new Person(2L, "Piet", second));
+        dao.add(new Person(3L, "Erik", "Eriksen"));
+        dao.update(new Person(3L, "Erik", new String("Janssen")));
+
+        assertSame(first, dao.findById(1L).getLastName());
+        assertSame(first, dao.findById(2L).getLastName());
+        assertSame(first, dao.findById(3L).getLastName());
+    }
+
+    @Test
+    void shouldReleaseALastNameWithTheLastPersonHavingIt() throws Exception {
+        dao.add(new Person(1L, "Jan", new String("Janssen")));
+        dao.delete(1L);
+
+        String next = new String("Janssen");
+        dao.add(new Person(2L, "Piet", next));
+
+        assertSame(next, dao.findById(2L).getLastName());
+    }
+}
@@ -0,0 +1,152 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.dao.exceptions.PersonAlreadyExistsException;
+import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
+import com.abnamro.examples.domain.api.Person;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The behaviour every person store should have, whatever way it keeps the persons. Extend it for every
+ * implementation of the PersonDAO.
+ */
+abstract class PersonDAOContractTest {
+    protected PersonDAO<Person> dao;
+
+    protected abstract PersonDAO<Person> createDAO();
+
+    @BeforeEach
+    void setupEmptyStore() throws Exception {
+        dao = createDAO();
+
+        // the initial content differs per module, so start from an empty store
+        for (Person person : dao.findAll()) {
+            dao.delete(person.getId());
+        }
+        assertTrue(dao.findAll().isEmpty());
+    }
+
+    @Test
+    void shouldFindAnAddedPerson() throws Exception {
+        Person added = dao.add(new Person(1L, "Jan", "Janssen"));
+
+        assertEquals("1 Jan Janssen", describe(added));
+        assertEquals("1 Jan Janssen", describe(dao.findById(1L)));
+        assertEquals(Collections.singletonList("1 Jan Janssen"), describe(dao.findWithLastName("Janssen")));
+    }
+
+    @Test
+    void shouldNotFindAPersonThatDoesNotExist() throws Exception {
+        assertNull(dao.findById(42L));
+        assertTrue(dao.findWithLastName("Janssen").isEmpty());
+        assertTrue(dao.findWithLastName(null).isEmpty());
+    }
+
+    @Test
+    void shouldRejectAPersonThatAlreadyExists() throws Exception {
+        dao.add(new Person(1L, "Jan", "Janssen"));
+
+        assertThrows(PersonAlreadyExistsException.class, () -> dao.add(new Person(1L, "Pieter", "Pietersen")));
+        assertEquals("1 Jan Janssen", describe(dao.findById(1L)));
+        assertTrue(dao.findWithLastName("Pietersen").isEmpty());
+    }
+
+    @Test
+    void shouldNotChangeThePersonOfTheCaller() throws Exception {
+        String lastName = new String("Janssen");
+        Person person = new Person(1L, "Jan", lastName);
+
+        dao.add(person);
+
+        assertSame(lastName, person.getLastName());
+        assertEquals("1 Jan Janssen", describe(person));
+    }
+
+    @Test
+    void shouldUpdateAPersonAndItsLastNameIndex() throws Exception {
+        dao.add(new Person(1L, "Jan", "Janssen"));
+        dao.add(new Person(2L, "Pieter", "Janssen"));
+
+        dao.update(new Person(1L, "Jan", "Pietersen"));
+
+        assertEquals("1 Jan Pietersen", describe(dao.findById(1L)));
+        assertEquals(Collections.singletonList("2 Pieter Janssen"), describe(dao.findWithLastName("Janssen")));
+        assertEquals(Collections.singletonList("1 Jan Pietersen"), describe(dao.findWithLastName("Pietersen")));
+    }
+
+    @Test
+    void shouldRejectAnUpdateOfAPersonThatDoesNotExist() throws Exception {
+        assertThrows(PersonDoesNotExistException.class, () -> dao.update(new Person(1L, "Jan", "Janssen")));
+        assertNull(dao.findById(1L));
+    }
+
+    @Test
+    void shouldDeleteAPersonAndItsLastNameIndex() throws Exception {
+        dao.add(new Person(1L, "Jan", "Janssen"));
+        dao.add(new Person(2L, "Pieter", "Pietersen"));
+
+        dao.delete(1L);
+        dao.delete(42L);
+
+        assertNull(dao.findById(1L));
+        assertTrue(dao.findWithLastName("Janssen").isEmpty());
+        assertEquals(Collections.singletonList("2 Pieter Pietersen"), describe(dao.findAll()));
+    }
+
+    @Test
+    void shouldReturnAllPersonsOrderedById() throws Exception {
+        for (long id : new long[] {5, 3, 9, 1}) {
+            dao.add(new Person(id, "First" + id, "Janssen"));
+        }
+
+        assertEquals(Arrays.asList(1L, 3L, 5L, 9L), ids(dao.findAll()));
+        assertEquals(Arrays.asList(1L, 3L, 5L, 9L), ids(dao.findWithLastName("Janssen")));
+        assertEquals(Arrays.asList(1L, 3L, 5L, 9L), ids(dao.streamAll().collect(Collectors.toList())));
+    }
+
+    @Test
+    void shouldReturnPagesOfPersonsAfterTheGivenId() throws Exception {
+        for (long id = 10; id >= 1; id--) {
+            dao.add(new Person(id, "First" + id, "Janssen"));
+        }
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(dao.findAll(null, 3)));
+        assertEquals(Arrays.asList(4L, 5L, 6L), ids(dao.findAll(3L, 3)));
+        assertEquals(Collections.singletonList(10L), ids(dao.findAll(9L, 3)));
+        assertTrue(dao.findAll(10L, 3).isEmpty());
+        assertEquals(Arrays.asList(5L, 6L), ids(dao.findAll(4L, 2)));
+    }
+
+    @Test
+    void shouldReturnPagesOfPersonsWithTheGivenLastName() throws Exception {
+        for (long id = 1; id <= 10; id++) {
+            dao.add(new Person(id, "First" + id, id % 2 == 0 ? "Janssen" : "Pietersen"));
+        }
+
+        assertEquals(Arrays.asList(2L, 4L), ids(dao.findWithLastName("Janssen", null, 2)));
+        assertEquals(Arrays.asList(6L, 8L), ids(dao.findWithLastName("Janssen", 4L, 2)));
+        assertEquals(Arrays.asList(6L, 8L), ids(dao.findWithLastName("Janssen", 5L, 2)));
+        assertEquals(Collections.singletonList(10L), ids(dao.findWithLastName("Janssen", 8L, 2)));
+        assertTrue(dao.findWithLastName("Janssen", 10L, 2).isEmpty());
+        assertTrue(dao.findWithLastName("Eriksen", null, 2).isEmpty());
+    }
+
+    private static String describe(Person person) {
+        return person == null ? null : person.getId() + " " + person.getFirstName() + " " + person.getLastName();
+    }
+
+    private static List<String> describe(List<Person> persons) {
+        return persons.stream().map(PersonDAOContractTest::describe).collect(Collectors.toList());
+    }
+
+    private static List<Long> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).collect(Collectors.toList());
+    }
+}
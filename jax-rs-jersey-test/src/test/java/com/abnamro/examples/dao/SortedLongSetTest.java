@@ -0,0 +1,151 @@
+package com.abnamro.examples.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SortedLongSetTest {
+    @Test
+    void shouldKeepTheValuesInAscendingOrder() {
+        SortedLongSet values = new SortedLongSet(false);
+
+        for (long value : new long[] {5, 1, 9, 3, -2, 7}) {
+            assertTrue(values.add(value));
+        }
+        assertFalse(values.add(3));
+
+        assertEquals(6, values.size());
+        assertEquals(-2, values.first());
+        assertEquals(Arrays.asList(-2L, 1L, 3L, 5L, 7L, 9L), toList(values.iterator()));
+    }
+
+    @Test
+    void shouldIterateTheValuesAfterAValue() {
+        SortedLongSet values = new SortedLongSet(false);
+        for (long value = 10; value <= 50; value += 10) {
+            values.add(value);
+        }
+
+        assertEquals(Arrays.asList(10L, 20L, 30L, 40L, 50L), toList(values.iteratorAfter(Long.MIN_VALUE)));
+        assertEquals(Arrays.asList(10L, 20L, 30L, 40L, 50L), toList(values.iteratorAfter(9)));
+        assertEquals(Arrays.asList(20L, 30L, 40L, 50L), toList(values.iteratorAfter(10)));
+        assertEquals(Arrays.asList(20L, 30L, 40L, 50L), toList(values.iteratorAfter(11)));
+        assertEquals(Collections.singletonList(50L), toList(values.iteratorAfter(49)));
+        assertEquals(Collections.emptyList(), toList(values.iteratorAfter(50)));
+        assertEquals(Collections.emptyList(), toList(new SortedLongSet(false).iteratorAfter(1)));
+
+        PrimitiveIterator.OfLong exhausted = values.iteratorAfter(Long.MAX_VALUE);
+        assertThrows(NoSuchElementException.class, exhausted::nextLong);
+    }
+
+    @Test
+    void shouldRemoveValues() {
+        SortedLongSet values = new SortedLongSet(false);
+        for (long value = 1; value <= 5; value++) {
+            values.add(value);
+        }
+
+        assertTrue(values.remove(1));
+        assertTrue(values.remove(3));
+        assertTrue(values.remove(5));
+        assertFalse(values.remove(3));
+        assertFalse(values.remove(0));
+
+        assertEquals(Arrays.asList(2L, 4L), toList(values.iterator()));
+
+        values.clear();
+        assertEquals(0, values.size());
+        assertThrows(NoSuchElementException.class, values::first);
+        assertFalse(values.remove(2));
+        assertTrue(values.add(3));
+        assertEquals(Collections.singletonList(3L), toList(values.iterator()));
+    }
+
+    @Test
+    void shouldSplitFullBlocksAndDropEmptyOnes() {
+        SortedLongSet values = new SortedLongSet(true);
+        int count = 5 * SortedLongSet.BLOCK_SIZE;
+        // in descending order, so every block fills up at its start and is split
+        for (long value = count; value >= 1; value--) {
+            assertTrue(values.add(2 * value));
+        }
+        for (long value = 1; value <= count; value++) {
+            assertTrue(values.add(2 * value - 1));
+        }
+
+        assertEquals(2 * count, values.size());
+        assertEquals(rangeFrom(1, 2 * count), toList(values.iterator()));
+
+        for (long value = 1; value <= count; value++) {
+            assertTrue(values.remove(value));
+        }
+        assertEquals(rangeFrom(count + 1, 2 * count), toList(values.iterator()));
+        assertEquals(rangeFrom(count + 1, 2 * count), toList(values.iteratorAfter(count)));
+    }
+
+    /**
+     * Runs random operations and compares the outcome with a TreeSet, on enough values to use many blocks.
+     */
+    @Test
+    void shouldBehaveLikeATreeSetOnTheHeap() {
+        assertBehavesLikeATreeSet(new SortedLongSet(false));
+    }
+
+    @Test
+    void shouldBehaveLikeATreeSetInDirectMemory() {
+        assertBehavesLikeATreeSet(new SortedLongSet(true));
+    }
+
+    private static void assertBehavesLikeATreeSet(SortedLongSet values) {
+        Random random = new Random(42);
+        NavigableSet<Long> expected = new TreeSet<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(20_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), values.remove(value));
+            } else {
+                assertEquals(expected.add(value), values.add(value));
+            }
+            assertEquals(expected.size(), values.size());
+
+            if (i % 1_000 == 0) {
+                long after = random.nextInt(20_000);
+                assertEquals(first(expected.tailSet(after, false).iterator(), 50), first(values.iteratorAfter(after), 50));
+            }
+        }
+
+        assertEquals(new ArrayList<>(expected), toList(values.iterator()));
+    }
+
+    private static List<Long> rangeFrom(long from, long to) {
+        List<Long> result = new ArrayList<>();
+        for (long value = from; value <= to; value++) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    private static List<Long> toList(Iterator<Long> values) {
+        return first(values, Integer.MAX_VALUE);
+    }
+
+    private static List<Long> first(Iterator<Long> values, int limit) {
+        List<Long> result = new ArrayList<>();
+        while (values.hasNext() && result.size() < limit) {
+            result.add(values.next());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentCodingTest {
+    private static final byte[] BODY = PooledGZIPOutputStreamTest.body(10_000);
+
+    @Test
+    void shouldNotCompressWithoutAcceptEncoding() {
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate(null));
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate(" "));
+    }
+
+    @Test
+    void shouldPickTheCodingWithTheHighestQuality() {
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("gzip"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("X-GZIP"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("deflate"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0.5, deflate"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("deflate; q=0.4, gzip ; q=0.6"));
+    }
+
+    @Test
+    void shouldPreferGzipOnATie() {
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("deflate, gzip"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("*"));
+    }
+
+    @Test
+    void shouldGiveTheWildcardQualityToTheCodingsThatAreNotListed() {
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=0, *"));
+        assertEquals(ContentCoding.GZIP, ContentCoding.negotiate("deflate;q=0.1, *;q=0.5"));
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("*;q=0"));
+    }
+
+    @Test
+    void shouldNotCompressWithACodingThatIsNotAcceptable() {
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("gzip;q=0"));
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("br, identity"));
+        // a quality that cannot be parsed or is out of range is not acceptable
+        assertEquals(ContentCoding.IDENTITY, ContentCoding.negotiate("gzip;q=high"));
+        assertEquals(ContentCoding.DEFLATE, ContentCoding.negotiate("gzip;q=2, deflate;q=0.1"));
+    }
+
+    @Test
+    void shouldCompressWithTheCoding() throws IOException {
+        assertArrayEquals(BODY, gunzip(compress(ContentCoding.GZIP)));
+        assertArrayEquals(BODY, inflate(compress(ContentCoding.DEFLATE)));
+        assertArrayEquals(BODY, compress(ContentCoding.IDENTITY));
+    }
+
+    private static byte[] compress(ContentCoding coding) throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (OutputStream out = coding.compress(target)) {
+            out.write(BODY);
+        }
+        return target.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed) throws IOException {
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+}
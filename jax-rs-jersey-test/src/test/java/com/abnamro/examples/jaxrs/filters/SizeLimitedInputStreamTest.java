@@ -0,0 +1,97 @@
+package com.abnamro.examples.jaxrs.filters;
+
+import com.abnamro.examples.domain.api.ErrorResponse;
+import com.abnamro.examples.jaxrs.annotations.MaxRequestSize;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SizeLimitedInputStreamTest {
+    @Test
+    void shouldReadABodyUpToTheLimit() throws IOException {
+        SizeLimitedInputStream body = new SizeLimitedInputStream(chunked(4, 256), 1024);
+
+        assertEquals(1024, readFully(body));
+        assertFalse(body.isExceeded());
+    }
+
+    @Test
+    void shouldRejectAChunkedBodyAsSoonAsItCrossesTheLimit() {
+        SizeLimitedInputStream body = new SizeLimitedInputStream(chunked(5, 256), 1024);
+
+        WebApplicationException exception = assertThrows(WebApplicationException.class, () -> readFully(body));
+
+        assertTooLarge(exception.getResponse(), 1024);
+        assertTrue(body.isExceeded());
+    }
+
+    @Test
+    void shouldCountSingleBytesAndSkippedBytes() throws IOException {
+        SizeLimitedInputStream body = new SizeLimitedInputStream(chunked(1, 10), 5);
+
+        assertEquals(4, body.skip(4));
+        assertEquals(0, body.read());
+        assertThrows(WebApplicationException.class, body::read);
+        assertTrue(body.isExceeded());
+    }
+
+    @Test
+    void shouldOnlyLowerTheLimitWhenRestricted() {
+        SizeLimitedInputStream body = new SizeLimitedInputStream(chunked(1, 10), 1024);
+
+        body.restrictTo(2048);
+        assertEquals(1024, body.getLimit());
+        body.restrictTo(MaxRequestSize.UNLIMITED);
+        assertEquals(1024, body.getLimit());
+        body.restrictTo(512);
+        assertEquals(512, body.getLimit());
+    }
+
+    @Test
+    void shouldLiftTheLimitForAnExplicitOptOut() throws IOException {
+        SizeLimitedInputStream body = new SizeLimitedInputStream(chunked(8, 256), 1024);
+
+        body.liftTo(MaxRequestSize.UNLIMITED);
+
+        assertEquals(2048, readFully(body));
+        assertFalse(body.isExceeded());
+    }
+
+    /**
+     * A body sent with chunked transfer encoding has no Content-Length, it arrives as a sequence of chunks.
+     */
+    private static InputStream chunked(int chunks, int chunkSize) {
+        List<InputStream> body = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            body.add(new ByteArrayInputStream(new byte[chunkSize]));
+        }
+        return new SequenceInputStream(Collections.enumeration(body));
+    }
+
+    private static int readFully(InputStream in) throws IOException {
+        byte[] buffer = new byte[100];
+        int total = 0;
+        int count;
+        while ((count = in.read(buffer)) >= 0) {
+            total += count;
+        }
+        return total;
+    }
+
+    private static void assertTooLarge(Response response, long limit) {
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), response.getStatus());
+        ErrorResponse error = (ErrorResponse) response.getEntity();
+        assertEquals("REQUEST_ENTITY_TOO_LARGE", error.getCode());
+        assertEquals("the request body is larger than the allowed " + limit + " bytes", error.getMessage());
+    }
+}
@@ -79,6 +79,16 @@ public abstract class AbstractPersonResourceUsingJerseyIT<T extends Person> exte
         assertEquals("Janssen", result.getItems().get(0).getLastName());
     }
 
+    @Test
+    public void shouldRejectAnInvalidCursor() {
+        Response response = target("person/lastName/Janssen").queryParam("cursor", "invalid").request().get();
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        final ErrorResponse result = response.readEntity(ErrorResponse.class);
+        assertEquals(Response.Status.BAD_REQUEST.name(), result.getCode());
+        assertEquals("invalid cursor", result.getMessage());
+    }
+
     /**
      * Observe that the /person/all resource is the only resource that is bound to a jax-rs interceptor that
      * compresses the response data. This implies that we need to register a jax-rs interceptor on the client used
@@ -133,7 +143,10 @@ public abstract class AbstractPersonResourceUsingJerseyIT<T extends Person> exte
         Entity<Person> entity = Entity.json(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)));
         Response result = target("person").request().post(entity);
 
-        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), result.getStatus());
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), result.getStatus());
+        final ErrorResponse error = result.readEntity(ErrorResponse.class);
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.name(), error.getCode());
+        assertEquals("the request body is larger than the allowed 1024 bytes", error.getMessage());
     }
 
     @Test
@@ -149,7 +162,7 @@ public abstract class AbstractPersonResourceUsingJerseyIT<T extends Person> exte
         Entity<Person> entity = Entity.json(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)));
         Response result = target("person").request().post(entity);
 
-        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), result.getStatus());
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), result.getStatus());
         assertEquals(AddCustomHeaderResponseFilter.CUSTOM_HEADER_VALUE, result.getHeaders().get(AddCustomHeaderResponseFilter.CUSTOM_HEADER).get(0));
     }
 
@@ -158,10 +171,7 @@ public abstract class AbstractPersonResourceUsingJerseyIT<T extends Person> exte
         Entity<Person> entity = Entity.json(new Person(5L, "Despicable", "Me"));
         Response result = target("person").request().post(entity);
 
-        // NOTE : WARNING - with the current setup the StatusFilter does not work because the @Status annotation is not
-        // found on the resource method, there fore the incorrect status is returned!
-        //assertEquals(Response.Status.CREATED.getStatusCode(), result.getStatus());
-        assertEquals(Response.Status.OK.getStatusCode(), result.getStatus());
+        assertEquals(Response.Status.CREATED.getStatusCode(), result.getStatus());
 
         assertEquals(AddCustomHeaderResponseFilter.CUSTOM_HEADER_VALUE, result.getHeaders().get(AddCustomHeaderResponseFilter.CUSTOM_HEADER).get(0));
     }
@@ -0,0 +1,218 @@
+package com.abnamro.examples.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchingLoggerTest {
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void shouldWriteAFullBatchWithoutWaitingForTheLingerTime() throws Exception {
+        BatchingLogger logger = new BatchingLogger(this::collect, 4, 60_000, 100);
+        try {
+            for (int i = 0; i < 4; i++) {
+                logger.debug("Test", Integer.toString(i));
+            }
+
+            awaitWritten(logger, 4);
+            assertEquals(Collections.singletonList(statements("Test 0", "Test 1", "Test 2", "Test 3")), batches);
+        } finally {
+            logger.close();
+        }
+    }
+
+    @Test
+    void shouldWriteAPartialBatchAfterTheLingerTime() throws Exception {
+        BatchingLogger logger = new BatchingLogger(this::collect, 100, 10, 100);
+        try {
+            logger.debug("Test", "lonely");
+
+            awaitWritten(logger, 1);
+            assertEquals(Collections.singletonList(statements("Test lonely")), batches);
+        } finally {
+            logger.close();
+        }
+    }
+
+    @Test
+    void shouldWriteThePendingStatementsWhenClosed() {
+        BatchingLogger logger = new BatchingLogger(this::collect, 100, 60_000, 100);
+        logger.debug("Test", "first");
+        logger.debug("Test", "second");
+
+        logger.close();
+
+        assertEquals(2, logger.getWritten());
+        assertEquals(statements("Test first", "Test second"), written());
+    }
+
+    @Test
+    void shouldCloseTheSinkAfterTheLastBatch() {
+        List<String> events = new ArrayList<>();
+        BatchingLogger logger = new BatchingLogger(new BatchingLogger.Sink() {
+            @Override
+            public void write(List<String> statements) {
+                events.addAll(statements);
+            }
+
+            @Override
+            public void close() {
+                events.add("closed");
+            }
+        }, 100, 60_000, 100);
+        logger.debug("Test", "last");
+
+        logger.close();
+
+        assertEquals(statements("Test last", "closed"), events);
+    }
+
+    @Test
+    void shouldDropStatementsLoggedAfterClose() {
+        BatchingLogger logger = new BatchingLogger(this::collect, 100, 10, 100);
+        logger.close();
+        logger.close();
+
+        logger.debug("Test", "too late");
+
+        assertEquals(1, logger.getLogged());
+        assertEquals(1, logger.getDropped());
+        assertEquals(0, logger.getWritten());
+    }
+
+    @Test
+    void shouldDropStatementsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BatchingLogger logger = new BatchingLogger(statements -> {
+            blocked.countDown();
+            await(release);
+            collect(statements);
+        }, 1, 60_000, 2);
+
+        // the writer takes the first statement off the queue and blocks in the sink, two more fit in the queue
+        logger.debug("Test", "0");
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 5; i++) {
+            logger.debug("Test", Integer.toString(i));
+        }
+        release.countDown();
+        logger.close();
+
+        assertEquals(5, logger.getLogged());
+        assertEquals(2, logger.getDropped());
+        assertEquals(statements("Test 0", "Test 1", "Test 2"), written());
+    }
+
+    @Test
+    void shouldCountTheStatementsOfAFailedBatchAsDropped() {
+        BatchingLogger logger = new BatchingLogger(statements -> {
+            throw new IOException("disk full");
+        }, 100, 60_000, 100);
+        logger.debug("Test", "lost");
+
+        logger.close();
+
+        assertEquals(1, logger.getDropped());
+        assertEquals(1, logger.getFailedBatches());
+        assertEquals(0, logger.getWritten());
+    }
+
+    @Test
+    void shouldAccountForEveryStatementLoggedWhileClosing() throws Exception {
+        for (int round = 0; round < 100; round++) {
+            BatchingLogger logger = new BatchingLogger(statements -> { }, 64, 1, 1_000_000);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < 10_000; i++) {
+                            logger.debug("Test", "message");
+                        }
+                        return null;
+                    }));
+                }
+
+                start.countDown();
+                logger.close();
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(40_000, logger.getLogged());
+            assertEquals(logger.getLogged(), logger.getWritten() + logger.getDropped(), logger.toString());
+        }
+    }
+
+    @Test
+    void shouldAppendTheStatementsToAFile() throws IOException {
+        Path file = Files.createTempFile("logger", ".log");
+        try {
+            Files.write(file, "existing\n".getBytes(StandardCharsets.UTF_8));
+            BatchingLogger logger = new BatchingLogger(BatchingLogger.fileSink(file), 100, 60_000, 100);
+            logger.debug("Test", "first");
+            logger.debug("Test", "second");
+
+            logger.close();
+
+            assertEquals(statements("existing", "Test first", "Test second"),
+                    Files.readAllLines(file, StandardCharsets.UTF_8));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private void collect(List<String> statements) {
+        // the logger reuses its batch
+        batches.add(new ArrayList<>(statements));
+    }
+
+    private List<String> written() {
+        List<String> result = new ArrayList<>();
+        batches.forEach(result::addAll);
+        return result;
+    }
+
+    private static void awaitWritten(BatchingLogger logger, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (logger.getWritten() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(expected, logger.getWritten());
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static List<String> statements(String... statements) {
+        List<String> result = new ArrayList<>();
+        Collections.addAll(result, statements);
+        return result;
+    }
+}
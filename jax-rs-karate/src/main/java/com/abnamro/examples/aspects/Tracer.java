@@ -6,11 +6,19 @@ import javax.interceptor.AroundInvoke;
 import javax.interceptor.Interceptor;
 import javax.interceptor.InvocationContext;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * An interceptor that logs the entry and exit of method calls. We use this interceptor to demonstrate how you can
  * unit-integration (wired) test a resource that has CDI method-interceptors (this tracer) using RestEasy.
  *
+ * Besides logging, the tracer records the latency of every call in a histogram per method, see latencies(). The log
+ * messages of a method are built once, on its first call, and are only handed to the logger if it has debug enabled,
+ * so a traced call does not allocate.
+ *
  * To prevent the need of a beans.xml specifying the interceptor we use the @Priority annotation
  * (see https://docs.oracle.com/javaee/7/tutorial/cdi-adv006.htm).
  *
@@ -26,6 +34,9 @@ public class Tracer {
     private static final String ACTION_ENTERING = "entering";
     private static final String ACTION_EXITING = "exiting";
 
+    // shared by all tracer instances, CDI may create an instance per intercepted bean
+    private static final ConcurrentMap<Method, TracedMethod> TRACED_METHODS = new ConcurrentHashMap<>();
+
     @SuppressWarnings("CdiInjectionPointsInspection")
     private final Logger logger;
 
@@ -34,27 +45,70 @@ public class Tracer {
         this.logger = logger;
     }
 
+    /**
+     * Returns a snapshot of the latencies (in nanoseconds) of the traced methods, by 'class.method(parameter types)'.
+     * Calls that threw an exception are included.
+     */
+    public static Map<String, LatencyHistogram.Snapshot> latencies() {
+        final Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        TRACED_METHODS.values().forEach(traced -> result.put(traced.name, traced.latencies.snapshot()));
+        return result;
+    }
+
+    /**
+     * Forgets the latencies recorded so far, as example to start a measurement.
+     */
+    public static void resetLatencies() {
+        TRACED_METHODS.clear();
+    }
+
     @AroundInvoke
     public Object traceMethod(final InvocationContext ctx) throws Exception {
-        logEntry(ctx.getMethod());
+        final TracedMethod traced = TRACED_METHODS.computeIfAbsent(ctx.getMethod(), TracedMethod::new);
+        final boolean logging = logger.isDebugEnabled();
+
+        if (logging) {
+            logger.debug(traced.className, traced.entering);
+        }
 
-        final Object result = ctx.proceed();
+        final long start = System.nanoTime();
+        final Object result;
+        try {
+            result = ctx.proceed();
+        } finally {
+            traced.latencies.record(System.nanoTime() - start);
+        }
 
-        logExit(ctx.getMethod());
+        if (logging) {
+            logger.debug(traced.className, traced.exiting);
+        }
 
         return result;
     }
 
-    private void logEntry(final Method method) {
-        logMessage(method, ACTION_ENTERING);
-    }
+    private static final class TracedMethod {
+        private final String className;
+        private final String name;
+        private final String entering;
+        private final String exiting;
+        private final LatencyHistogram latencies = new LatencyHistogram();
 
-    private void logExit(final Method method) {
-        logMessage(method, ACTION_EXITING);
-    }
+        private TracedMethod(final Method method) {
+            this.className = method.getDeclaringClass().getName();
+            this.name = className + "." + method.getName() + parameterTypes(method);
+            this.entering = String.format(MESSAGE_TEMPLATE, ACTION_ENTERING, method.getName());
+            this.exiting = String.format(MESSAGE_TEMPLATE, ACTION_EXITING, method.getName());
+        }
 
-    private void logMessage(final Method method, final String action) {
-        logger.debug(method.getDeclaringClass().getName(), String.format(MESSAGE_TEMPLATE, action, method.getName()));
+        private static String parameterTypes(final Method method) {
+            final StringBuilder result = new StringBuilder("(");
+            for (Class<?> type : method.getParameterTypes()) {
+                if (result.length() > 1) {
+                    result.append(',');
+                }
+                result.append(type.getSimpleName());
+            }
+            return result.append(')').toString();
+        }
     }
 }
-
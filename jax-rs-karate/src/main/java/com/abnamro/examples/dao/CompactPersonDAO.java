@@ -0,0 +1,219 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.dao.exceptions.DataAccessException;
+import com.abnamro.examples.dao.exceptions.PersonAlreadyExistsException;
+import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
+import com.abnamro.examples.domain.api.Person;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Memory efficient alternative for the HardCodedPersonDAO, for when you want to load millions of persons into the
+ * in-memory store. The persons are kept in a map with primitive long keys, so we do not pay for a boxed Long and a
+ * map entry object per person. The last name index maps every last name onto the ids of the persons having that last
+ * name, kept in id order. All persons with the same last name share one String instance, the one of the first of them
+ * that was stored. So that index doubles as the map that deduplicates the last names, and unlike with String.intern()
+ * a last name is released with the last person having it, however many distinct last names clients send.
+ *
+ * Heap footprint per person, including the Person and name instances, with ten persons per last name (64-bit JVM,
+ * compressed oops, measured with the PersonStoreFootprint of the jmh sources): the HardCodedPersonDAO uses about 295
+ * bytes (map node, boxed Long and table slot, sorted view nodes and boxed Long, last name index node and boxed Long,
+ * and a last name instance per person), this implementation about 95 bytes when created with the expected size.
+ *
+ * Access is guarded by a read-write lock, so concurrent reads do not block each other. The map is not ordered, so
+ * all ids are also kept in a sorted set (see SortedLongSet), in blocks so adding and removing a person takes about the
+ * same time however many persons there are. A page of persons starts with a seek to the id after which the page
+ * starts, in that set or in the ids of the last name, so like with the HardCodedPersonDAO every page is as fast as the
+ * first one.
+ *
+ * Unlike the HardCodedPersonDAO the state is not static, so make sure you use one instance, as example by registering
+ * it as a singleton in your application. Pass the number of persons you expect to store to prevent rehashing while
+ * loading a large data-set. There deliberately is no default constructor, so this option is not picked up as an
+ * injection candidate next to the HardCodedPersonDAO by CDI containers that discover all classes. The application
+ * uses this store when the system property 'persons.dao' is set to 'compact' (see MyApplication).
+ *
+ * Note that this is NOT an implementation you would use in production :)... it is just here to support the
+ * demo!
+ */
+@SuppressWarnings("unchecked")
+public class CompactPersonDAO implements PersonDAO<Person> {
+
+    private static final List<Person> initialContent = new ArrayList<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongObjectHashMap<Person> persons;
+    private final SortedLongSet ids = new SortedLongSet(false);
+    private final Map<String, SortedLongSet> idsByLastName = new HashMap<>();
+
+    public CompactPersonDAO(int expectedSize) {
+        persons = new LongObjectHashMap<>(expectedSize);
+        reset();
+    }
+
+    @Override
+    public List<Person> findAll() {
+        lock.readLock().lock();
+        try {
+            return inIdOrder(ids.iterator(), ids.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findAll(Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            return inIdOrder(afterId == null ? ids.iterator() : ids.iteratorAfter(afterId), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Person findById(long id) {
+        lock.readLock().lock();
+        try {
+            return persons.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findWithLastName(String lastName) {
+        lock.readLock().lock();
+        try {
+            SortedLongSet matches = idsByLastName.get(lastName);
+            return matches == null ? Collections.emptyList() : inIdOrder(matches.iterator(), matches.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findWithLastName(String lastName, Long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            SortedLongSet matches = idsByLastName.get(lastName);
+            if(matches == null) {
+                return Collections.emptyList();
+            }
+            return inIdOrder(afterId == null ? matches.iterator() : matches.iteratorAfter(afterId), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Person add(Person person) throws DataAccessException, PersonAlreadyExistsException {
+        lock.writeLock().lock();
+        try {
+            if(persons.containsKey(person.getId())) {
+                throw new PersonAlreadyExistsException("person already exists");
+            }
+
+            // store a copy, so we can share the last name without changing the person of the caller
+            Person stored = new Person(person.getId(), person.getFirstName(), shared(person.getLastName()));
+            persons.put(stored.getId(), stored);
+            ids.add(stored.getId());
+            index(stored);
+
+            return person;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(Person person) throws DataAccessException, PersonDoesNotExistException {
+        lock.writeLock().lock();
+        try {
+            Person current = persons.get(person.getId());
+            if(current == null) {
+                throw new PersonDoesNotExistException("person does not exist");
+            }
+
+            Person updated = new Person(person.getId(), person.getFirstName(), shared(person.getLastName()));
+            unindex(current);
+            persons.put(updated.getId(), updated);
+            index(updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        lock.writeLock().lock();
+        try {
+            Person removed = persons.remove(id);
+            if(removed != null) {
+                ids.remove(id);
+                unindex(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Person person) {
+        if(person.getLastName() != null) {
+            idsByLastName.computeIfAbsent(person.getLastName(), lastName -> new SortedLongSet(false)).add(person.getId());
+        }
+    }
+
+    private void unindex(Person person) {
+        SortedLongSet matches = person.getLastName() == null ? null : idsByLastName.get(person.getLastName());
+        if(matches != null) {
+            matches.remove(person.getId());
+            if(matches.size() == 0) {
+                idsByLastName.remove(person.getLastName());
+            }
+        }
+    }
+
+    /**
+     * Returns the instance of the last name the stored persons with that last name share, or the given one if there
+     * are none.
+     */
+    private String shared(String lastName) {
+        SortedLongSet matches = lastName == null ? null : idsByLastName.get(lastName);
+        return matches == null ? lastName : persons.get(matches.first()).getLastName();
+    }
+
+    private List<Person> inIdOrder(PrimitiveIterator.OfLong cursor, int limit) {
+        List<Person> result = new ArrayList<>(Math.min(limit, ids.size()));
+        while (cursor.hasNext() && result.size() < limit) {
+            result.add(persons.get(cursor.nextLong()));
+        }
+        return result;
+    }
+
+    /**
+     * We need to ability to reset the state of the data-set to the initial state for test purposes.
+     */
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            persons.clear();
+            ids.clear();
+            idsByLastName.clear();
+
+            initialContent.stream().map(Person::new).forEach(person -> {
+                persons.put(person.getId(), person);
+                ids.add(person.getId());
+                index(person);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.dao.exceptions.DataAccessException;
+import com.abnamro.examples.dao.exceptions.PersonAlreadyExistsException;
+import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
+import com.abnamro.examples.domain.api.Person;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Person store for very large data-sets that keeps the persons off-heap, in direct byte buffers, so the garbage
+ * collector does not have to trace millions of long living Person instances. Person instances are only created when
+ * they are read, as example to be serialized in a response.
+ *
+ * The records are appended to fixed size segments, a record never spans two segments. An index maps the id of every
+ * person onto the address of its record: the segment number in the high and the position in the low 32 bits.
+ *
+ * Record layout: capacity (int), live flag (byte), id (long), length of the first name and last name in bytes (int,
+ * -1 for null) followed by the UTF-8 encoded first name and last name. The capacity is the number of name bytes the
+ * record can hold, so an update that still fits is written in place. Otherwise the old record is marked dead and the
+ * person is appended. Deleted and moved records leave dead space behind, once that is more than half of all space
+ * in use we compact the store by copying the live records to new segments.
+ *
+ * Finding persons by last name scans all records, but compares the encoded last names in place so only the matching
+ * records are decoded. The ids are also kept in sorted blocks in direct memory (see SortedLongSet), so the heap only
+ * holds a buffer object per block of ids and adding or removing a person takes about the same time however many
+ * persons there are. A page of persons starts with a seek in those blocks and takes the ids that follow, so every page
+ * is as fast as the first one and only the persons on the page are decoded. A page of persons with a last name walks
+ * the ids from there until the page is full, so it stops early for common last names. There is no last name index,
+ * so a page of a rare last name walks many ids.
+ *
+ * Access is guarded by a read-write lock, so concurrent reads do not block each other. Like the CompactPersonDAO
+ * this class keeps instance state and has no default constructor, so register one instance as a singleton. The
+ * application uses this store when the system property 'persons.dao' is set to 'offheap' (see MyApplication).
+ *
+ * Note that this is NOT an implementation you would use in production :)... it is just here to support the
+ * demo!
+ */
+@SuppressWarnings("unchecked")
+public class OffHeapPersonDAO implements PersonDAO<Person> {
+
+    private static final List<Person> initialContent = new ArrayList<>();
+
+    private static final Comparator<Person> BY_ID = Comparator.comparingLong(Person::getId);
+
+    private static final int CAPACITY_OFFSET = 0;
+    private static final int LIVE_OFFSET = 4;
+    private static final int ID_OFFSET = 5;
+    private static final int FIRST_NAME_LENGTH_OFFSET = 13;
+    private static final int LAST_NAME_LENGTH_OFFSET = 17;
+    private static final int HEADER_SIZE = 21;
+
+    private static final byte LIVE = 1;
+    private static final byte DEAD = 0;
+    private static final int NULL_LENGTH = -1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int segmentSize;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private final LongLongHashMap index = new LongLongHashMap();
+    private final SortedLongSet ids = new SortedLongSet(true);
+
+    private int writePosition;
+    private long usedBytes;
+    private long deadBytes;
+
+    /**
+     * @param segmentSize the size in bytes of every off-heap segment, also the maximum size of a single record
+     */
+    public OffHeapPersonDAO(int segmentSize) {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segment size should be larger than " + HEADER_SIZE);
+        }
+
+        this.segmentSize = segmentSize;
+        reset();
+    }
+
+    @Override
+    public List<Person> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Person> result = new ArrayList<>(ids.size());
+            for (PrimitiveIterator.OfLong cursor = ids.iterator(); cursor.hasNext(); ) {
+                result.add(read(index.get(cursor.nextLong())));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findAll(Long afterId, int limit) {
+        return findPage(afterId, limit, address -> true);
+    }
+
+    @Override
+    public Person findById(long id) {
+        lock.readLock().lock();
+        try {
+            long address = index.get(id);
+            return address == LongLongHashMap.NO_VALUE ? null : read(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findWithLastName(String lastName) {
+        byte[] encoded = encode(lastName);
+
+        lock.readLock().lock();
+        try {
+            List<Person> result = new ArrayList<>();
+            forEachLiveRecord(address -> {
+                if (hasLastName(address, encoded)) {
+                    result.add(read(address));
+                }
+            });
+            result.sort(BY_ID);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Person> findWithLastName(String lastName, Long afterId, int limit) {
+        byte[] encoded = encode(lastName);
+
+        return findPage(afterId, limit, address -> hasLastName(address, encoded));
+    }
+
+    @Override
+    public Person add(Person person) throws DataAccessException, PersonAlreadyExistsException {
+        byte[] firstName = encode(person.getFirstName());
+        byte[] lastName = encode(person.getLastName());
+
+        lock.writeLock().lock();
+        try {
+            if (index.containsKey(person.getId())) {
+                throw new PersonAlreadyExistsException("person already exists");
+            }
+
+            index.put(person.getId(), append(person.getId(), firstName, lastName));
+            ids.add(person.getId());
+
+            return person;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(Person person) throws DataAccessException, PersonDoesNotExistException {
+        byte[] firstName = encode(person.getFirstName());
+        byte[] lastName = encode(person.getLastName());
+
+        lock.writeLock().lock();
+        try {
+            long address = index.get(person.getId());
+            if (address == LongLongHashMap.NO_VALUE) {
+                throw new PersonDoesNotExistException("person does not exist");
+            }
+
+            ByteBuffer segment = segmentOf(address);
+            int position = positionOf(address);
+            if (lengthOf(firstName) + lengthOf(lastName) <= segment.getInt(position + CAPACITY_OFFSET)) {
+                writeNames(segment, position, firstName, lastName);
+            } else {
+                index.put(person.getId(), append(person.getId(), firstName, lastName));
+                markDead(segment, position);
+                compactIfWorthIt();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Long id) {
+        lock.writeLock().lock();
+        try {
+            long address = index.remove(id);
+            if (address != LongLongHashMap.NO_VALUE) {
+                ids.remove(id);
+                markDead(segmentOf(address), positionOf(address));
+                compactIfWorthIt();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * We need to ability to reset the state of the data-set to the initial state for test purposes.
+     */
+    public void reset() {
+        lock.writeLock().lock();
+        try {
+            segments.clear();
+            segments.add(ByteBuffer.allocateDirect(segmentSize));
+            index.clear();
+            ids.clear();
+            writePosition = 0;
+            usedBytes = 0;
+            deadBytes = 0;
+
+            for (Person person : initialContent) {
+                index.put(person.getId(), append(person.getId(), encode(person.getFirstName()), encode(person.getLastName())));
+                ids.add(person.getId());
+            }
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("unable to load the initial content", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The number of bytes taken by records, live and dead, for test purposes.
+     */
+    long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of bytes taken by dead records, for test purposes.
+     */
+    long deadBytes() {
+        lock.readLock().lock();
+        try {
+            return deadBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The number of off-heap segments, for test purposes.
+     */
+    int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long append(long id, byte[] firstName, byte[] lastName) throws DataAccessException {
+        int capacity = lengthOf(firstName) + lengthOf(lastName);
+        int recordSize = HEADER_SIZE + capacity;
+        if (recordSize > segmentSize) {
+            throw new DataAccessException("person does not fit in a segment of " + segmentSize + " bytes");
+        }
+
+        if (writePosition + recordSize > segmentSize) {
+            startNewSegment();
+        }
+
+        ByteBuffer segment = segments.get(segments.size() - 1);
+        int position = writePosition;
+        segment.putInt(position + CAPACITY_OFFSET, capacity);
+        segment.put(position + LIVE_OFFSET, LIVE);
+        segment.putLong(position + ID_OFFSET, id);
+        writeNames(segment, position, firstName, lastName);
+
+        writePosition += recordSize;
+        usedBytes += recordSize;
+
+        return addressOf(segments.size() - 1, position);
+    }
+
+    /**
+     * Closes the current segment with a dead filler record covering its unused tail, if that tail can hold a header,
+     * and continues in a new segment.
+     */
+    private void startNewSegment() {
+        int tail = segmentSize - writePosition;
+        if (tail >= HEADER_SIZE) {
+            ByteBuffer segment = segments.get(segments.size() - 1);
+            segment.putInt(writePosition + CAPACITY_OFFSET, tail - HEADER_SIZE);
+            segment.put(writePosition + LIVE_OFFSET, DEAD);
+        }
+        usedBytes += tail;
+        deadBytes += tail;
+
+        segments.add(ByteBuffer.allocateDirect(segmentSize));
+        writePosition = 0;
+    }
+
+    private void writeNames(ByteBuffer segment, int position, byte[] firstName, byte[] lastName) {
+        segment.putInt(position + FIRST_NAME_LENGTH_OFFSET, firstName == null ? NULL_LENGTH : firstName.length);
+        segment.putInt(position + LAST_NAME_LENGTH_OFFSET, lastName == null ? NULL_LENGTH : lastName.length);
+
+        ByteBuffer target = segment.duplicate();
+        target.position(position + HEADER_SIZE);
+        if (firstName != null) {
+            target.put(firstName);
+        }
+        if (lastName != null) {
+            target.put(lastName);
+        }
+    }
+
+    private void markDead(ByteBuffer segment, int position) {
+        segment.put(position + LIVE_OFFSET, DEAD);
+        deadBytes += HEADER_SIZE + segment.getInt(position + CAPACITY_OFFSET);
+    }
+
+    private Person read(long address) {
+        ByteBuffer segment = segmentOf(address);
+        int position = positionOf(address);
+
+        ByteBuffer source = segment.duplicate();
+        source.position(position + HEADER_SIZE);
+        String firstName = decode(source, segment.getInt(position + FIRST_NAME_LENGTH_OFFSET));
+        String lastName = decode(source, segment.getInt(position + LAST_NAME_LENGTH_OFFSET));
+
+        return new Person(segment.getLong(position + ID_OFFSET), firstName, lastName);
+    }
+
+    /**
+     * Returns the limit matching persons with the lowest ids after afterId, ordered by id.
+     */
+    private List<Person> findPage(Long afterId, int limit, LongPredicate matches) {
+        lock.readLock().lock();
+        try {
+            List<Person> result = new ArrayList<>(Math.min(limit, ids.size()));
+            PrimitiveIterator.OfLong cursor = afterId == null ? ids.iterator() : ids.iteratorAfter(afterId);
+            while (cursor.hasNext() && result.size() < limit) {
+                long address = index.get(cursor.nextLong());
+                if (matches.test(address)) {
+                    result.add(read(address));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compares the encoded last name with the one of the record in place, so no bytes are copied.
+     */
+    private boolean hasLastName(long address, byte[] lastName) {
+        ByteBuffer segment = segmentOf(address);
+        int position = positionOf(address);
+
+        int length = segment.getInt(position + LAST_NAME_LENGTH_OFFSET);
+        if (lastName == null || length == NULL_LENGTH) {
+            return lastName == null && length == NULL_LENGTH;
+        }
+        if (length != lastName.length) {
+            return false;
+        }
+
+        int start = position + HEADER_SIZE + lengthOf(segment.getInt(position + FIRST_NAME_LENGTH_OFFSET));
+        for (int i = 0; i < length; i++) {
+            if (segment.get(start + i) != lastName[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void forEachLiveRecord(LongConsumer consumer) {
+        for (int segmentNumber = 0; segmentNumber < segments.size(); segmentNumber++) {
+            ByteBuffer segment = segments.get(segmentNumber);
+            int limit = segmentNumber == segments.size() - 1 ? writePosition : segmentSize;
+
+            int position = 0;
+            while (position + HEADER_SIZE <= limit) {
+                if (segment.get(position + LIVE_OFFSET) == LIVE) {
+                    consumer.accept(addressOf(segmentNumber, position));
+                }
+                position += HEADER_SIZE + segment.getInt(position + CAPACITY_OFFSET);
+            }
+        }
+    }
+
+    /**
+     * Copies all live records to new segments, dropping the dead space, and points the index to the new addresses.
+     * The memory of the old segments is released when the garbage collector collects their (small) buffer objects.
+     */
+    private void compactIfWorthIt() {
+        if (deadBytes < segmentSize || deadBytes * 2 < usedBytes) {
+            return;
+        }
+
+        List<ByteBuffer> oldSegments = new ArrayList<>(segments);
+
+        segments.clear();
+        segments.add(ByteBuffer.allocateDirect(segmentSize));
+        writePosition = 0;
+        usedBytes = 0;
+        deadBytes = 0;
+
+        index.replaceAll((id, address) -> {
+            ByteBuffer segment = oldSegments.get((int) (address >>> 32));
+            int position = positionOf(address);
+            return copy(segment, position, HEADER_SIZE + usedCapacity(segment, position));
+        });
+    }
+
+    private long copy(ByteBuffer source, int position, int length) {
+        if (writePosition + length > segmentSize) {
+            startNewSegment();
+        }
+
+        ByteBuffer record = source.duplicate();
+        record.position(position).limit(position + length);
+
+        ByteBuffer target = segments.get(segments.size() - 1).duplicate();
+        target.position(writePosition);
+        target.put(record);
+        target.putInt(writePosition + CAPACITY_OFFSET, length - HEADER_SIZE);
+
+        long address = addressOf(segments.size() - 1, writePosition);
+        writePosition += length;
+        usedBytes += length;
+        return address;
+    }
+
+    private static int usedCapacity(ByteBuffer segment, int position) {
+        return lengthOf(segment.getInt(position + FIRST_NAME_LENGTH_OFFSET))
+                + lengthOf(segment.getInt(position + LAST_NAME_LENGTH_OFFSET));
+    }
+
+    private ByteBuffer segmentOf(long address) {
+        return segments.get((int) (address >>> 32));
+    }
+
+    private static int positionOf(long address) {
+        return (int) address;
+    }
+
+    private static long addressOf(int segmentNumber, int position) {
+        return ((long) segmentNumber << 32) | position;
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String decode(ByteBuffer source, int length) {
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static int lengthOf(int encodedLength) {
+        return Math.max(encodedLength, 0);
+    }
+}
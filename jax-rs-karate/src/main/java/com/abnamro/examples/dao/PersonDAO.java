@@ -6,13 +6,33 @@ import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface PersonDAO<T> extends Serializable {
     List<T> findAll() throws DataAccessException;
     T findById(long id) throws DataAccessException;
     List<T> findWithLastName(String lastName) throws DataAccessException;
 
+    /**
+     * Returns a page of at most limit persons ordered by id, starting after the person with the given id, or at the
+     * first person when afterId is null. Pass the id of the last person of a page to get the next page.
+     */
+    List<T> findAll(Long afterId, int limit) throws DataAccessException;
+
+    /**
+     * Returns a page of the persons with the given last name, see findAll.
+     */
+    List<T> findWithLastName(String lastName, Long afterId, int limit) throws DataAccessException;
+
     T add(T person) throws DataAccessException, PersonAlreadyExistsException;
     void update(T person) throws DataAccessException, PersonDoesNotExistException;
     void delete(Long id);
+
+    /**
+     * Returns all persons ordered by id, like findAll, but without collecting them in a list first when the
+     * implementation supports that. Close the stream when you are done with it.
+     */
+    default Stream<T> streamAll() throws DataAccessException {
+        return findAll().stream();
+    }
 }
@@ -0,0 +1,39 @@
+package com.abnamro.examples.domain.api;
+
+/**
+ * The reason a single person of a bulk import was rejected. The index is the position of the person in the imported
+ * body (starting at 0), the id is only present when the person could be parsed.
+ */
+public class BulkImportError {
+    private long index;
+    private Long id;
+    private String code;
+    private String message;
+
+    public BulkImportError() {
+        // only here for (de)serialization frameworks
+    }
+
+    public BulkImportError(long index, Long id, String code, String message) {
+        this.index = index;
+        this.id = id;
+        this.code = code;
+        this.message = message;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
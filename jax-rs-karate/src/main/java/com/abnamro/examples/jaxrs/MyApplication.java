@@ -1,17 +1,21 @@
 package com.abnamro.examples.jaxrs;
 
 import com.abnamro.examples.aspects.Logger;
+import com.abnamro.examples.dao.CompactPersonDAO;
 import com.abnamro.examples.dao.HardCodedPersonDAO;
+import com.abnamro.examples.dao.OffHeapPersonDAO;
 import com.abnamro.examples.dao.PersonDAO;
 import com.abnamro.examples.domain.api.Person;
 import com.abnamro.examples.jaxrs.exceptionhandling.*;
 import com.abnamro.examples.jaxrs.filters.AddCustomHeaderResponseFilter;
+import com.abnamro.examples.jaxrs.filters.RestrictRequestSizePreMatchingFilter;
 import com.abnamro.examples.jaxrs.filters.RestrictRequestSizeRequestFilter;
 import com.abnamro.examples.jaxrs.filters.StatusFilter;
 import com.abnamro.examples.jaxrs.interceptors.GZIPWriterInterceptor;
 import com.abnamro.examples.jaxrs.interceptors.RemoveBlacklistedLastNameRequestInterceptor;
 import com.abnamro.examples.jaxrs.resources.DefaultPersonResource;
 import com.abnamro.examples.jaxrs.resources.HelloDevConResource;
+import com.abnamro.examples.utils.BatchingLogger;
 import com.abnamro.examples.utils.InMemoryLogger;
 
 import javax.ws.rs.ApplicationPath;
@@ -28,6 +32,18 @@ import java.util.Set;
  */
 @ApplicationPath("/") // todo : figure out how to define path and test with rest-easy
 public class MyApplication extends Application {
+    // one writer thread for the whole application, null unless a log file is configured, closed by a shutdown hook
+    private static final BatchingLogger fileLogger = BatchingLogger.fromSystemProperties();
+
+    private static final String PERSON_STORE_PROPERTY = "persons.dao";
+    private static final String EXPECTED_PERSONS_PROPERTY = "persons.expected";
+    private static final int DEFAULT_EXPECTED_PERSONS = 1024;
+    private static final String SEGMENT_SIZE_PROPERTY = "persons.segment.size";
+    private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    // one person store for the whole application, the alternative stores keep their state per instance
+    private static final PersonDAO<Person> personDAO = createPersonDAO();
+
     @SuppressWarnings("Duplicates")
     @Override
     public Set<Class<?>> getClasses() {
@@ -43,6 +59,7 @@ public class MyApplication extends Application {
 
         classes.add(RemoveBlacklistedLastNameRequestInterceptor.class);
 
+        classes.add(RestrictRequestSizePreMatchingFilter.class);
         classes.add(RestrictRequestSizeRequestFilter.class);
         classes.add(AddCustomHeaderResponseFilter.class);
         classes.add(StatusFilter.class);
@@ -58,11 +75,36 @@ public class MyApplication extends Application {
 
     @Produces
     public PersonDAO<Person> personDAO() {
-        return new HardCodedPersonDAO();
+        return personDAO;
+    }
+
+    /**
+     * Creates the person store set with the system property 'persons.dao': 'hardcoded' (the default) for the
+     * HardCodedPersonDAO, 'compact' for the CompactPersonDAO, sized for the number of persons set with
+     * 'persons.expected' (default 1024), or 'offheap' for the OffHeapPersonDAO, with off-heap segments of the number
+     * of bytes set with 'persons.segment.size' (default 16MB).
+     */
+    private static PersonDAO<Person> createPersonDAO() {
+        String store = System.getProperty(PERSON_STORE_PROPERTY, "hardcoded");
+        switch (store) {
+            case "hardcoded":
+                return new HardCodedPersonDAO();
+            case "compact":
+                return new CompactPersonDAO(Integer.getInteger(EXPECTED_PERSONS_PROPERTY, DEFAULT_EXPECTED_PERSONS));
+            case "offheap":
+                return new OffHeapPersonDAO(Integer.getInteger(SEGMENT_SIZE_PROPERTY, DEFAULT_SEGMENT_SIZE));
+            default:
+                throw new IllegalArgumentException(
+                        "unknown person store '" + store + "', expected hardcoded, compact or offheap");
+        }
     }
 
+    /**
+     * Logs to the file set with the system property 'logger.file' in the background (see the BatchingLogger), or in
+     * memory when no file is set, so the tests can verify what has been logged.
+     */
     @Produces
     public Logger logger() {
-        return new InMemoryLogger();
+        return fileLogger == null ? new InMemoryLogger() : fileLogger;
     }
 }
@@ -0,0 +1,317 @@
+package com.abnamro.examples.jaxrs.blacklist;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+
+/**
+ * Compiled set of blacklisted terms and their replacements, so we can find all of them in a single pass over a text,
+ * whatever the number of terms.
+ *
+ * The terms are compiled into an Aho-Corasick automaton over their UTF-8 bytes: a trie of all terms in which every
+ * state also knows the longest proper suffix of its path that is a prefix of a term (the failure link), and the
+ * longest term ending in it. Feeding the automaton one byte at a time tells us which term ends at that byte, without
+ * ever going back in the input.
+ *
+ * Matching is case-sensitive. When terms overlap the leftmost match wins, and of the matches starting at the same
+ * position the longest. Replacements are not scanned again. A text without terms is returned as is, so the common
+ * case only costs encoding it and the scan.
+ *
+ * A blacklist is immutable, so it can be shared by all requests and replaced as a whole, see the BlacklistDictionary.
+ */
+public final class Blacklist {
+    private static final int ROOT = 0;
+    private static final int NO_TERM = -1;
+
+    private static final Map<String, String> DEFAULT_TERMS = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_TERMS.put("Asshole", "A***e");
+        DEFAULT_TERMS.put("Shitface", "S***e");
+    }
+
+    private final byte[][] labels;
+    private final int[][] targets;
+    private final int[] failures;
+    private final int[] depths;
+    private final int[] longestTerms;
+    private final int[] termLengths;
+    private final byte[][] replacements;
+    private final int[] rootTargets = new int[256];
+
+    private Blacklist(byte[][] labels, int[][] targets, int[] failures, int[] depths, int[] longestTerms,
+                      int[] termLengths, byte[][] replacements) {
+        this.labels = labels;
+        this.targets = targets;
+        this.failures = failures;
+        this.depths = depths;
+        this.longestTerms = longestTerms;
+        this.termLengths = termLengths;
+        this.replacements = replacements;
+
+        // most bytes of a text do not continue a term, so the root resolves them with a lookup instead of a search
+        for (int i = 0; i < labels[ROOT].length; i++) {
+            rootTargets[labels[ROOT][i] & 0xff] = targets[ROOT][i];
+        }
+    }
+
+    /**
+     * Compiles the terms, empty terms are ignored.
+     *
+     * The terms are added to the trie in sorted order, so a term shares its path with the previous one up to where
+     * they differ and every new transition is the last, and greatest, of its state. That way the transitions are kept
+     * sorted without a map per state, which matters for blacklists of tens of thousands of terms.
+     *
+     * @param terms the blacklisted terms mapped onto their replacements
+     */
+    public static Blacklist compile(Map<String, String> terms) {
+        List<byte[]> termBytes = new ArrayList<>();
+        List<byte[]> replacements = new ArrayList<>();
+        for (Map.Entry<String, String> term : terms.entrySet()) {
+            if (term.getKey() != null && !term.getKey().isEmpty()) {
+                String replacement = term.getValue() == null ? "" : term.getValue();
+                termBytes.add(term.getKey().getBytes(StandardCharsets.UTF_8));
+                replacements.add(replacement.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        Integer[] order = new Integer[termBytes.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (left, right) -> Arrays.compare(termBytes.get(left), termBytes.get(right)));
+
+        TrieBuilder trie = new TrieBuilder();
+        int[] termLengths = new int[termBytes.size()];
+        for (int term : order) {
+            byte[] bytes = termBytes.get(term);
+            int state = ROOT;
+            for (byte b : bytes) {
+                state = trie.child(state, b);
+            }
+            trie.terminals[state] = term;
+            termLengths[term] = bytes.length;
+        }
+
+        int size = trie.size;
+        Blacklist result = new Blacklist(Arrays.copyOf(trie.labels, size), Arrays.copyOf(trie.targets, size),
+                new int[size], Arrays.copyOf(trie.depths, size), new int[size], termLengths,
+                replacements.toArray(new byte[0][]));
+        result.link(trie.terminals);
+        return result;
+    }
+
+    /**
+     * Compiles the few hard coded terms we start with when no blacklist is configured.
+     */
+    public static Blacklist defaults() {
+        return compile(DEFAULT_TERMS);
+    }
+
+    /**
+     * Compiles the terms in the properties file (term=replacement, UTF-8).
+     */
+    public static Blacklist load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        Map<String, String> terms = new LinkedHashMap<>();
+        properties.stringPropertyNames().forEach(term -> terms.put(term, properties.getProperty(term)));
+        return compile(terms);
+    }
+
+    /**
+     * Returns the number of terms.
+     */
+    public int size() {
+        return termLengths.length;
+    }
+
+    /**
+     * Replaces all blacklisted terms in the text.
+     */
+    public String replaceAll(String text) {
+        return replaceAll(text, null);
+    }
+
+    /**
+     * Replaces all blacklisted terms in the text and records the scan in the metrics, when given.
+     */
+    String replaceAll(String text, BlacklistMetrics metrics) {
+        if (text == null) {
+            return null;
+        }
+
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Output output = null;
+        int copied = 0;
+        int matches = 0;
+
+        int state = ROOT;
+        int candidateTerm = NO_TERM;
+        int candidateStart = 0;
+        int candidateEnd = 0;
+        int scanned = 0;
+        while (scanned < bytes.length || candidateTerm != NO_TERM) {
+            if (scanned < bytes.length) {
+                state = next(state, bytes[scanned++]);
+
+                int term = longestTerms[state];
+                if (term != NO_TERM) {
+                    int matchStart = scanned - termLengths[term];
+                    if (candidateTerm == NO_TERM || matchStart < candidateStart
+                            || (matchStart == candidateStart && scanned > candidateEnd)) {
+                        candidateTerm = term;
+                        candidateStart = matchStart;
+                        candidateEnd = scanned;
+                    }
+                }
+
+                // keep the candidate while a term starting before it can still be found along the current path
+                if (candidateTerm == NO_TERM || candidateStart >= scanned - depths[state]) {
+                    continue;
+                }
+            }
+
+            // replace the candidate, and scan the bytes after it again, since terms starting in them may have been
+            // passed over while the candidate was pending
+            if (output == null) {
+                output = new Output(bytes.length);
+            }
+            output.append(bytes, copied, candidateStart);
+            output.append(replacements[candidateTerm], 0, replacements[candidateTerm].length);
+            matches++;
+
+            copied = candidateEnd;
+            scanned = candidateEnd;
+            state = ROOT;
+            candidateTerm = NO_TERM;
+        }
+
+        if (metrics != null) {
+            metrics.recordScan(bytes.length, matches);
+        }
+        if (output == null) {
+            return text;
+        }
+        output.append(bytes, copied, bytes.length);
+        return new String(output.bytes, 0, output.length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes the failure links and the longest term ending in every state, breadth first so the links of the
+     * shallower states are known.
+     */
+    private void link(int[] terminals) {
+        Queue<Integer> queue = new ArrayDeque<>();
+        failures[ROOT] = ROOT;
+        longestTerms[ROOT] = NO_TERM;
+        queue.add(ROOT);
+
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            for (int i = 0; i < labels[state].length; i++) {
+                byte label = labels[state][i];
+                int child = targets[state][i];
+
+                failures[child] = state == ROOT ? ROOT : next(failures[state], label);
+                int terminal = terminals[child];
+                longestTerms[child] = terminal != NO_TERM ? terminal : longestTerms[failures[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    private int next(int state, byte b) {
+        while (state != ROOT) {
+            int index = Arrays.binarySearch(labels[state], b);
+            if (index >= 0) {
+                return targets[state][index];
+            }
+            state = failures[state];
+        }
+        return rootTargets[b & 0xff];
+    }
+
+    /**
+     * Trie of the terms under construction, with room to grow. Terms must be added in sorted order.
+     */
+    private static final class TrieBuilder {
+        private static final byte[] NO_LABELS = new byte[0];
+        private static final int[] NO_TARGETS = new int[0];
+
+        private byte[][] labels = new byte[64][];
+        private int[][] targets = new int[64][];
+        private int[] depths = new int[64];
+        private int[] terminals = new int[64];
+        private int size;
+
+        private TrieBuilder() {
+            add(0);
+        }
+
+        /**
+         * Returns the state reached from the state with the byte, adding it when the byte is not its last transition.
+         */
+        private int child(int state, byte b) {
+            int count = labels[state].length;
+            if (count > 0 && labels[state][count - 1] == b) {
+                return targets[state][count - 1];
+            }
+
+            int child = add(depths[state] + 1);
+            labels[state] = Arrays.copyOf(labels[state], count + 1);
+            targets[state] = Arrays.copyOf(targets[state], count + 1);
+            labels[state][count] = b;
+            targets[state][count] = child;
+            return child;
+        }
+
+        private int add(int depth) {
+            if (size == depths.length) {
+                int capacity = size * 2;
+                labels = Arrays.copyOf(labels, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+                terminals = Arrays.copyOf(terminals, capacity);
+            }
+
+            labels[size] = NO_LABELS;
+            targets[size] = NO_TARGETS;
+            depths[size] = depth;
+            terminals[size] = NO_TERM;
+            return size++;
+        }
+    }
+
+    /**
+     * The replaced text under construction, only created once a term is found.
+     */
+    private static final class Output {
+        private byte[] bytes;
+        private int length;
+
+        private Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        private void append(byte[] source, int from, int to) {
+            int count = to - from;
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + count));
+            }
+            System.arraycopy(source, from, bytes, length, count);
+            length += count;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Drop-in replacement for the DeflaterOutputStream that compresses with a Deflater and output buffer borrowed from a
+ * DeflaterPool, instead of creating a new Deflater (and its native memory) and buffer for every stream. With a pool
+ * of wrapping Deflaters it writes the zlib format, the 'deflate' content-coding of HTTP.
+ *
+ * Like the DeflaterOutputStream, close writes the remaining compressed data and closes the underlying stream. The
+ * Deflater is returned to the pool when the stream is finished or closed, even when that fails.
+ */
+public class PooledDeflaterOutputStream extends FilterOutputStream {
+    private final DeflaterPool pool;
+    private final byte[] single = new byte[1];
+    private DeflaterPool.PooledDeflater pooled;
+
+    public PooledDeflaterOutputStream(OutputStream out, DeflaterPool pool) {
+        super(out);
+        this.pool = pool;
+        this.pooled = pool.borrow();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (pooled == null) {
+            throw new IOException("write beyond end of stream");
+        }
+        if (len == 0) {
+            return;
+        }
+
+        beforeDeflate(b, off, len);
+
+        Deflater deflater = pooled.getDeflater();
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate(deflater);
+        }
+    }
+
+    /**
+     * Flushes what has been compressed so far, a pending partial block is kept until there is more input or the
+     * stream is finished, so flushing does not hurt the compression ratio.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes the remaining compressed data and the trailer without closing the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (pooled == null) {
+            return;
+        }
+
+        try {
+            Deflater deflater = pooled.getDeflater();
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(deflater);
+            }
+
+            writeTrailer(deflater);
+        } finally {
+            releaseDeflater();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Called with every chunk of uncompressed data before it is compressed, as example to calculate a checksum.
+     */
+    protected void beforeDeflate(byte[] b, int off, int len) {
+        // nothing to do for the zlib format, the Deflater adds the checksum
+    }
+
+    /**
+     * Called when all data has been compressed and written, to write what the format expects after it.
+     */
+    protected void writeTrailer(Deflater deflater) throws IOException {
+        // nothing to do for the zlib format, the Deflater writes the trailer
+    }
+
+    protected final void releaseDeflater() {
+        if (pooled != null) {
+            pool.release(pooled);
+            pooled = null;
+        }
+    }
+
+    private void deflate(Deflater deflater) throws IOException {
+        byte[] buffer = pooled.getBuffer();
+        int length = deflater.deflate(buffer, 0, buffer.length);
+        if (length > 0) {
+            out.write(buffer, 0, length);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.abnamro.examples.jaxrs.filters;
+
+import com.abnamro.examples.domain.api.ErrorResponse;
+import com.abnamro.examples.jaxrs.annotations.MaxRequestSize;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Counts the bytes read from a request body and fails with a 413 (payload too large) as soon as the body turns out
+ * to be larger than the limit. We need this for bodies without a Content-Length, as example when they are sent with
+ * chunked transfer encoding, the filters can only check the length of a body up front when it is known.
+ *
+ * The limit can be changed after the stream has been created, the pre-matching filter wraps the body before we know
+ * which resource method is going to read it and the limit of that method is applied after matching.
+ */
+public class SizeLimitedInputStream extends FilterInputStream {
+    private static final String MESSAGE_TEMPLATE = "the request body is larger than the allowed %d bytes";
+
+    private long limit;
+    private long count;
+    private boolean exceeded;
+
+    public SizeLimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+    }
+
+    /**
+     * Lowers the limit to the given limit, a higher limit (or UNLIMITED) leaves the current limit as it is.
+     */
+    public void restrictTo(long newLimit) {
+        if (newLimit != MaxRequestSize.UNLIMITED && (limit == MaxRequestSize.UNLIMITED || newLimit < limit)) {
+            limit = newLimit;
+        }
+    }
+
+    /**
+     * Replaces the limit with the given limit, also when it is higher (or UNLIMITED). Only meant for a resource method
+     * that explicitly allows larger bodies, before the body is read.
+     */
+    public void liftTo(long newLimit) {
+        limit = newLimit;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns true if reading has been aborted because the body is too large.
+     */
+    public boolean isExceeded() {
+        return exceeded;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int result = super.read();
+        if (result >= 0) {
+            count(1);
+        }
+        return result;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int result = super.read(b, off, len);
+        if (result > 0) {
+            count(result);
+        }
+        return result;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long result = super.skip(n);
+        count(result);
+        return result;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Returns the exception to abort a request with a body larger than the limit, it holds the response so no
+     * exception mapper turns it into another status.
+     */
+    static WebApplicationException tooLarge(long limit) {
+        return new WebApplicationException(tooLargeResponse(limit));
+    }
+
+    static Response tooLargeResponse(long limit) {
+        Response.Status status = Response.Status.REQUEST_ENTITY_TOO_LARGE;
+        return Response.status(status)
+                .entity(new ErrorResponse(status.name(), String.format(MESSAGE_TEMPLATE, limit)))
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .build();
+    }
+
+    private void count(long bytes) {
+        count += bytes;
+        if (limit != MaxRequestSize.UNLIMITED && count > limit) {
+            exceeded = true;
+            throw tooLarge(limit);
+        }
+    }
+}
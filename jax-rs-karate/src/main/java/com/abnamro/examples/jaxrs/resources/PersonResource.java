@@ -3,8 +3,11 @@ package com.abnamro.examples.jaxrs.resources;
 import com.abnamro.examples.dao.exceptions.DataAccessException;
 import com.abnamro.examples.dao.exceptions.PersonAlreadyExistsException;
 import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
+import com.abnamro.examples.domain.api.BulkImportResult;
 import com.abnamro.examples.domain.api.Person;
 import com.abnamro.examples.domain.api.SafeList;
+import com.abnamro.examples.domain.api.StreamingSafeList;
+import com.abnamro.examples.jaxrs.annotations.MaxRequestSize;
 import com.abnamro.examples.jaxrs.annotations.Status;
 import com.abnamro.examples.jaxrs.bindings.BlackListLastNames;
 
@@ -13,6 +16,11 @@ import javax.validation.ValidationException;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.abnamro.examples.jaxrs.streaming.BulkPersonImport.APPLICATION_NDJSON;
 
 /**
  * Interface describing a PersonResource. We can have multiple implementations that now won't have the JAX-RS annotation
@@ -43,12 +51,15 @@ public interface PersonResource<T extends Person> {
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     @Path("/lastName/{lastName}")
-    SafeList<T> findPersonsByLastName(@PathParam("lastName") String lastName) throws DataAccessException;
+    SafeList<T> findPersonsByLastName(@PathParam("lastName") String lastName,
+                                      @QueryParam("cursor") String cursor,
+                                      @QueryParam("limit") Integer limit) throws DataAccessException;
 
     @GET
     @Produces(MediaType.APPLICATION_JSON)
     //@CompressData
-    SafeList<T> findAllPersons() throws DataAccessException;
+    StreamingSafeList<T> findAllPersons(@QueryParam("cursor") String cursor,
+                                        @QueryParam("limit") Integer limit) throws DataAccessException;
 
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
@@ -67,6 +78,18 @@ public interface PersonResource<T extends Person> {
     @Path("/{personId}")
     void delete(@PathParam("personId") long personId) throws DataAccessException;
 
+    @POST
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    @Path("/bulk")
+    @MaxRequestSize(MaxRequestSize.UNLIMITED)
+    BulkImportResult importPersons(InputStream persons) throws IOException, DataAccessException;
+
+    @GET
+    @Produces(APPLICATION_NDJSON)
+    @Path("/export")
+    StreamingOutput exportPersons() throws DataAccessException;
+
     /**
      * Implements failure scenarios for testing purposes that is the same for all person-resources.
      */
@@ -0,0 +1,200 @@
+package com.abnamro.examples.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.abnamro.examples.dao.LongLongHashMap.NO_VALUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongHashMapTest {
+    // a map for 8 entries has a table of 16 slots
+    private static final int EXPECTED_SIZE = 8;
+    private static final int TABLE_SIZE = 16;
+
+    @Test
+    void shouldStoreAndReplaceValues() {
+        LongLongHashMap map = new LongLongHashMap();
+
+        assertEquals(NO_VALUE, map.put(1L, 10L));
+        assertEquals(10L, map.put(1L, 11L));
+        assertEquals(NO_VALUE, map.put(2L, 20L));
+
+        assertEquals(11L, map.get(1L));
+        assertEquals(20L, map.get(2L));
+        assertEquals(NO_VALUE, map.get(3L));
+        assertTrue(map.containsKey(2L));
+        assertFalse(map.containsKey(3L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void shouldStoreZeroAsAValue() {
+        // zero is the offset of the very first record, it must not be mistaken for an empty slot
+        LongLongHashMap map = new LongLongHashMap();
+
+        assertEquals(NO_VALUE, map.put(1L, 0L));
+
+        assertEquals(0L, map.get(1L));
+        assertTrue(map.containsKey(1L));
+        assertEquals(1, map.size());
+        assertEquals(0L, map.remove(1L));
+        assertEquals(NO_VALUE, map.get(1L));
+    }
+
+    @Test
+    void shouldRejectNegativeValues() {
+        LongLongHashMap map = new LongLongHashMap();
+        map.put(1L, 10L);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(2L, NO_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, -42L));
+        assertThrows(IllegalArgumentException.class, () -> map.replaceAll((key, value) -> -1L));
+
+        assertEquals(1, map.size());
+        assertFalse(map.containsKey(2L));
+    }
+
+    @Test
+    void shouldSupportAnyKeyIncludingZeroAndNegativeKeys() {
+        LongLongHashMap map = new LongLongHashMap();
+
+        map.put(0L, 1L);
+        map.put(-1L, 2L);
+        map.put(Long.MIN_VALUE, 3L);
+        map.put(Long.MAX_VALUE, 4L);
+
+        assertEquals(1L, map.get(0L));
+        assertEquals(2L, map.get(-1L));
+        assertEquals(3L, map.get(Long.MIN_VALUE));
+        assertEquals(4L, map.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    void shouldReplaceAllValues() {
+        LongLongHashMap map = new LongLongHashMap();
+        for (long key = 1; key <= 100; key++) {
+            map.put(key, key * 10);
+        }
+
+        map.replaceAll((key, value) -> value + key);
+
+        assertEquals(100, map.size());
+        for (long key = 1; key <= 100; key++) {
+            assertEquals(key * 11, map.get(key));
+        }
+    }
+
+    @Test
+    void shouldShiftTheProbeChainBackOnRemove() {
+        LongLongHashMap map = new LongLongHashMap(EXPECTED_SIZE);
+        List<Long> keys = collidingKeys(4);
+        // a key with its home slot right after that of the colliding keys, so it is displaced by them
+        long neighbour = keyWithSlot((slot(keys.get(0)) + 1) % TABLE_SIZE);
+        keys.forEach(key -> map.put(key, key * 10));
+        map.put(neighbour, 0L);
+
+        // remove from the start, the middle and the end of the chain
+        assertEquals(keys.get(0) * 10, map.remove(keys.get(0)));
+        assertEquals(keys.get(2) * 10, map.remove(keys.get(2)));
+        assertEquals(NO_VALUE, map.remove(keys.get(2)));
+
+        assertEquals(NO_VALUE, map.get(keys.get(0)));
+        assertEquals(NO_VALUE, map.get(keys.get(2)));
+        assertEquals(keys.get(1) * 10, map.get(keys.get(1)));
+        assertEquals(keys.get(3) * 10, map.get(keys.get(3)));
+        assertEquals(0L, map.get(neighbour));
+        assertEquals(3, map.size());
+
+        assertEquals(keys.get(3) * 10, map.remove(keys.get(3)));
+        assertEquals(0L, map.get(neighbour));
+        assertEquals(keys.get(1) * 10, map.get(keys.get(1)));
+    }
+
+    @Test
+    void shouldGrowBeyondTheExpectedSize() {
+        LongLongHashMap map = new LongLongHashMap(1);
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key * 31, key);
+        }
+
+        assertEquals(10_000, map.size());
+        for (long key = 0; key < 10_000; key++) {
+            assertEquals(key, map.get(key * 31));
+        }
+    }
+
+    @Test
+    void shouldForgetAllEntriesOnClear() {
+        LongLongHashMap map = new LongLongHashMap();
+        map.put(1L, 10L);
+        map.put(2L, 20L);
+
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(NO_VALUE, map.get(1L));
+        assertEquals(NO_VALUE, map.put(1L, 10L));
+    }
+
+    /**
+     * Runs random operations on a small key range, so there are lots of collisions, removals from the middle of a
+     * probe chain and resizes, and compares the outcome with a HashMap.
+     */
+    @Test
+    void shouldBehaveLikeAHashMap() {
+        Random random = new Random(42);
+        LongLongHashMap map = new LongLongHashMap(1);
+        Map<Long, Long> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(256);
+            // include zero, the smallest valid value
+            long value = random.nextInt(1_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.getOrDefault(key, NO_VALUE).longValue(), map.remove(key));
+                expected.remove(key);
+            } else {
+                assertEquals(expected.getOrDefault(key, NO_VALUE).longValue(), map.put(key, value));
+                expected.put(key, value);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (long key = 0; key < 256; key++) {
+            assertEquals(expected.getOrDefault(key, NO_VALUE).longValue(), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+    }
+
+    private static List<Long> collidingKeys(int count) {
+        List<Long> keys = new ArrayList<>();
+        int home = slot(1L);
+        for (long key = 1; keys.size() < count; key++) {
+            if (slot(key) == home) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static long keyWithSlot(int slot) {
+        long key = 1;
+        while (slot(key) != slot) {
+            key++;
+        }
+        return key;
+    }
+
+    /**
+     * The home slot of a key in a table of 16 slots, the same spread as the map uses.
+     */
+    private static int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (TABLE_SIZE - 1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeflaterPoolTest {
+    @Test
+    void shouldHandOutAReturnedDeflaterAgain() {
+        DeflaterPool pool = new DeflaterPool(6, true, 1);
+        DeflaterPool.PooledDeflater deflater = pool.borrow();
+
+        pool.release(deflater);
+
+        assertSame(deflater, pool.borrow());
+    }
+
+    @Test
+    void shouldCreateADeflaterWhenNoneIsIdle() {
+        DeflaterPool pool = new DeflaterPool(6, true, 1);
+
+        assertNotSame(pool.borrow(), pool.borrow());
+    }
+
+    @Test
+    void shouldResetADeflaterThatIsReturnedHalfWay() {
+        DeflaterPool pool = new DeflaterPool(6, true, 1);
+        DeflaterPool.PooledDeflater deflater = pool.borrow();
+        deflater.getDeflater().setInput(new byte[1000]);
+        deflater.getDeflater().deflate(deflater.getBuffer());
+        assertEquals(1000, deflater.getDeflater().getBytesRead());
+
+        pool.release(deflater);
+
+        assertEquals(0, pool.borrow().getDeflater().getBytesRead());
+    }
+
+    @Test
+    void shouldEndTheDeflatersItCannotKeep() {
+        DeflaterPool pool = new DeflaterPool(6, true, 1);
+        DeflaterPool.PooledDeflater kept = pool.borrow();
+        DeflaterPool.PooledDeflater ended = pool.borrow();
+
+        pool.release(kept);
+        pool.release(ended);
+
+        assertEquals(0, kept.getDeflater().getBytesRead());
+        // an ended Deflater has released its native memory and cannot be used anymore
+        assertThrows(NullPointerException.class, () -> ended.getDeflater().getBytesRead());
+    }
+
+    @Test
+    void shouldRejectACompressionLevelOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new DeflaterPool(Deflater.NO_COMPRESSION - 1, true, 1));
+        assertThrows(IllegalArgumentException.class, () -> new DeflaterPool(Deflater.BEST_COMPRESSION + 1, true, 1));
+        assertEquals(Deflater.BEST_SPEED, new DeflaterPool(Deflater.BEST_SPEED, true, 1).getLevel());
+    }
+}
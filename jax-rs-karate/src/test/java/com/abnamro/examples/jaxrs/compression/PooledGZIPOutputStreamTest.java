@@ -0,0 +1,143 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledGZIPOutputStreamTest {
+    private static final byte[] BODY = body(100_000);
+
+    @Test
+    void shouldWriteWhatTheGZIPInputStreamReads() throws IOException {
+        DeflaterPool pool = new DeflaterPool(6, true, 1);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (OutputStream out = new PooledGZIPOutputStream(compressed, pool)) {
+            out.write(BODY[0]);
+            out.write(BODY, 1, 9_999);
+            out.write(BODY, 10_000, BODY.length - 10_000);
+        }
+
+        assertArrayEquals(BODY, gunzip(compressed.toByteArray()));
+    }
+
+    @Test
+    void shouldWriteTheSameDataAsTheGZIPOutputStream() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(expected)) {
+            out.write(BODY);
+        }
+        ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try (OutputStream out = new PooledGZIPOutputStream(actual, new DeflaterPool(6, true, 1))) {
+            out.write(BODY);
+        }
+
+        // the header only differs in the operating system byte
+        byte[] expectedBytes = expected.toByteArray();
+        byte[] actualBytes = actual.toByteArray();
+        assertArrayEquals(Arrays.copyOfRange(expectedBytes, 10, expectedBytes.length),
+                Arrays.copyOfRange(actualBytes, 10, actualBytes.length));
+    }
+
+    @Test
+    void shouldWriteAnEmptyBody() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        new PooledGZIPOutputStream(compressed, new DeflaterPool(6, true, 1)).close();
+
+        assertEquals(0, gunzip(compressed.toByteArray()).length);
+    }
+
+    @Test
+    void shouldReuseTheDeflaterAfterAFailedWrite() throws IOException {
+        DeflaterPool pool = new DeflaterPool(6, true, 1);
+        DeflaterPool.PooledDeflater deflater = pool.borrow();
+        pool.release(deflater);
+
+        // random bytes hardly compress, so the Deflater writes while they are written
+        byte[] random = new byte[100_000];
+        new Random(42).nextBytes(random);
+        OutputStream failing = new PooledGZIPOutputStream(new FailingOutputStream(100), pool);
+        assertThrows(IOException.class, () -> failing.write(random));
+        assertThrows(IOException.class, failing::close);
+
+        // the failed stream returned the Deflater, reset and ready for the next response
+        assertSame(deflater, pool.borrow());
+        assertEquals(0, deflater.getDeflater().getBytesRead());
+        pool.release(deflater);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = new PooledGZIPOutputStream(compressed, pool)) {
+            out.write(BODY);
+        }
+        assertArrayEquals(BODY, gunzip(compressed.toByteArray()));
+    }
+
+    @Test
+    void shouldReturnTheDeflaterWhenTheHeaderCannotBeWritten() {
+        DeflaterPool pool = new DeflaterPool(6, true, 1);
+        DeflaterPool.PooledDeflater deflater = pool.borrow();
+        pool.release(deflater);
+
+        assertThrows(IOException.class, () -> new PooledGZIPOutputStream(new FailingOutputStream(0), pool));
+
+        assertSame(deflater, pool.borrow());
+    }
+
+    @Test
+    void shouldRejectAWriteAfterClose() throws IOException {
+        OutputStream out = new PooledGZIPOutputStream(new ByteArrayOutputStream(), new DeflaterPool(6, true, 1));
+        out.close();
+
+        assertThrows(IOException.class, () -> out.write(BODY));
+    }
+
+    static byte[] body(int size) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; body.length() < size; i++) {
+            body.append("{\"id\":").append(i).append(",\"firstName\":\"Jan\",\"lastName\":\"Janssen\"},");
+        }
+        return body.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Fails every write once the given number of bytes has been written, like a connection the client closed.
+     */
+    static class FailingOutputStream extends OutputStream {
+        private int remaining;
+
+        FailingOutputStream(int remaining) {
+            this.remaining = remaining;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > remaining) {
+                throw new IOException("connection reset");
+            }
+            remaining -= len;
+        }
+    }
+}
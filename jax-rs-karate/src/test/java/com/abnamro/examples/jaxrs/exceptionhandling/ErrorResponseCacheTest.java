@@ -0,0 +1,122 @@
+package com.abnamro.examples.jaxrs.exceptionhandling;
+
+import com.abnamro.examples.dao.exceptions.PersonAlreadyExistsException;
+import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
+import com.abnamro.examples.domain.api.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ValidationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The cached bodies must be the same json the json provider writes for an ErrorResponse entity, which is what the
+ * exception mappers return for the errors that are not cached.
+ */
+class ErrorResponseCacheTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void shouldReturnTheSameBodyAsAnUncachedErrorResponse() throws IOException {
+        ErrorResponseCache cache = new ErrorResponseCache(Response.Status.NOT_FOUND);
+
+        Response first = cache.toResponse("person does not exist");
+        Response second = cache.toResponse("person does not exist");
+
+        assertResponse(Response.Status.NOT_FOUND, "person does not exist", first);
+        assertResponse(Response.Status.NOT_FOUND, "person does not exist", second);
+        assertSame(first.getEntity(), second.getEntity());
+    }
+
+    @Test
+    void shouldEscapeTheMessageLikeAnUncachedErrorResponse() throws IOException {
+        ErrorResponseCache cache = new ErrorResponseCache(Response.Status.BAD_REQUEST);
+        String message = "lastName \"O'Brien\" is not allowed \\ in\n é";
+
+        assertResponse(Response.Status.BAD_REQUEST, message, cache.toResponse(message));
+        assertResponse(Response.Status.BAD_REQUEST, message, cache.toResponse(message));
+    }
+
+    @Test
+    void shouldNotCacheAMissingMessage() throws IOException {
+        ErrorResponseCache cache = new ErrorResponseCache(Response.Status.INTERNAL_SERVER_ERROR);
+
+        Response first = cache.toResponse(null);
+        Response second = cache.toResponse(null);
+
+        assertResponse(Response.Status.INTERNAL_SERVER_ERROR, null, first);
+        assertResponse(Response.Status.INTERNAL_SERVER_ERROR, null, second);
+        assertNotSame(first.getEntity(), second.getEntity());
+    }
+
+    @Test
+    void shouldOnlyCacheTheFirstMessage() throws IOException {
+        ErrorResponseCache cache = new ErrorResponseCache(Response.Status.BAD_REQUEST);
+        cache.toResponse("person already exists");
+
+        Response first = cache.toResponse("another message");
+        Response second = cache.toResponse("another message");
+
+        assertResponse(Response.Status.BAD_REQUEST, "another message", first);
+        assertNotSame(first.getEntity(), second.getEntity());
+        assertSame(cache.toResponse("person already exists").getEntity(),
+                cache.toResponse("person already exists").getEntity());
+    }
+
+    @Test
+    void shouldNotCacheTheResponseToAnExceptionWithACause() throws IOException {
+        PersonDoesNotExistExceptionHandler handler = new PersonDoesNotExistExceptionHandler();
+        PersonDoesNotExistException exception =
+                new PersonDoesNotExistException("person does not exist", new IOException("disk failure"));
+
+        Response first = handler.toResponse(exception);
+        Response second = handler.toResponse(exception);
+
+        assertResponse(Response.Status.NOT_FOUND, "person does not exist disk failure", first);
+        assertNotSame(first.getEntity(), second.getEntity());
+    }
+
+    @Test
+    void shouldMapTheExceptionsOntoTheirErrorResponses() throws IOException {
+        assertResponse(Response.Status.NOT_FOUND, "person does not exist",
+                new PersonDoesNotExistExceptionHandler().toResponse(
+                        new PersonDoesNotExistException("person does not exist")));
+        assertResponse(Response.Status.BAD_REQUEST, "person already exists",
+                new PersonAlreadyExistsExceptionHandler().toResponse(
+                        new PersonAlreadyExistsException("person already exists")));
+    }
+
+    @Test
+    void shouldNotCacheTheErrorResponsesWithArbitraryMessages() {
+        assertErrorResponse(Response.Status.BAD_REQUEST, "invalid person",
+                new ValidationExceptionHandler().toResponse(new ValidationException("invalid person")));
+        assertErrorResponse(Response.Status.INTERNAL_SERVER_ERROR, "oops root cause",
+                new DefaultExceptionHandler().toResponse(
+                        new IllegalStateException("oops", new RuntimeException(new IOException("root cause")))));
+    }
+
+    private static void assertResponse(Response.Status status, String message, Response response) throws IOException {
+        assertEquals(status.getStatusCode(), response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+
+        byte[] body = (byte[]) response.getEntity();
+        assertArrayEquals(MAPPER.writeValueAsBytes(new ErrorResponse(status.name(), message)), body);
+
+        ErrorResponse parsed = MAPPER.readValue(body, ErrorResponse.class);
+        assertEquals(status.name(), parsed.getCode());
+        assertEquals(message, parsed.getMessage());
+    }
+
+    private static void assertErrorResponse(Response.Status status, String message, Response response) {
+        assertEquals(status.getStatusCode(), response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getMediaType());
+
+        ErrorResponse entity = (ErrorResponse) response.getEntity();
+        assertEquals(status.name(), entity.getCode());
+        assertEquals(message, entity.getMessage());
+    }
+}
@@ -0,0 +1,140 @@
+package com.abnamro.examples.jaxrs.filters;
+
+import com.abnamro.examples.jaxrs.annotations.Status;
+import org.junit.jupiter.api.Test;
+
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.Response;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusFilterTest {
+    interface Resource {
+        @Status(Response.Status.CREATED)
+        void create();
+
+        @Status(Response.Status.NO_CONTENT)
+        void delete();
+
+        @Status(Response.Status.OK)
+        void find();
+
+        void update();
+
+        void accept();
+    }
+
+    static class ResourceImpl implements Resource {
+        @Override
+        public void create() {
+        }
+
+        @Override
+        public void delete() {
+        }
+
+        @Override
+        public void find() {
+        }
+
+        @Override
+        public void update() {
+        }
+
+        @Override
+        @Status(Response.Status.ACCEPTED)
+        public void accept() {
+        }
+    }
+
+    @Test
+    void shouldResolveTheStatusOfEachAnnotatedMethod() {
+        assertEquals(201, boundStatusCode("create"));
+        assertEquals(204, boundStatusCode("delete"));
+    }
+
+    @Test
+    void shouldResolveTheStatusOnTheImplementation() {
+        assertEquals(202, boundStatusCode("accept"));
+    }
+
+    @Test
+    void shouldNotBindAFilterToMethodsThatReturnTheDefaultStatus() {
+        assertTrue(configure("find").isEmpty());
+        assertTrue(configure("update").isEmpty());
+    }
+
+    @Test
+    void shouldOnlyReplaceTheDefaultStatus() {
+        StatusFilter.FixedStatusFilter filter = new StatusFilter.FixedStatusFilter(201);
+
+        assertEquals(201, filter(filter, 200));
+        assertEquals(400, filter(filter, 400));
+        assertEquals(500, filter(filter, 500));
+    }
+
+    private static int boundStatusCode(String methodName) {
+        List<Object> registered = configure(methodName);
+
+        assertEquals(1, registered.size());
+        return filter((StatusFilter.FixedStatusFilter) registered.get(0), 200);
+    }
+
+    private static List<Object> configure(String methodName) {
+        Method method;
+        try {
+            method = ResourceImpl.class.getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+
+        ResourceInfo resourceInfo = proxy(ResourceInfo.class, (name, args) -> {
+            if ("getResourceClass".equals(name)) {
+                return ResourceImpl.class;
+            }
+            return "getResourceMethod".equals(name) ? method : null;
+        });
+
+        List<Object> registered = new ArrayList<>();
+        FeatureContext context = proxy(FeatureContext.class, (name, args) -> {
+            if ("register".equals(name)) {
+                registered.add(args[0]);
+            }
+            return null;
+        });
+
+        new StatusFilter().configure(resourceInfo, context);
+        return registered;
+    }
+
+    private static int filter(StatusFilter.FixedStatusFilter filter, int statusCode) {
+        int[] status = {statusCode};
+        ContainerResponseContext response = proxy(ContainerResponseContext.class, (name, args) -> {
+            if ("setStatus".equals(name)) {
+                status[0] = (int) args[0];
+            }
+            return "getStatus".equals(name) ? status[0] : null;
+        });
+
+        filter.filter(null, response);
+        return status[0];
+    }
+
+    interface Invocation {
+        Object invoke(String methodName, Object[] args);
+    }
+
+    /**
+     * Implements the few methods of a JAX-RS interface the status filter uses, without a mocking library.
+     */
+    private static <T> T proxy(Class<T> type, Invocation invocation) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> invocation.invoke(method.getName(), args)));
+    }
+}
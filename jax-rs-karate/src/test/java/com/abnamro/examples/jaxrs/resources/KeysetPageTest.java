@@ -0,0 +1,103 @@
+package com.abnamro.examples.jaxrs.resources;
+
+import com.abnamro.examples.domain.api.Person;
+import com.abnamro.examples.domain.api.SafeList;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ValidationException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetPageTest {
+    @Test
+    void shouldStartAtTheFirstPersonWithTheDefaultLimit() {
+        KeysetPage page = KeysetPage.of(null, null);
+
+        assertNull(page.afterId());
+        assertEquals(KeysetPage.DEFAULT_LIMIT + 1, page.fetchSize());
+    }
+
+    @Test
+    void shouldOnlyPageWhenAPagingParameterIsPassed() {
+        assertFalse(KeysetPage.isRequested(null, null));
+        assertTrue(KeysetPage.isRequested("AAAAAAAAAAE", null));
+        assertTrue(KeysetPage.isRequested(null, 10));
+    }
+
+    @Test
+    void shouldRejectALimitOutOfRange() {
+        assertThrows(ValidationException.class, () -> KeysetPage.of(null, 0));
+        assertThrows(ValidationException.class, () -> KeysetPage.of(null, KeysetPage.MAX_LIMIT + 1));
+        assertEquals(KeysetPage.MAX_LIMIT + 1, KeysetPage.of(null, KeysetPage.MAX_LIMIT).fetchSize());
+    }
+
+    @Test
+    void shouldRejectACursorThatWasNotHandedOut() {
+        // not base64, too short and too long
+        for (String cursor : Arrays.asList("not a cursor!", "AAAA", "AAAAAAAAAAAA")) {
+            ValidationException e = assertThrows(ValidationException.class, () -> KeysetPage.of(cursor, null));
+            assertEquals("invalid cursor", e.getMessage());
+        }
+    }
+
+    @Test
+    void shouldHandOutACursorThatStartsTheNextPageAfterTheLastPerson() {
+        KeysetPage page = KeysetPage.of(null, 2);
+
+        SafeList<Person> persons = page.toSafeList(persons(1L, 2L, 3L));
+
+        assertEquals(Arrays.asList(1L, 2L), ids(persons));
+        assertNotNull(persons.getNext());
+        assertEquals(Long.valueOf(2L), KeysetPage.of(persons.getNext(), 2).afterId());
+    }
+
+    @Test
+    void shouldHandOutAUrlSafeCursorForAnyId() {
+        for (long id : new long[] {0, -1, Long.MIN_VALUE, Long.MAX_VALUE, 0xFBFF_FFFF_FFFF_FFFFL}) {
+            String next = KeysetPage.of(null, 1).toSafeList(persons(id, id)).getNext();
+
+            assertTrue(next.matches("[A-Za-z0-9_-]+"), next);
+            assertEquals(Long.valueOf(id), KeysetPage.of(next, 1).afterId());
+        }
+        assertArrayEquals(new byte[] {0, 0, 0, 0, 0, 0, 0, 42},
+                Base64.getUrlDecoder().decode(KeysetPage.of(null, 1).toSafeList(persons(42L, 43L)).getNext()));
+    }
+
+    @Test
+    void shouldNotHandOutACursorOnTheLastPage() {
+        KeysetPage page = KeysetPage.of(null, 3);
+
+        assertNull(page.toSafeList(persons(1L, 2L, 3L)).getNext());
+        assertNull(page.toSafeList(persons()).getNext());
+    }
+
+    @Test
+    void shouldWriteTheSameJsonForAStreamingPage() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        KeysetPage page = KeysetPage.of(null, 2);
+
+        assertEquals(mapper.writeValueAsString(page.toSafeList(persons(1L, 2L, 3L))),
+                mapper.writeValueAsString(page.toStreamingSafeList(persons(1L, 2L, 3L))));
+        assertEquals(mapper.writeValueAsString(page.toSafeList(persons(1L))),
+                mapper.writeValueAsString(page.toStreamingSafeList(persons(1L))));
+    }
+
+    private static List<Person> persons(long... ids) {
+        List<Person> persons = new ArrayList<>();
+        for (long id : ids) {
+            persons.add(new Person(id, "First" + id, "Last" + id));
+        }
+        return persons;
+    }
+
+    private static List<Long> ids(SafeList<Person> persons) {
+        List<Long> ids = new ArrayList<>();
+        persons.getItems().forEach(person -> ids.add(person.getId()));
+        return ids;
+    }
+}
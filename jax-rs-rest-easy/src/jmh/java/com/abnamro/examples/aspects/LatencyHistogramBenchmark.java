@@ -0,0 +1,65 @@
+package com.abnamro.examples.aspects;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures recording a latency in the histogram of the Tracer, by a single thread and by four threads recording in
+ * the same histogram like concurrent requests to one resource method, and taking a snapshot of it. Run with the gc
+ * profiler to see that recording does not allocate:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="LatencyHistogramBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LatencyHistogramBenchmark {
+    private LatencyHistogram histogram;
+
+    @Setup
+    public void setup() {
+        histogram = new LatencyHistogram();
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(latency());
+        }
+    }
+
+    @Benchmark
+    public void record() {
+        histogram.record(latency());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordConcurrently() {
+        histogram.record(latency());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public LatencyHistogram.Snapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+    /**
+     * Returns a latency between 10 us and 10 ms, so the values spread over many buckets.
+     */
+    private static long latency() {
+        return ThreadLocalRandom.current().nextLong(10_000, 10_000_000);
+    }
+}
@@ -0,0 +1,87 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.domain.api.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the person stores that keep their ids in id order, at different sizes: adding and deleting a person with
+ * an id in between the others, the first page of all persons and of the persons with a last name, and a page deep
+ * into them. Neither should depend on the number of persons or the depth of the page:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="PersonStoreBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class PersonStoreBenchmark {
+    private static final int LAST_NAMES = 100;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"compact", "offheap"})
+    private String store;
+
+    @Param({"100000", "1000000"})
+    private int persons;
+
+    private PersonDAO<Person> dao;
+    private long deepId;
+
+    @Setup
+    public void setup() throws Exception {
+        dao = "compact".equals(store) ? new CompactPersonDAO(persons) : new OffHeapPersonDAO(1024 * 1024);
+        // even ids, so the benchmarks can add the odd ones in between
+        for (long id = 10; id < 10 + 2L * persons; id += 2) {
+            dao.add(new Person(id, "First", lastName(id)));
+        }
+        deepId = 2L * persons - 10L * PAGE_SIZE * LAST_NAMES;
+    }
+
+    @Benchmark
+    public Person addAndDelete() throws Exception {
+        long id = 2 * ThreadLocalRandom.current().nextLong(5, 5L + persons) + 1;
+        Person person = dao.add(new Person(id, "First", lastName(id)));
+        dao.delete(id);
+        return person;
+    }
+
+    @Benchmark
+    public List<Person> firstPage() throws Exception {
+        return dao.findAll(null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Person> deepPage() throws Exception {
+        return dao.findAll(deepId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Person> firstPageWithLastName() throws Exception {
+        return dao.findWithLastName(lastName(0), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Person> deepPageWithLastName() throws Exception {
+        return dao.findWithLastName(lastName(0), deepId, PAGE_SIZE);
+    }
+
+    private static String lastName(long id) {
+        return "Last" + (id / 2) % LAST_NAMES;
+    }
+}
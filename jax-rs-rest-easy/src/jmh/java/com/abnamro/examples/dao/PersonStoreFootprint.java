@@ -0,0 +1,75 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.domain.api.Person;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Reports the memory a person store takes per person, on the heap and in direct memory, after loading a number of
+ * persons into it. Everything the store keeps reachable is counted: the index structures, the Person instances and
+ * their names. By default there are ten persons per last name, every person gets a last name instance of its own (as
+ * when it was deserialized from a request) and the first names come from a small set of shared instances.
+ *
+ * This is not a JMH benchmark, the heap is measured after a full collection before and after loading. Run it for one
+ * store (hardcoded, compact or offheap), number of persons and optionally number of persons per last name at a time,
+ * with enough heap for the store:
+ *
+ *   MAVEN_OPTS=-Xmx4g mvn -Pjmh test-compile exec:java -Dexec.mainClass=com.abnamro.examples.dao.PersonStoreFootprint \
+ *       -Dexec.args="compact 10000000 10"
+ */
+public class PersonStoreFootprint {
+    private static final String[] FIRST_NAMES = {"Jan", "Pieter", "Erik", "Katy", "Anna", "Sophie", "Daan", "Emma"};
+
+    public static void main(String[] args) throws Exception {
+        String store = args.length > 0 ? args[0] : "compact";
+        int persons = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int personsPerLastName = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        long heapBefore = usedHeap();
+        long directBefore = usedDirectMemory();
+
+        PersonDAO<Person> dao = create(store, persons);
+        for (Person person : dao.findAll()) {
+            dao.delete(person.getId());
+        }
+        for (int id = 1; id <= persons; id++) {
+            dao.add(new Person(id, FIRST_NAMES[id % FIRST_NAMES.length], "Lastname" + id % (persons / personsPerLastName)));
+        }
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirectMemory() - directBefore;
+        System.out.printf("%s, %,d persons, %d per last name: %.1f bytes per person on the heap, %.1f in direct memory%n",
+                store, persons, personsPerLastName, (double) heap / persons, (double) direct / persons);
+
+        // keeps the store reachable until it has been measured
+        System.out.println(dao.findById(persons) != null ? "" : "missing person");
+    }
+
+    private static PersonDAO<Person> create(String store, int persons) {
+        switch (store) {
+            case "hardcoded":
+                return new HardCodedPersonDAO();
+            case "compact":
+                return new CompactPersonDAO(persons);
+            case "offheap":
+                return new OffHeapPersonDAO(1024 * 1024);
+            default:
+                throw new IllegalArgumentException("unknown person store '" + store + "', expected hardcoded, compact or offheap");
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirectMemory() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,78 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.dao.PersonWriteAheadLog.FsyncPolicy;
+import com.abnamro.examples.domain.api.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the logged writes per second of the write-ahead log per fsync policy, by one writer and by eight writers
+ * that share the fsync of a batch (group commit). The log is written in the temporary directory, so run it with
+ * -Djava.io.tmpdir pointing to the disk you want to measure:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="PersonWriteAheadLogBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonWriteAheadLogBenchmark {
+    @Param({"ALWAYS", "INTERVAL", "NEVER"})
+    private FsyncPolicy policy;
+
+    private Path file;
+    private PersonWriteAheadLog log;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("persons", ".wal");
+        log = new PersonWriteAheadLog(file, policy, 10);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() throws IOException {
+        // keeps the log from filling the disk with the NEVER policy
+        log.truncate();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        log.close();
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public void put() throws IOException {
+        log.put(person());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void putConcurrently() throws IOException {
+        log.put(person());
+    }
+
+    private static Person person() {
+        return new Person(ThreadLocalRandom.current().nextLong(1_000_000), "Katy", "Perry");
+    }
+}
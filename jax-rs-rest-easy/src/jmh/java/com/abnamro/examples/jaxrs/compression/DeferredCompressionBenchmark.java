@@ -0,0 +1,65 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares always compressing a response with compressing it only above the threshold of the GZIPWriterInterceptor,
+ * for a body below (a single person) and above the threshold:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="DeferredCompressionBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeferredCompressionBenchmark {
+    private static final int THRESHOLD = 1024;
+
+    @Param({"60", "65536"})
+    private int size;
+
+    private byte[] body;
+    private DeflaterPool pool;
+
+    @Setup
+    public void setup() {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"id\":").append(i).append(",\"firstName\":\"Jan\",\"lastName\":\"Janssen\"},");
+        }
+        body = json.substring(0, size).getBytes(StandardCharsets.UTF_8);
+        pool = new DeflaterPool(6, true, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public void alwaysCompress() throws IOException {
+        try (OutputStream out = new PooledGZIPOutputStream(OutputStream.nullOutputStream(), pool)) {
+            out.write(body);
+        }
+    }
+
+    @Benchmark
+    public void compressAboveThreshold() throws IOException {
+        try (OutputStream out = new DeferredCompressionOutputStream(OutputStream.nullOutputStream(), THRESHOLD,
+                target -> new PooledGZIPOutputStream(target, pool))) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares a new GZIPOutputStream per response with the PooledGZIPOutputStream, for bodies written in chunks of 8000
+ * bytes like the json providers do. Run it with the gc profiler to see the allocations per response:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="GZIPOutputStreamBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GZIPOutputStreamBenchmark {
+    private static final int CHUNK_SIZE = 8000;
+
+    @Param({"1024", "65536", "1048576"})
+    private int size;
+
+    private byte[] body;
+    private DeflaterPool pool;
+
+    @Setup
+    public void setup() {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"id\":").append(i).append(",\"firstName\":\"Jan\",\"lastName\":\"Janssen\"},");
+        }
+        body = json.substring(0, size).getBytes(StandardCharsets.UTF_8);
+        pool = new DeflaterPool(6, true, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public void gzipOutputStream() throws IOException {
+        try (OutputStream out = new GZIPOutputStream(OutputStream.nullOutputStream())) {
+            write(out);
+        }
+    }
+
+    @Benchmark
+    public void pooledGZIPOutputStream() throws IOException {
+        try (OutputStream out = new PooledGZIPOutputStream(OutputStream.nullOutputStream(), pool)) {
+            write(out);
+        }
+    }
+
+    private void write(OutputStream out) throws IOException {
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            out.write(body, offset, Math.min(CHUNK_SIZE, body.length - offset));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.abnamro.examples.jaxrs.exceptionhandling;
+
+import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
+import com.abnamro.examples.domain.api.ErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reporting a person that does not exist as it was done before, an exception with a stack trace and an
+ * ErrorResponse the json provider serializes for every response, with the stackless exception and the cached body of
+ * the PersonDoesNotExistExceptionHandler:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="ErrorResponseBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+    private static final String MESSAGE = "person does not exist";
+    private static final ObjectWriter ERROR_WRITER = new ObjectMapper().writerFor(ErrorResponse.class);
+
+    private final PersonDoesNotExistExceptionHandler handler = new PersonDoesNotExistExceptionHandler();
+
+    @Benchmark
+    public byte[] uncached() throws JsonProcessingException {
+        Exception exception = new Exception(MESSAGE);
+        return ERROR_WRITER.writeValueAsBytes(
+                new ErrorResponse(Response.Status.NOT_FOUND.name(), exception.getMessage()));
+    }
+
+    @Benchmark
+    public Response cached() {
+        return handler.toResponse(new PersonDoesNotExistException(MESSAGE));
+    }
+}
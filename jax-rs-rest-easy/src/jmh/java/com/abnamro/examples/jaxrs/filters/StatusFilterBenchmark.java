@@ -0,0 +1,87 @@
+package com.abnamro.examples.jaxrs.filters;
+
+import com.abnamro.examples.jaxrs.annotations.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.ws.rs.POST;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.Response;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scanning the entity annotations of every response for a @Status, as the StatusFilter used to do, with the
+ * filter it now binds to a resource method that already holds the status code. Both run against the same response
+ * context, that returns a copy of the annotations of the method like the JAX-RS implementations do:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="StatusFilterBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusFilterBenchmark {
+    private static final int OK = Response.Status.OK.getStatusCode();
+
+    private ContainerResponseContext response;
+    private StatusFilter.FixedStatusFilter filter;
+    private int status;
+
+    @POST
+    @Status(Response.Status.CREATED)
+    public void create() {
+    }
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        Method method = StatusFilterBenchmark.class.getMethod("create");
+        response = (ContainerResponseContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ContainerResponseContext.class}, (proxy, invoked, args) -> {
+                    switch (invoked.getName()) {
+                        case "getStatus":
+                            return status;
+                        case "setStatus":
+                            status = (int) args[0];
+                            return null;
+                        case "getEntityAnnotations":
+                            return method.getAnnotations();
+                        default:
+                            return null;
+                    }
+                });
+        filter = new StatusFilter.FixedStatusFilter(Response.Status.CREATED.getStatusCode());
+    }
+
+    @Benchmark
+    public int scanEntityAnnotations() {
+        status = OK;
+        if (response.getStatus() == OK) {
+            for (Annotation annotation : response.getEntityAnnotations()) {
+                if (annotation instanceof Status) {
+                    response.setStatus(((Status) annotation).value().getStatusCode());
+                }
+            }
+        }
+        return status;
+    }
+
+    @Benchmark
+    public int fixedStatusFilter() {
+        status = OK;
+        filter.filter(null, response);
+        return status;
+    }
+}
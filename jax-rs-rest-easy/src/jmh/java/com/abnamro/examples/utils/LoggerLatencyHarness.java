@@ -0,0 +1,201 @@
+package com.abnamro.examples.utils;
+
+import com.abnamro.examples.aspects.LatencyHistogram;
+import com.abnamro.examples.aspects.Logger;
+import com.abnamro.examples.aspects.Tracer;
+
+import javax.interceptor.InvocationContext;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the latency of traced requests when the Tracer logs to a file synchronously, formatting and writing every
+ * statement on the request thread, and when it logs to the BatchingLogger, which only enqueues. The requests arrive at
+ * a fixed rate, 10k, 50k and 100k per second by default, and their latency is measured from the moment they were due,
+ * so a request delayed by the ones before it counts the wait as well (no coordinated omission). The service time, from
+ * the moment the request was handled, is reported as well: on a busy machine the latency is mostly the time it takes
+ * to wake up a thread, the service time shows what the logging costs.
+ *
+ * This is not a JMH benchmark, JMH measures a call as fast as it can and not at a given arrival rate. Run it for one
+ * logger (synchronous or batching) at a time, with the rates and seconds per rate optionally:
+ *
+ *   mvn -Pjmh test-compile exec:java -Dexec.mainClass=com.abnamro.examples.utils.LoggerLatencyHarness \
+ *       -Dexec.args="batching 10000,50000,100000 10"
+ */
+public class LoggerLatencyHarness {
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) throws Exception {
+        String logger = args.length > 0 ? args[0] : "batching";
+        String rates = args.length > 1 ? args[1] : "10000,50000,100000";
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        Path file = Files.createTempFile("logger-latency", ".log");
+        try {
+            for (String rate : rates.split(",")) {
+                run(logger, file, Integer.parseInt(rate.trim()), seconds);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void run(String name, Path file, int rate, int seconds) throws Exception {
+        BatchingLogger.Sink sink = BatchingLogger.fileSink(file);
+        BatchingLogger batching = null;
+        Logger logger;
+        switch (name) {
+            case "synchronous":
+                logger = synchronous(sink);
+                break;
+            case "batching":
+                batching = new BatchingLogger(sink, 512, 10, 65536);
+                logger = batching;
+                break;
+            default:
+                throw new IllegalArgumentException("unknown logger '" + name + "', expected synchronous or batching");
+        }
+
+        // a second of warm up at the rate, then the measurement
+        request(new Tracer(logger), rate, 1, new LatencyHistogram(), new LatencyHistogram());
+        LatencyHistogram latencies = new LatencyHistogram();
+        LatencyHistogram serviceTimes = new LatencyHistogram();
+        request(new Tracer(logger), rate, seconds, latencies, serviceTimes);
+
+        System.out.printf("%s, %,d requests/s%n  latency:      %s%n  service time: %s%n",
+                name, rate, latencies.snapshot(), serviceTimes.snapshot());
+        if (batching != null) {
+            batching.close();
+            System.out.printf("  %s%n", batching);
+        } else {
+            sink.close();
+        }
+    }
+
+    /**
+     * Sends the requests for the seconds at the rate, spread over the threads, and records their latencies and
+     * service times in nanoseconds.
+     */
+    private static void request(Tracer tracer, int rate, int seconds, LatencyHistogram latencies,
+                                LatencyHistogram serviceTimes) throws Exception {
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long count = (long) rate * seconds;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        AtomicLong next = new AtomicLong();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            Future<?>[] threads = new Future<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                threads[t] = executor.submit(() -> {
+                    InvocationContext request = new Request();
+                    for (long i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                        long due = start + i * interval;
+                        long wait;
+                        while ((wait = due - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                        long handled = System.nanoTime();
+                        tracer.traceMethod(request);
+                        long done = System.nanoTime();
+                        latencies.record(done - due);
+                        serviceTimes.record(done - handled);
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> thread : threads) {
+                thread.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Logs like a plain file logger: every statement is formatted and written to the file on the calling thread.
+     */
+    private static Logger synchronous(BatchingLogger.Sink sink) {
+        return (Logger) (loggingClassName, message) -> {
+            synchronized (sink) {
+                try {
+                    sink.write(Collections.singletonList(String.format("%s %s", loggingClassName, message)));
+                } catch (IOException e) {
+                    throw new IllegalStateException("unable to log", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * The traced method, a request that does nothing so only the tracing is measured.
+     */
+    public static Object handle() {
+        return null;
+    }
+
+    private static final class Request implements InvocationContext {
+        private static final Method METHOD;
+
+        static {
+            try {
+                METHOD = LoggerLatencyHarness.class.getMethod("handle");
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private final Map<String, Object> contextData = new HashMap<>();
+
+        @Override
+        public Object getTarget() {
+            return null;
+        }
+
+        @Override
+        public Object getTimer() {
+            return null;
+        }
+
+        @Override
+        public Method getMethod() {
+            return METHOD;
+        }
+
+        @Override
+        public Constructor<?> getConstructor() {
+            return null;
+        }
+
+        @Override
+        public Object[] getParameters() {
+            return new Object[0];
+        }
+
+        @Override
+        public void setParameters(Object[] params) {
+        }
+
+        @Override
+        public Map<String, Object> getContextData() {
+            return contextData;
+        }
+
+        @Override
+        public Object proceed() {
+            return handle();
+        }
+    }
+}
@@ -4,4 +4,11 @@ import java.io.Serializable;
 
 public interface Logger extends Serializable {
     void debug(String loggingClassName, String message);
+
+    /**
+     * Whether debug statements end up somewhere, callers skip building their messages when they do not.
+     */
+    default boolean isDebugEnabled() {
+        return true;
+    }
 }
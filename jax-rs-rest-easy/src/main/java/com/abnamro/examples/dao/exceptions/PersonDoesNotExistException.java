@@ -1,12 +1,17 @@
 package com.abnamro.examples.dao.exceptions;
 
+/**
+ * Thrown when a client refers to a person that does not exist, an expected outcome that is mapped onto a 404. Clients
+ * asking for unknown ids can cause a lot of these, so it is created without a stack trace (filling that in is the
+ * expensive part of creating an exception) and without suppressed exceptions.
+ */
 public class PersonDoesNotExistException extends Exception {
 
     public PersonDoesNotExistException(final String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public PersonDoesNotExistException(final String message, final Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
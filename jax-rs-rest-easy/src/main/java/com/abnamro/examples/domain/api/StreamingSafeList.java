@@ -0,0 +1,61 @@
+package com.abnamro.examples.domain.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streaming variant of the SafeList, for results that are too large to collect in a list first. It produces exactly
+ * the same json as a SafeList, so clients keep reading a SafeList, but the items are taken from a stream one by one
+ * while they are being written. So the memory used does not depend on the size of the result.
+ *
+ * The json is written by the serializer below: the "{"items":[" envelope, the items and the closing brackets. The
+ * stream is closed when it has been written, as example to release a database cursor. Like a SafeList the cursor of
+ * the next page is only written when there is one.
+ *
+ * Note that the items can only be written once and that this class cannot be deserialized, use a SafeList for that.
+ */
+@JsonSerialize(using = StreamingSafeList.Serializer.class)
+public class StreamingSafeList<T> {
+    private static final String ITEMS = "items";
+    private static final String NEXT = "next";
+
+    private final Stream<T> items;
+    private final String next;
+
+    public StreamingSafeList(Stream<T> items) {
+        this(items, null);
+    }
+
+    public StreamingSafeList(Stream<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public static class Serializer extends JsonSerializer<StreamingSafeList<?>> {
+        @Override
+        public void serialize(StreamingSafeList<?> value, JsonGenerator generator, SerializerProvider provider)
+                throws IOException {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart(ITEMS);
+
+            try (Stream<?> items = value.items) {
+                Iterator<?> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    provider.defaultSerializeValue(iterator.next(), generator);
+                }
+            }
+
+            generator.writeEndArray();
+            if (value.next != null) {
+                generator.writeStringField(NEXT, value.next);
+            }
+            generator.writeEndObject();
+        }
+    }
+}
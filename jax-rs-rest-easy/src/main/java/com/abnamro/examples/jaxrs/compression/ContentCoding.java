@@ -0,0 +1,103 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * The content-codings we can compress a response with, and the negotiation of the one to use based on the
+ * Accept-Encoding header of the request (RFC 7231, section 5.3.4).
+ *
+ * Every coding listed by the client gets its quality value (q, default 1), a wildcard gives the codings that are not
+ * listed its quality and q=0 means not acceptable. We pick the acceptable coding with the highest quality and prefer
+ * gzip when there is a tie. Without an Accept-Encoding header we do not compress, since we do not know whether the
+ * client can decompress.
+ */
+public enum ContentCoding {
+    GZIP("gzip"),
+    DEFLATE("deflate"),
+    IDENTITY("identity");
+
+    private static final String WILDCARD = "*";
+    private static final String QUALITY = "q=";
+
+    private static final DeflaterPool GZIP_DEFLATERS = DeflaterPool.fromSystemProperties(true);
+    private static final DeflaterPool DEFLATE_DEFLATERS = DeflaterPool.fromSystemProperties(false);
+
+    private final String name;
+
+    ContentCoding(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns a stream that compresses everything written to it into the given stream.
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new PooledGZIPOutputStream(out, GZIP_DEFLATERS);
+            case DEFLATE:
+                return new PooledDeflaterOutputStream(out, DEFLATE_DEFLATERS);
+            default:
+                return out;
+        }
+    }
+
+    /**
+     * Returns the coding to use for the given Accept-Encoding header, IDENTITY when the client does not accept any of
+     * the codings we compress with.
+     */
+    public static ContentCoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.trim().isEmpty()) {
+            return IDENTITY;
+        }
+
+        float gzip = -1;
+        float deflate = -1;
+        float wildcard = -1;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            float quality = quality(parts);
+
+            if (GZIP.name.equals(coding) || "x-gzip".equals(coding)) {
+                gzip = Math.max(gzip, quality);
+            } else if (DEFLATE.name.equals(coding)) {
+                deflate = Math.max(deflate, quality);
+            } else if (WILDCARD.equals(coding)) {
+                wildcard = Math.max(wildcard, quality);
+            }
+        }
+
+        gzip = gzip < 0 ? wildcard : gzip;
+        deflate = deflate < 0 ? wildcard : deflate;
+
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : IDENTITY;
+    }
+
+    /**
+     * Returns the quality value of an Accept-Encoding element, 1 if it has none and 0 if it cannot be parsed.
+     */
+    private static float quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+            if (parameter.startsWith(QUALITY)) {
+                try {
+                    float quality = Float.parseFloat(parameter.substring(QUALITY.length()).trim());
+                    return quality >= 0 && quality <= 1 ? quality : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,144 @@
+package com.abnamro.examples.dao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * File channel that fails on demand, so we can test what the write-ahead log does when the disk lets it down.
+ */
+class FailingFileChannel extends FileChannel {
+    private final FileChannel delegate;
+
+    private final AtomicInteger writesToFail = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile boolean partialWrites;
+    private volatile boolean failForce;
+
+    FailingFileChannel(Path file) throws IOException {
+        delegate = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Fails the next write, after writing half of the bytes if partial.
+     */
+    void failNextWrite(boolean partial) {
+        partialWrites = partial;
+        writesToFail.incrementAndGet();
+    }
+
+    void failForce(boolean fail) {
+        failForce = fail;
+    }
+
+    int failures() {
+        return failures.get();
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+        if (writesToFail.getAndUpdate(count -> Math.max(count - 1, 0)) > 0) {
+            failures.incrementAndGet();
+            if (partialWrites) {
+                ByteBuffer half = src.duplicate();
+                half.limit(half.position() + half.remaining() / 2);
+                delegate.write(half, position);
+            }
+            throw new IOException("no space left on device");
+        }
+        return delegate.write(src, position);
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+        if (failForce) {
+            failures.incrementAndGet();
+            throw new IOException("input/output error");
+        }
+        delegate.force(metaData);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        return delegate.read(dst);
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+        return delegate.read(dsts, offset, length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        return delegate.write(src);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+        return delegate.write(srcs, offset, length);
+    }
+
+    @Override
+    public long position() throws IOException {
+        return delegate.position();
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+        delegate.position(newPosition);
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return delegate.size();
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+        delegate.truncate(size);
+        return this;
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+        return delegate.transferTo(position, count, target);
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+        return delegate.transferFrom(src, position, count);
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return delegate.read(dst, position);
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+        return delegate.map(mode, position, size);
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared) throws IOException {
+        return delegate.lock(position, size, shared);
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+        return delegate.tryLock(position, size, shared);
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,133 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.dao.exceptions.DataAccessException;
+import com.abnamro.examples.domain.api.Person;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapPersonDAOTest extends PersonDAOContractTest {
+    private static final int SEGMENT_SIZE = 256;
+    // capacity (int), live flag (byte), id (long), length of the first name and last name (int)
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 4 + 4;
+
+    @Override
+    protected PersonDAO<Person> createDAO() {
+        // small segments, so the tests cross segment boundaries and trigger compaction
+        return new OffHeapPersonDAO(SEGMENT_SIZE);
+    }
+
+    private OffHeapPersonDAO offHeap() {
+        return (OffHeapPersonDAO) dao;
+    }
+
+    @Test
+    void shouldStoreAHeaderFollowedByTheUtf8EncodedNames() throws Exception {
+        long usedBytes = offHeap().usedBytes();
+
+        dao.add(new Person(42L, "Jan", "Jansén"));
+        dao.add(new Person(43L, null, "Janssen"));
+
+        // é takes two bytes in UTF-8 and a null name takes none
+        assertEquals(usedBytes + HEADER_SIZE + 3 + 7 + HEADER_SIZE + 7, offHeap().usedBytes());
+        assertPerson(42L, "Jan", "Jansén", dao.findById(42L));
+        assertPerson(43L, null, "Janssen", dao.findById(43L));
+        assertEquals(1, dao.findWithLastName("Jansén").size());
+    }
+
+    @Test
+    void shouldUpdateARecordInPlaceWhenTheNamesStillFit() throws Exception {
+        dao.add(new Person(1L, "Pieter", "Pietersen"));
+        long usedBytes = offHeap().usedBytes();
+        long deadBytes = offHeap().deadBytes();
+
+        dao.update(new Person(1L, "Jan", "Janssen"));
+        dao.update(new Person(1L, "Pieter", "Pietersen"));
+
+        assertEquals(usedBytes, offHeap().usedBytes());
+        assertEquals(deadBytes, offHeap().deadBytes());
+        assertPerson(1L, "Pieter", "Pietersen", dao.findById(1L));
+    }
+
+    @Test
+    void shouldMoveARecordWhenTheNamesDoNotFitAnymore() throws Exception {
+        dao.add(new Person(1L, "Jan", "Janssen"));
+        long usedBytes = offHeap().usedBytes();
+        long deadBytes = offHeap().deadBytes();
+
+        dao.update(new Person(1L, "Jan-Pieter", "Janssen-Pietersen"));
+
+        assertEquals(usedBytes + HEADER_SIZE + 10 + 17, offHeap().usedBytes());
+        assertEquals(deadBytes + HEADER_SIZE + 3 + 7, offHeap().deadBytes());
+        assertPerson(1L, "Jan-Pieter", "Janssen-Pietersen", dao.findById(1L));
+        assertTrue(dao.findWithLastName("Janssen").isEmpty());
+    }
+
+    @Test
+    void shouldSpreadRecordsOverSegments() throws Exception {
+        for (long id = 1; id <= 100; id++) {
+            dao.add(new Person(id, "First" + id, "Last" + id));
+        }
+
+        assertTrue(offHeap().segmentCount() > 10);
+        for (long id = 1; id <= 100; id++) {
+            assertPerson(id, "First" + id, "Last" + id, dao.findById(id));
+        }
+        assertEquals(100, dao.findAll().size());
+    }
+
+    @Test
+    void shouldCompactWhenMostOfTheSpaceIsDead() throws Exception {
+        for (long id = 1; id <= 100; id++) {
+            dao.add(new Person(id, "First" + id, "Last" + id));
+        }
+        int segments = offHeap().segmentCount();
+
+        for (long id = 1; id <= 100; id++) {
+            if (id % 10 != 0) {
+                dao.delete(id);
+            }
+        }
+
+        assertTrue(offHeap().segmentCount() < segments / 2, "segments: " + offHeap().segmentCount());
+        List<Person> persons = dao.findAll();
+        assertEquals(10, persons.size());
+        for (Person person : persons) {
+            assertEquals(0, person.getId() % 10);
+            assertPerson(person.getId(), "First" + person.getId(), "Last" + person.getId(), person);
+        }
+        assertEquals(1, dao.findWithLastName("Last50").size());
+    }
+
+    @Test
+    void shouldFindThePersonAtTheVeryFirstAddress() throws Exception {
+        // the first record of the first segment has address 0, which must not be mistaken for a missing person
+        OffHeapPersonDAO fresh = new OffHeapPersonDAO(SEGMENT_SIZE);
+        if (fresh.findAll().isEmpty()) {
+            fresh.add(new Person(7L, "Jan", "Janssen"));
+        }
+        Person first = fresh.findAll().get(0);
+
+        assertPerson(first.getId(), first.getFirstName(), first.getLastName(), fresh.findById(first.getId()));
+    }
+
+    @Test
+    void shouldRejectAPersonThatDoesNotFitInASegment() throws Exception {
+        StringBuilder name = new StringBuilder();
+        while (name.length() < SEGMENT_SIZE) {
+            name.append("Janssen");
+        }
+
+        assertThrows(DataAccessException.class, () -> dao.add(new Person(1L, "Jan", name.toString())));
+        assertNull(dao.findById(1L));
+    }
+
+    private static void assertPerson(long id, String firstName, String lastName, Person person) {
+        assertNotNull(person);
+        assertEquals(id, person.getId());
+        assertEquals(firstName, person.getFirstName());
+        assertEquals(lastName, person.getLastName());
+    }
+}
@@ -7,6 +7,7 @@ import org.mockito.Mockito;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.mockito.ArgumentMatchers.eq;
 
@@ -28,7 +29,9 @@ public final class PersonDAOMocker {
         try {
             @SuppressWarnings("unchecked") PersonDAO<Person> personDAO = (PersonDAO<Person>) Mockito.mock(PersonDAO.class);
 
-            Mockito.when(personDAO.findAll()).thenReturn(Arrays.asList(new Person(1L, "Jan", "Janssen"), new Person(2L, "Pieter", "Pietersen"), new Person(3L, "Erik", "Eriksen")));
+            List<Person> all = Arrays.asList(new Person(1L, "Jan", "Janssen"), new Person(2L, "Pieter", "Pietersen"), new Person(3L, "Erik", "Eriksen"));
+            Mockito.when(personDAO.findAll()).thenReturn(all);
+            Mockito.when(personDAO.streamAll()).thenAnswer(invocation -> all.stream());
 
             Mockito.when(personDAO.findById(eq(1L))).thenReturn(new Person(1L, "Jan", "Janssen"));
 
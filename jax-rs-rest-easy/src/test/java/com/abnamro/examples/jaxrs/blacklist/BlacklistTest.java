@@ -0,0 +1,148 @@
+package com.abnamro.examples.jaxrs.blacklist;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlacklistTest {
+    @Test
+    void shouldReplaceTheDefaultTerms() {
+        assertEquals("John A***e and S***e", Blacklist.defaults().replaceAll("John Asshole and Shitface"));
+    }
+
+    @Test
+    void shouldMatchCaseSensitive() {
+        Blacklist blacklist = Blacklist.compile(terms("ab", "1", "AB", "2"));
+
+        assertEquals("12aBAb", blacklist.replaceAll("abABaBAb"));
+        assertEquals("asshole ASSHOLE", Blacklist.defaults().replaceAll("asshole ASSHOLE"));
+    }
+
+    @Test
+    void shouldReplaceTheLeftmostOfOverlappingTerms() {
+        assertEquals("Xd", Blacklist.compile(terms("abc", "X", "bcd", "Y")).replaceAll("abcd"));
+        assertEquals("u2rs", Blacklist.compile(terms("he", "1", "she", "2", "his", "3", "hers", "4"))
+                .replaceAll("ushers"));
+    }
+
+    @Test
+    void shouldReplaceTheLongestOfTermsStartingAtTheSamePosition() {
+        Blacklist blacklist = Blacklist.compile(terms("ab", "1", "abc", "2", "abcde", "3"));
+
+        assertEquals("2d", blacklist.replaceAll("abcd"));
+        assertEquals("3", blacklist.replaceAll("abcde"));
+        assertEquals("1", blacklist.replaceAll("ab"));
+    }
+
+    @Test
+    void shouldFindATermInsideALongerTermThatDoesNotMatch() {
+        Blacklist blacklist = Blacklist.compile(terms("bc", "1", "abcd", "2"));
+
+        assertEquals("2", blacklist.replaceAll("abcd"));
+        assertEquals("a1e", blacklist.replaceAll("abce"));
+        assertEquals("aa1", blacklist.replaceAll("aabc"));
+    }
+
+    @Test
+    void shouldReplaceAdjacentTermsAndNotScanTheReplacements() {
+        assertEquals("XXX", Blacklist.compile(terms("ab", "X")).replaceAll("ababab"));
+        assertEquals("aaaaaa", Blacklist.compile(terms("a", "aa")).replaceAll("aaa"));
+        assertEquals("", Blacklist.compile(terms("ab", null)).replaceAll("abab"));
+    }
+
+    @Test
+    void shouldMatchTermsWithMultiByteCharacters() {
+        Blacklist blacklist = Blacklist.compile(terms("é", "e", "Straße", "Strasse"));
+
+        assertEquals("cafe in de Strasse", blacklist.replaceAll("café in de Straße"));
+        assertEquals("É", blacklist.replaceAll("É"));
+    }
+
+    @Test
+    void shouldPassTheTextThroughWithAnEmptyDictionary() {
+        Blacklist blacklist = Blacklist.compile(Collections.emptyMap());
+
+        assertEquals(0, blacklist.size());
+        assertEquals("John Asshole", blacklist.replaceAll("John Asshole"));
+        assertEquals("", blacklist.replaceAll(""));
+        assertNull(blacklist.replaceAll(null));
+    }
+
+    @Test
+    void shouldReturnATextWithoutTermsAsIs() {
+        String text = "John Janssen";
+
+        assertSame(text, Blacklist.defaults().replaceAll(text));
+    }
+
+    @Test
+    void shouldIgnoreEmptyTerms() {
+        Blacklist blacklist = Blacklist.compile(terms("", "X", "b", "Y"));
+
+        assertEquals(1, blacklist.size());
+        assertEquals("aYc", blacklist.replaceAll("abc"));
+    }
+
+    /**
+     * Compares the replacement with a naive leftmost-longest replacement on random dictionaries
+     * over a small alphabet, so terms overlap a lot.
+     */
+    @Test
+    void shouldReplaceLikeANaiveLeftmostLongestSearch() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2_000; round++) {
+            Map<String, String> terms = new LinkedHashMap<>();
+            int count = random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                terms.put(randomText(random, 1 + random.nextInt(5)), "<" + i + ">");
+            }
+            String text = randomText(random, random.nextInt(200));
+
+            Blacklist blacklist = Blacklist.compile(terms);
+            String expected = naiveReplaceAll(terms, text);
+            assertEquals(expected, blacklist.replaceAll(text), terms + " " + text);
+        }
+    }
+
+    private static String naiveReplaceAll(Map<String, String> terms, String text) {
+        StringBuilder result = new StringBuilder();
+        int position = 0;
+        while (position < text.length()) {
+            String longest = null;
+            for (String term : terms.keySet()) {
+                if (text.startsWith(term, position) && (longest == null || term.length() > longest.length())) {
+                    longest = term;
+                }
+            }
+
+            if (longest == null) {
+                result.append(text.charAt(position++));
+            } else {
+                result.append(terms.get(longest));
+                position += longest.length();
+            }
+        }
+        return result.toString();
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(3)));
+        }
+        return text.toString();
+    }
+
+    private static Map<String, String> terms(String... termsAndReplacements) {
+        Map<String, String> terms = new LinkedHashMap<>();
+        for (int i = 0; i < termsAndReplacements.length; i += 2) {
+            terms.put(termsAndReplacements[i], termsAndReplacements[i + 1]);
+        }
+        return terms;
+    }
+}
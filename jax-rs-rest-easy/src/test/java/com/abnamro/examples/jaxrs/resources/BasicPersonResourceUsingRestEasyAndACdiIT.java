@@ -254,7 +254,10 @@ public class BasicPersonResourceUsingRestEasyAndACdiIT {
         Response response = restClient.newRequest("/person").request().buildPost(entity).invoke();
 
         // verify response of the resource under test
-        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), response.getStatus());
+        final ErrorResponse result = response.readEntity(ErrorResponse.class);
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.name(), result.getCode());
+        assertEquals("the request body is larger than the allowed 1024 bytes", result.getMessage());
 
         // verify the CDI method interceptor call
         assertEquals(0, InMemoryLogger.getLogStatements().size());
@@ -285,7 +288,7 @@ public class BasicPersonResourceUsingRestEasyAndACdiIT {
         Response result = restClient.newRequest("/person").request().buildPost(entity).invoke();
 
         // verify response of the resource under test
-        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), result.getStatus());
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), result.getStatus());
         assertEquals(AddCustomHeaderResponseFilter.CUSTOM_HEADER_VALUE, result.getHeaders().get(AddCustomHeaderResponseFilter.CUSTOM_HEADER).get(0));
     }
 }
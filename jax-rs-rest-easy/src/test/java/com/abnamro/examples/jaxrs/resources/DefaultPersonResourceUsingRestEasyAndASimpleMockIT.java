@@ -253,7 +253,10 @@ class DefaultPersonResourceUsingRestEasyAndASimpleMockIT {
         );
         Response response = restClient.newRequest("/person").request().buildPost(entity).invoke();
 
-        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), response.getStatus());
+        final ErrorResponse result = response.readEntity(ErrorResponse.class);
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.name(), result.getCode());
+        assertEquals("the request body is larger than the allowed 1024 bytes", result.getMessage());
     }
 
     @Test
@@ -278,7 +281,7 @@ class DefaultPersonResourceUsingRestEasyAndASimpleMockIT {
         Entity<Person> entity = Entity.json(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)));
         Response result = restClient.newRequest("/person").request().buildPost(entity).invoke();
 
-        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), result.getStatus());
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), result.getStatus());
         assertEquals(AddCustomHeaderResponseFilter.CUSTOM_HEADER_VALUE, result.getHeaders().get(AddCustomHeaderResponseFilter.CUSTOM_HEADER).get(0));
     }
 }
@@ -1,6 +1,7 @@
 package com.abnamro.examples.jaxrs.resources;
 
 import com.abnamro.examples.dao.HardCodedPersonDAO;
+import com.abnamro.examples.domain.api.BulkImportResult;
 import com.abnamro.examples.domain.api.ErrorResponse;
 import com.abnamro.examples.domain.api.Person;
 import com.abnamro.examples.domain.api.SafeList;
@@ -17,8 +18,12 @@ import org.junit.jupiter.api.Test;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -121,6 +126,42 @@ class DefaultPersonResourceUsingRestEasyAndCdiIT {
         assertEquals("com.abnamro.examples.jaxrs.resources.DefaultPersonResource exiting findPersonsByLastName", InMemoryLogger.getLogStatements().get(1));
     }
 
+    @Test
+    void shouldReturnAllPersonsPageByPage() {
+        Response response = restClient.newRequest(
+                "/person/all",
+                Collections.singletonList(GZIPReaderInterceptor.class)
+        ).queryParam("limit", 2).request().buildGet().invoke();
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        final SafeList<Person> firstPage = response.readEntity(new GenericType<SafeList<Person>>(){});
+        assertEquals(2, firstPage.getItems().size());
+        assertNotNull(firstPage.getNext());
+
+        response = restClient.newRequest(
+                "/person/all",
+                Collections.singletonList(GZIPReaderInterceptor.class)
+        ).queryParam("limit", 2).queryParam("cursor", firstPage.getNext()).request().buildGet().invoke();
+
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        final SafeList<Person> lastPage = response.readEntity(new GenericType<SafeList<Person>>(){});
+        assertEquals(1, lastPage.getItems().size());
+        assertTrue(lastPage.getItems().get(0).getId() > firstPage.getItems().get(1).getId());
+        assertNull(lastPage.getNext());
+    }
+
+    @Test
+    void shouldReceiveAnErrorResponseWithInvalidCursor() {
+        Response response = restClient.newRequest("/person/lastName/Janssen")
+                .queryParam("cursor", "invalid")
+                .request().buildGet().invoke();
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        final ErrorResponse result = response.readEntity(ErrorResponse.class);
+        assertEquals(Response.Status.BAD_REQUEST.name(), result.getCode());
+        assertEquals("invalid cursor", result.getMessage());
+    }
+
     @Test
     void shouldAddAPerson() {
         Entity<Person> entity = Entity.json(new Person(1001L, "Wim", "Willemsen"));
@@ -171,6 +212,17 @@ class DefaultPersonResourceUsingRestEasyAndCdiIT {
         assertEquals("com.abnamro.examples.jaxrs.resources.DefaultPersonResource exiting add", InMemoryLogger.getLogStatements().get(1));
     }
 
+    @Test
+    void shouldOnlyReplaceUnacceptableNamesInTheLastName() {
+        Entity<Person> entity = Entity.json(new Person(5L, "Shitface", "Asshole"));
+        Response response = restClient.newRequest("/person").request().buildPost(entity).invoke();
+
+        assertEquals(Response.Status.CREATED.getStatusCode(), response.getStatus());
+        final Person result = response.readEntity(Person.class);
+        assertEquals("Shitface", result.getFirstName());
+        assertEquals("A***e", result.getLastName());
+    }
+
     @Test
     void shouldNotTriggerInterceptorToReplaceUnacceptableLastNameIfResourceIsNotBoundToInterceptor() {
         Entity<Person> entity = Entity.json(new Person(1L, "John", "Asshole"));
@@ -257,12 +309,54 @@ class DefaultPersonResourceUsingRestEasyAndCdiIT {
         Response response = restClient.newRequest("/person").request().buildPost(entity).invoke();
 
         // verify response of the resource under test
-        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), response.getStatus());
+        final ErrorResponse result = response.readEntity(ErrorResponse.class);
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.name(), result.getCode());
+        assertEquals("the request body is larger than the allowed 1024 bytes", result.getMessage());
 
         // verify the CDI method interceptor call
         assertEquals(0, InMemoryLogger.getLogStatements().size());
     }
 
+    /**
+     * A body sent as a stream has no Content-Length, the client sends it with chunked transfer encoding. It can only be
+     * rejected while it is being read.
+     */
+    @Test
+    void shouldRejectChunkedPersistPersonRequestBecauseRequestIsToLarge() {
+        String json = "{\"id\":5,\"firstName\":\"Despicable\",\"lastName\":\"" + StringUtils.repeat("Ooops", 250) + "\"}";
+        Entity<InputStream> entity = Entity.entity(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), MediaType.APPLICATION_JSON_TYPE
+        );
+        Response response = restClient.newRequest("/person").request().buildPost(entity).invoke();
+
+        // verify response of the resource under test
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), response.getStatus());
+        final ErrorResponse result = response.readEntity(ErrorResponse.class);
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.name(), result.getCode());
+        assertEquals("the request body is larger than the allowed 1024 bytes", result.getMessage());
+    }
+
+    /**
+     * The bulk import opts out of the ceiling of the pre-matching filter (1 MB by default) with @MaxRequestSize.
+     */
+    @Test
+    void shouldImportABulkRequestAboveTheCeiling() {
+        StringBuilder ndjson = new StringBuilder();
+        int count = 0;
+        while (ndjson.length() <= 1024 * 1024) {
+            ndjson.append("{\"id\":").append(1000 + count++).append(",\"firstName\":\"Jan\",\"lastName\":\"Janssen\"}\n");
+        }
+        Entity<InputStream> entity = Entity.entity(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)), "application/x-ndjson"
+        );
+        Response response = restClient.newRequest("/person/bulk").request().buildPost(entity).invoke();
+
+        // verify response of the resource under test
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        assertEquals(count, response.readEntity(BulkImportResult.class).getImported());
+    }
+
     @Test
     void shouldReturnCustomHeaderForGet() {
         Response result = restClient.newRequest("/person/lastName/Janssen").request().buildGet().invoke();
@@ -288,7 +382,7 @@ class DefaultPersonResourceUsingRestEasyAndCdiIT {
         Response result = restClient.newRequest("/person").request().buildPost(entity).invoke();
 
         // verify response of the resource under test
-        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), result.getStatus());
+        assertEquals(Response.Status.REQUEST_ENTITY_TOO_LARGE.getStatusCode(), result.getStatus());
         assertEquals(AddCustomHeaderResponseFilter.CUSTOM_HEADER_VALUE, result.getHeaders().get(AddCustomHeaderResponseFilter.CUSTOM_HEADER).get(0));
     }
 }
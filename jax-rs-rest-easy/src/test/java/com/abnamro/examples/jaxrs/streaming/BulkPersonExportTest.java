@@ -0,0 +1,29 @@
+package com.abnamro.examples.jaxrs.streaming;
+
+import com.abnamro.examples.domain.api.Person;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkPersonExportTest {
+    @Test
+    void shouldWriteAPersonPerLineAndCloseTheStream() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Person> persons = Stream.of(new Person(1L, "Jan", "Janssen"), new Person(2L, "Pieter", "Pietersen"))
+                .onClose(() -> closed.set(true));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new BulkPersonExport(persons).write(output);
+
+        String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":1") && lines[0].contains("\"Janssen\""), lines[0]);
+        assertTrue(lines[1].contains("\"id\":2") && lines[1].contains("\"Pietersen\""), lines[1]);
+        assertTrue(closed.get());
+    }
+}
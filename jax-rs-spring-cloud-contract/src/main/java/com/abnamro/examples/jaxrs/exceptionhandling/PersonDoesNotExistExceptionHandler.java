@@ -1,9 +1,7 @@
 package com.abnamro.examples.jaxrs.exceptionhandling;
 
 import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
-import com.abnamro.examples.domain.api.ErrorResponse;
 
-import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
 import javax.ws.rs.ext.Provider;
@@ -21,13 +19,14 @@ import javax.ws.rs.ext.Provider;
 @Provider
 public class PersonDoesNotExistExceptionHandler implements ExceptionMapper<PersonDoesNotExistException> {
     private static final String MESSAGE_TEMPLATE = "%s %s";
+    private static final ErrorResponseCache ERROR_RESPONSES = new ErrorResponseCache(Response.Status.NOT_FOUND);
 
     @Override
     public Response toResponse(PersonDoesNotExistException exception) {
-        return Response.status(Response.Status.NOT_FOUND)
-                .entity(new ErrorResponse(Response.Status.NOT_FOUND.name(), buildErrorMessage(exception)))
-                .type(MediaType.APPLICATION_JSON_TYPE)
-                .build();
+        // without a cause the message is the fixed one the exception is thrown with, see the ErrorResponseCache
+        return exception.getCause() == null
+                ? ERROR_RESPONSES.toResponse(exception.getMessage())
+                : ERROR_RESPONSES.toUncachedResponse(buildErrorMessage(exception));
     }
 
     private String buildErrorMessage(Exception exception) {
@@ -1,13 +1,18 @@
 package com.abnamro.examples.jaxrs.interceptors;
 
 import com.abnamro.examples.jaxrs.bindings.CompressData;
+import com.abnamro.examples.jaxrs.compression.ContentCoding;
+import com.abnamro.examples.jaxrs.compression.DeferredCompressionOutputStream;
 
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.ext.Provider;
 import javax.ws.rs.ext.WriterInterceptor;
 import javax.ws.rs.ext.WriterInterceptorContext;
 import java.io.IOException;
-import java.util.zip.GZIPOutputStream;
+import java.io.OutputStream;
 
 /**
  * A JAX-RS 2.0 interceptor gives a developer access to a message body as it is being read or written. Therefore
@@ -16,13 +21,20 @@ import java.util.zip.GZIPOutputStream;
  * You can install multiple interceptors at each extension point, in which case the interceptors are executed in a
  * chain (the order of execution is undefined, unless you specify a priority value for each installed interceptor).
  *
- * This response interceptor is bounded with @CompressData. It does imply that client calling the resources that
- * are also bounded with @CompressData need to implement a ReaderInterceptor that unzips the body first!
+ * This response interceptor is bounded with @CompressData. It only compresses the response when the client accepts
+ * a content-coding we support (gzip or deflate) in its Accept-Encoding header, and when the body is larger than the
+ * threshold, 1KB by default or the value of the system property 'compression.threshold'. The Content-Encoding header
+ * tells the client whether and how the body is compressed, the Vary header tells caches that the response depends on
+ * the Accept-Encoding header. Clients that do not unzip automatically can register the GZIPReaderInterceptor.
+ *
+ * The responses are compressed with Deflaters and buffers from a shared pool (see DeflaterPool), so we do not create a
+ * new Deflater with its native memory for every response. Set the system property 'compression.level' to trade CPU
+ * for a smaller response.
  *
  * Note : we did not give both the gzip-interceptors the same binding because we only want ONE of them to be bound to
  * a resource (the writer) and not both of them.
  *
- * Note : BUG - the GZIPOutputStream needs to be closed. The problem is that the RestEasy JaxRS implementation classes, in
+ * Note : BUG - the compressing stream needs to be closed. The problem is that the RestEasy JaxRS implementation classes, in
  * this case probably the ResteasyJackson2Provider, do NOT close this stream, so not all tokens are written to it and that
  * results in a "java.io.EOFException: Unexpected end of ZLIB input stream" exception being thrown. To prevent this we
  * altered this interceptor so it closes the stream itself explicitly.
@@ -30,12 +42,40 @@ import java.util.zip.GZIPOutputStream;
 @Provider
 @CompressData
 public class GZIPWriterInterceptor implements WriterInterceptor {
+    private static final String THRESHOLD_PROPERTY = "compression.threshold";
+    private static final int DEFAULT_THRESHOLD = 1024;
+    private static final int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD);
+
+    @Context
+    private HttpHeaders httpHeaders;
 
     @Override
     public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
-        try(GZIPOutputStream gzipOutputStream = new GZIPOutputStream(context.getOutputStream())) {
-            context.setOutputStream(gzipOutputStream);
+        MultivaluedMap<String,Object> headers = context.getHeaders();
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        ContentCoding coding = ContentCoding.negotiate(httpHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if(coding == ContentCoding.IDENTITY) {
+            context.proceed();
+            return;
+        }
+
+        try(OutputStream stream = compressLargeBody(context.getOutputStream(), coding, headers)) {
+            context.setOutputStream(stream);
             context.proceed();
         }
     }
+
+    /**
+     * Returns a stream that only compresses the body when it is larger than the threshold. The headers are changed
+     * once we know, before anything has been written.
+     */
+    private static OutputStream compressLargeBody(OutputStream out, ContentCoding coding,
+                                                  MultivaluedMap<String,Object> headers) {
+        return new DeferredCompressionOutputStream(out, THRESHOLD, target -> {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, coding.getName());
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            return coding.compress(target);
+        });
+    }
 }
@@ -6,11 +6,18 @@ import com.abnamro.examples.dao.PersonDAO;
 import com.abnamro.examples.dao.exceptions.DataAccessException;
 import com.abnamro.examples.dao.exceptions.PersonAlreadyExistsException;
 import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
+import com.abnamro.examples.domain.api.BulkImportResult;
 import com.abnamro.examples.domain.api.Person;
 import com.abnamro.examples.domain.api.SafeList;
+import com.abnamro.examples.domain.api.StreamingSafeList;
+import com.abnamro.examples.jaxrs.streaming.BulkPersonExport;
+import com.abnamro.examples.jaxrs.streaming.BulkPersonImport;
 
 import javax.inject.Inject;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * JAX-RS resource used to demo the testability of such a resource. The JAX-RS API is defined in the PersonResource
@@ -51,19 +58,35 @@ public class DefaultPersonResource implements PersonResource<Person> {
         return personDAO.findById(id);
     }
 
+    /**
+     * Example resource that returns all persons with the last name, or a page of them when a cursor or limit is given
+     * (see KeysetPage).
+     */
     @Override
     @EnableTracing
-    public SafeList<Person> findPersonsByLastName(String lastName) throws DataAccessException {
-        return new SafeList<>(personDAO.findWithLastName(lastName));
+    public SafeList<Person> findPersonsByLastName(String lastName, String cursor, Integer limit) throws DataAccessException {
+        if(!KeysetPage.isRequested(cursor, limit)) {
+            return new SafeList<>(personDAO.findWithLastName(lastName));
+        }
+
+        KeysetPage page = KeysetPage.of(cursor, limit);
+        return page.toSafeList(personDAO.findWithLastName(lastName, page.afterId(), page.fetchSize()));
     }
 
     /**
-     * Example resource that uses the tracer and is bound to an interceptor that compresses the returned response.
+     * Example resource that uses the tracer and is bound to an interceptor that compresses the returned response. The
+     * persons are streamed into the response, so we never hold the complete result in memory. When a cursor or limit is
+     * given only that page is returned (see KeysetPage).
      */
     @Override
     @EnableTracing
-    public SafeList<Person> findAllPersons() throws DataAccessException {
-        return new SafeList<>(personDAO.findAll());
+    public StreamingSafeList<Person> findAllPersons(String cursor, Integer limit) throws DataAccessException {
+        if(!KeysetPage.isRequested(cursor, limit)) {
+            return new StreamingSafeList<>(personDAO.streamAll());
+        }
+
+        KeysetPage page = KeysetPage.of(cursor, limit);
+        return page.toStreamingSafeList(personDAO.findAll(page.afterId(), page.fetchSize()));
     }
 
     /**
@@ -100,4 +123,25 @@ public class DefaultPersonResource implements PersonResource<Person> {
     public void delete(long personId) throws DataAccessException {
         personDAO.delete(personId);
     }
+
+    /**
+     * Example resource that reads its body as a stream, so it can import any number of persons with bounded memory. It
+     * is NOT bound to the interceptor that cleans up last names, since that one only acts while the json provider reads
+     * the body and this resource parses the persons itself.
+     */
+    @Override
+    @EnableTracing
+    public BulkImportResult importPersons(InputStream persons) throws IOException, DataAccessException {
+        return new BulkPersonImport(personDAO).importFrom(persons);
+    }
+
+    /**
+     * Example resource that streams its response, every person is taken from the DAO and written as soon as it has been
+     * serialized, so the export does not copy the persons into a list first.
+     */
+    @Override
+    @EnableTracing
+    public StreamingOutput exportPersons() throws DataAccessException {
+        return new BulkPersonExport(personDAO.streamAll());
+    }
 }
@@ -0,0 +1,106 @@
+package com.abnamro.examples.jaxrs.resources;
+
+import com.abnamro.examples.domain.api.Person;
+import com.abnamro.examples.domain.api.SafeList;
+import com.abnamro.examples.domain.api.StreamingSafeList;
+
+import javax.validation.ValidationException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A requested page of persons, for the list resources that support keyset pagination with the query parameters
+ * 'cursor' and 'limit'.
+ *
+ * Instead of skipping the first N persons (OFFSET), which gets slower for every next page, a page starts right after
+ * the last person of the previous page. The persons are ordered by id, so the DAO can seek to that id. The cursor is
+ * that id, but clients should treat it as opaque: we hand it out as the 'next' property of a page and they pass it
+ * back unchanged to get the next page. There is no 'next' on the last page.
+ *
+ * We fetch one person more than the limit, so we know whether there is a next page without counting all persons.
+ */
+public final class KeysetPage {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder CURSOR_DECODER = Base64.getUrlDecoder();
+
+    private final Long afterId;
+    private final int limit;
+
+    private KeysetPage(Long afterId, int limit) {
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns true if the client asked for a page, without any paging parameter the resources return all persons as
+     * they always did.
+     */
+    public static boolean isRequested(String cursor, Integer limit) {
+        return cursor != null || limit != null;
+    }
+
+    /**
+     * @param cursor the 'next' cursor of the previous page, or null for the first page
+     * @param limit the maximum number of persons on the page, or null for the default
+     * @throws ValidationException if the cursor was not handed out by us or the limit is out of range
+     */
+    public static KeysetPage of(String cursor, Integer limit) {
+        if(limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new ValidationException("limit should be between 1 and " + MAX_LIMIT);
+        }
+
+        return new KeysetPage(cursor == null ? null : decode(cursor), limit == null ? DEFAULT_LIMIT : limit);
+    }
+
+    /**
+     * Returns the id of the last person of the previous page, or null for the first page.
+     */
+    public Long afterId() {
+        return afterId;
+    }
+
+    /**
+     * Returns the number of persons to fetch, one more than the limit.
+     */
+    public int fetchSize() {
+        return limit + 1;
+    }
+
+    public <T extends Person> SafeList<T> toSafeList(List<T> fetched) {
+        return new SafeList<>(items(fetched), next(fetched));
+    }
+
+    public <T extends Person> StreamingSafeList<T> toStreamingSafeList(List<T> fetched) {
+        return new StreamingSafeList<>(items(fetched).stream(), next(fetched));
+    }
+
+    private <T extends Person> List<T> items(List<T> fetched) {
+        return fetched.size() > limit ? fetched.subList(0, limit) : fetched;
+    }
+
+    private String next(List<? extends Person> fetched) {
+        return fetched.size() > limit ? encode(fetched.get(limit - 1).getId()) : null;
+    }
+
+    private static String encode(long id) {
+        return CURSOR_ENCODER.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+    }
+
+    private static Long decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = CURSOR_DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("invalid cursor");
+        }
+
+        if(bytes.length != Long.BYTES) {
+            throw new ValidationException("invalid cursor");
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+}
@@ -0,0 +1,125 @@
+package com.abnamro.examples.jaxrs.streaming;
+
+import com.abnamro.examples.dao.PersonDAO;
+import com.abnamro.examples.dao.exceptions.DataAccessException;
+import com.abnamro.examples.dao.exceptions.PersonAlreadyExistsException;
+import com.abnamro.examples.domain.api.BulkImportError;
+import com.abnamro.examples.domain.api.BulkImportResult;
+import com.abnamro.examples.domain.api.Person;
+import com.abnamro.examples.jaxrs.interceptors.RemoveBlacklistedLastNameRequestInterceptor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+
+/**
+ * Imports persons from a request body holding either a json array of persons or newline delimited json (one person per
+ * line). The body is parsed incrementally, so only one person is in memory at a time, whatever the size of the body.
+ *
+ * Every person is sanitized, validated and added on its own, like the single add does. A person that is rejected is
+ * reported in the result and the import continues with the next one. Only a body that is not valid json stops the
+ * import, because we can no longer find the start of the next person.
+ *
+ * Note that the body is not bound to the RemoveBlacklistedLastNameRequestInterceptor, since that one only acts on the
+ * person the json provider reads. The blacklisted names are removed from every last name here instead.
+ */
+public class BulkPersonImport {
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final ObjectReader PERSON_READER = new ObjectMapper().readerFor(Person.class);
+    private static final String CONSTRAINT_TEMPLATE = "%s %s\n";
+    private static final String BAD_REQUEST = Response.Status.BAD_REQUEST.name();
+
+    private final PersonDAO<Person> personDAO;
+    private final Validator validator;
+
+    public BulkPersonImport(PersonDAO<Person> personDAO) {
+        this(personDAO, DefaultValidator.INSTANCE);
+    }
+
+    public BulkPersonImport(PersonDAO<Person> personDAO, Validator validator) {
+        this.personDAO = personDAO;
+        this.validator = validator;
+    }
+
+    public BulkImportResult importFrom(InputStream body) throws IOException, DataAccessException {
+        BulkImportResult result = new BulkImportResult();
+
+        try (MappingIterator<Person> persons = PERSON_READER.readValues(body)) {
+            for (long index = 0; hasNext(persons, index, result); index++) {
+                Person person;
+                try {
+                    person = persons.nextValue();
+                } catch (JsonMappingException e) {
+                    // the parser skips the rest of this person on the next call of hasNextValue
+                    result.rejected(new BulkImportError(index, null, BAD_REQUEST, e.getOriginalMessage()));
+                    continue;
+                } catch (JsonProcessingException e) {
+                    result.rejected(new BulkImportError(index, null, BAD_REQUEST, e.getOriginalMessage()));
+                    break;
+                }
+
+                add(index, person, result);
+            }
+        }
+
+        return result;
+    }
+
+    private boolean hasNext(MappingIterator<Person> persons, long index, BulkImportResult result) throws IOException {
+        try {
+            return persons.hasNextValue();
+        } catch (JsonProcessingException e) {
+            result.rejected(new BulkImportError(index, null, BAD_REQUEST, e.getOriginalMessage()));
+            return false;
+        }
+    }
+
+    private void add(long index, Person person, BulkImportResult result) throws DataAccessException {
+        if(person == null) {
+            result.rejected(new BulkImportError(index, null, BAD_REQUEST, "person is missing"));
+            return;
+        }
+
+        person.setLastName(RemoveBlacklistedLastNameRequestInterceptor.removeBlacklistedNames(person.getLastName()));
+
+        Set<ConstraintViolation<Person>> violations = validator.validate(person);
+        if(!violations.isEmpty()) {
+            result.rejected(new BulkImportError(index, person.getId(), BAD_REQUEST, gatherConstraintViolations(violations)));
+            return;
+        }
+
+        try {
+            personDAO.add(person);
+            result.imported();
+        } catch (PersonAlreadyExistsException e) {
+            result.rejected(new BulkImportError(index, person.getId(), BAD_REQUEST, e.getMessage()));
+        }
+    }
+
+    private static String gatherConstraintViolations(Set<ConstraintViolation<Person>> violations) {
+        StringBuilder message = new StringBuilder();
+
+        for (ConstraintViolation<Person> cv : violations) {
+            message.append(String.format(CONSTRAINT_TEMPLATE, cv.getPropertyPath(), cv.getMessage()));
+        }
+
+        return message.toString();
+    }
+
+    /**
+     * Lazily built, building a validator factory is expensive.
+     */
+    private static final class DefaultValidator {
+        private static final Validator INSTANCE = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+}
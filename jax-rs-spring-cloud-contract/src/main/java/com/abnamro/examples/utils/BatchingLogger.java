@@ -0,0 +1,267 @@
+package com.abnamro.examples.utils;
+
+import com.abnamro.examples.aspects.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Logger that hands the log statements to a background writer, so logging on the request path is nothing more than
+ * adding the statement to a lock-free queue. The writer takes the statements off the queue in batches and writes every
+ * batch to the sink in one go: as soon as a batch is full, or when the oldest statement has waited for the linger time.
+ * Statements are formatted by the writer, not by the thread that logs them.
+ *
+ * The queue is bounded. When the writer (or the sink) does not keep up, new statements are dropped and counted instead
+ * of slowing down the requests or filling up the heap. A batch the sink fails to write is dropped as well.
+ *
+ * Unlike the InMemoryLogger this logger has state, make sure you use one instance, the writer thread is started when it
+ * is created. Close it when the application stops, or the statements still in the queue are lost: the logger created
+ * from the system properties registers a shutdown hook that does so. Closing the logger closes the sink after the last
+ * batch, so a file sink releases its file.
+ */
+public class BatchingLogger implements Logger, Closeable {
+    private static final String FILE_PROPERTY = "logger.file";
+    private static final String BATCH_SIZE_PROPERTY = "logger.batch.size";
+    private static final String LINGER_PROPERTY = "logger.linger";
+    private static final String QUEUE_CAPACITY_PROPERTY = "logger.queue.capacity";
+    private static final int DEFAULT_BATCH_SIZE = 512;
+    private static final long DEFAULT_LINGER_MILLIS = 10;
+    private static final int DEFAULT_QUEUE_CAPACITY = 65536;
+
+    private static final String LOG_STATEMENT_TEMPLATE = "%s %s";
+
+    /**
+     * Where the batches of formatted statements are written to. It is closed when the logger is closed, after the last
+     * batch has been written.
+     */
+    @FunctionalInterface
+    public interface Sink extends Closeable {
+        void write(List<String> statements) throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    private final Sink sink;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int queueCapacity;
+
+    private final Queue<String[]> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private final LongAdder logged = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    public BatchingLogger(Sink sink, int batchSize, long lingerMillis, int queueCapacity) {
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.queueCapacity = queueCapacity;
+
+        writer = new Thread(this::writeBatches, "logger-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Creates the logger configured with the system properties 'logger.file' (the file to append the statements to),
+     * 'logger.batch.size' (default 512), 'logger.linger' (milliseconds, default 10) and 'logger.queue.capacity'
+     * (default 65536), or returns null if no file is configured.
+     */
+    public static BatchingLogger fromSystemProperties() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null) {
+            return null;
+        }
+
+        BatchingLogger logger = new BatchingLogger(
+                fileSink(Paths.get(file)),
+                Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE),
+                Long.getLong(LINGER_PROPERTY, DEFAULT_LINGER_MILLIS),
+                Integer.getInteger(QUEUE_CAPACITY_PROPERTY, DEFAULT_QUEUE_CAPACITY));
+        Runtime.getRuntime().addShutdownHook(new Thread(logger::close, "logger-shutdown"));
+        return logger;
+    }
+
+    /**
+     * Returns a sink that appends the statements to the file, a line per statement, and flushes once per batch. Closing
+     * the sink closes the file.
+     */
+    public static Sink fileSink(Path file) {
+        Writer out;
+        try {
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open log file " + file, e);
+        }
+
+        return new Sink() {
+            @Override
+            public void write(List<String> statements) throws IOException {
+                for (String statement : statements) {
+                    out.write(statement);
+                    out.write('\n');
+                }
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        };
+    }
+
+    @Override
+    public void debug(final String loggingClassName, final String message) {
+        logged.increment();
+        final int size = queued.incrementAndGet();
+        if (closed || size > queueCapacity) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+
+        queue.offer(new String[]{loggingClassName, message});
+        if (size == batchSize) {
+            // a full batch, no need to wait for the linger time
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Stops the writer, after it has written the statements that were logged before, and closes the sink. Closing it
+     * again has no effect.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            // the writer may still be writing to the sink, so it is left open
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            sink.close();
+        } catch (IOException | RuntimeException e) {
+            // there is nobody to report to, we are the logger
+        }
+    }
+
+    public long getLogged() {
+        return logged.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    private void writeBatches() {
+        List<String> batch = new ArrayList<>(batchSize);
+        long deadline = 0;
+
+        while (true) {
+            boolean closing = closed;
+            int pending = queued.get();
+
+            if (pending > 0 && deadline == 0) {
+                deadline = System.nanoTime() + lingerNanos;
+            }
+
+            if (pending >= batchSize || (pending > 0 && System.nanoTime() - deadline >= 0) || closing) {
+                while (drain(batch)) {
+                    write(batch);
+                }
+                deadline = 0;
+                if (closing) {
+                    drainRemaining(batch);
+                    return;
+                }
+            } else {
+                LockSupport.parkNanos(this, pending > 0 ? deadline - System.nanoTime() : lingerNanos);
+            }
+        }
+    }
+
+    /**
+     * A thread that logged while the logger was being closed may have counted its statement in 'queued' before it saw
+     * 'closed', and adds it to the queue after our last drain. We wait until every counted statement has either been
+     * added, and write it, or has been dropped, so no statement is lost without being counted.
+     */
+    private void drainRemaining(List<String> batch) {
+        while (queued.get() > 0) {
+            if (drain(batch)) {
+                write(batch);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private boolean drain(List<String> batch) {
+        String[] statement;
+        while (batch.size() < batchSize && (statement = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(String.format(LOG_STATEMENT_TEMPLATE, statement[0], statement[1]));
+        }
+        return !batch.isEmpty();
+    }
+
+    private void write(List<String> batch) {
+        try {
+            sink.write(batch);
+            written.add(batch.size());
+        } catch (IOException | RuntimeException e) {
+            // there is nobody to report to, we are the logger
+            dropped.add(batch.size());
+            failedBatches.increment();
+        }
+        batches.increment();
+        batch.clear();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("logged=%d written=%d dropped=%d batches=%d failedBatches=%d",
+                getLogged(), getWritten(), getDropped(), getBatches(), getFailedBatches());
+    }
+}
@@ -0,0 +1,122 @@
+package com.abnamro.examples.aspects;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    @Test
+    void shouldReturnZeroForAnEmptyHistogram() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getP50());
+        assertEquals(0, snapshot.getP999());
+        assertEquals(0, snapshot.getMax());
+    }
+
+    @Test
+    void shouldCountSmallValuesExactly() {
+        for (long value = 0; value < 128; value++) {
+            assertEquals(value, LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value)));
+        }
+    }
+
+    @Test
+    void shouldRecordEveryValueWithinOnePercent() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextLong() >>> (17 + random.nextInt(46));
+            long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+
+            assertTrue(highest >= value, value + " is counted in a bucket up to " + highest);
+            assertTrue(highest - value <= value / 128, value + " is counted in a bucket up to " + highest);
+        }
+    }
+
+    @Test
+    void shouldKeepTheBucketsInOrderOfValue() {
+        int previous = LatencyHistogram.indexOf(0);
+        for (long value = 1; value < 1L << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1, "index of " + value);
+            previous = index;
+        }
+    }
+
+    @Test
+    void shouldCountHugeValuesInTheLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(LatencyHistogram.indexOf(1L << 50), LatencyHistogram.indexOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, histogram.snapshot().getMax());
+        assertEquals(Long.MAX_VALUE, histogram.snapshot().getP50());
+    }
+
+    @Test
+    void shouldRecordANegativeValueAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(-5);
+
+        assertEquals(1, histogram.snapshot().getCount());
+        assertEquals(0, histogram.snapshot().getMax());
+    }
+
+    @Test
+    void shouldComputeThePercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertWithinOnePercent(5_000_000, snapshot.getP50());
+        assertWithinOnePercent(9_900_000, snapshot.getP99());
+        assertWithinOnePercent(9_990_000, snapshot.getP999());
+        assertEquals(10_000_000, snapshot.getMax());
+        assertEquals(10_000_000, snapshot.valueAtPercentile(100));
+        assertWithinOnePercent(1_000, snapshot.valueAtPercentile(0));
+    }
+
+    @Test
+    void shouldNotLoseConcurrentlyRecordedValues() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                long offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (long value = 0; value < 100_000; value++) {
+                        histogram.record(value * 4 + offset);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(400_000, snapshot.getCount());
+        assertEquals(399_999, snapshot.getMax());
+    }
+
+    private static void assertWithinOnePercent(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 100, "expected about " + expected + " but was " + actual);
+    }
+}
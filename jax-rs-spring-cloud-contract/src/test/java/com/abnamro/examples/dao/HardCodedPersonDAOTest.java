@@ -0,0 +1,110 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.dao.PersonWriteAheadLog.FsyncPolicy;
+import com.abnamro.examples.dao.exceptions.DataAccessException;
+import com.abnamro.examples.domain.api.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HardCodedPersonDAOTest extends PersonDAOContractTest {
+    private Path directory;
+    private Path walFile;
+
+    @Override
+    protected PersonDAO<Person> createDAO() {
+        return new HardCodedPersonDAO();
+    }
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("persons");
+        walFile = directory.resolve("persons.wal");
+    }
+
+    @AfterEach
+    void restoreTheDataSet() throws IOException {
+        HardCodedPersonDAO.useWriteAheadLog(null);
+        HardCodedPersonDAO.reset();
+
+        Files.deleteIfExists(walFile);
+        Files.deleteIfExists(directory.resolve("persons.snapshot"));
+        Files.delete(directory);
+    }
+
+    @Test
+    void shouldNotApplyAMutationThatCouldNotBeLogged() throws Exception {
+        FailingFileChannel channel = new FailingFileChannel(walFile);
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(channel, FsyncPolicy.ALWAYS, 0)) {
+            HardCodedPersonDAO.useWriteAheadLog(log);
+            dao.add(new Person(1L, "Jan", "Janssen"));
+
+            channel.failNextWrite(false);
+            assertThrows(DataAccessException.class, () -> dao.add(new Person(2L, "Pieter", "Pietersen")));
+            channel.failNextWrite(false);
+            assertThrows(DataAccessException.class, () -> dao.update(new Person(1L, "Jan", "Pietersen")));
+            channel.failNextWrite(false);
+            assertThrows(IllegalStateException.class, () -> dao.delete(1L));
+
+            assertNull(dao.findById(2L));
+            assertEquals("Janssen", dao.findById(1L).getLastName());
+            assertEquals(1, dao.findWithLastName("Janssen").size());
+            assertTrue(dao.findWithLastName("Pietersen").isEmpty());
+
+            List<Long> logged = new ArrayList<>();
+            log.replay(new PersonWriteAheadLog.Replayer() {
+                @Override
+                public void put(Person person) {
+                    logged.add(person.getId());
+                }
+
+                @Override
+                public void delete(long id) {
+                    logged.add(-id);
+                }
+            });
+            assertEquals(1, logged.size());
+        }
+    }
+
+    @Test
+    void shouldRestoreTheLoggedMutationsOnReset() throws Exception {
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(walFile, FsyncPolicy.ALWAYS, 0)) {
+            HardCodedPersonDAO.useWriteAheadLog(log);
+            dao.add(new Person(41L, "Jan", "Janssen"));
+            dao.add(new Person(42L, "Pieter", "Pietersen"));
+            dao.update(new Person(42L, "Pieter", "Eriksen"));
+            dao.delete(41L);
+
+            HardCodedPersonDAO.reset();
+
+            assertNull(dao.findById(41L));
+            assertEquals("Eriksen", dao.findById(42L).getLastName());
+            assertEquals(1, dao.findWithLastName("Eriksen").stream().filter(person -> person.getId() == 42L).count());
+        }
+    }
+
+    @Test
+    void shouldEmptyTheLogOnACheckpoint() throws Exception {
+        Path snapshot = directory.resolve("persons.snapshot");
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(walFile, FsyncPolicy.ALWAYS, 0)) {
+            HardCodedPersonDAO.useWriteAheadLog(log);
+            dao.add(new Person(42L, "Jan", "Janssen"));
+            assertTrue(log.size() > 0);
+
+            HardCodedPersonDAO.checkpoint(snapshot);
+
+            assertEquals(0, log.size());
+            HardCodedPersonDAO.loadSnapshot(snapshot);
+            assertEquals("Janssen", dao.findById(42L).getLastName());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.abnamro.examples.dao;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongObjectHashMapTest {
+    // a map for 8 entries has a table of 16 slots
+    private static final int EXPECTED_SIZE = 8;
+    private static final int TABLE_SIZE = 16;
+
+    @Test
+    void shouldStoreAndReplaceValues() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertNull(map.put(1L, "one"));
+        assertEquals("one", map.put(1L, "uno"));
+        assertEquals("uno", map.putIfAbsent(1L, "een"));
+        assertNull(map.putIfAbsent(2L, "two"));
+
+        assertEquals("uno", map.get(1L));
+        assertEquals("two", map.get(2L));
+        assertNull(map.get(3L));
+        assertTrue(map.containsKey(2L));
+        assertFalse(map.containsKey(3L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void shouldRejectNullValues() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, null));
+        assertThrows(IllegalArgumentException.class, () -> map.putIfAbsent(1L, null));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void shouldSupportAnyKeyIncludingZeroAndNegativeKeys() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        map.put(0L, "zero");
+        map.put(-1L, "minus one");
+        map.put(Long.MIN_VALUE, "min");
+        map.put(Long.MAX_VALUE, "max");
+
+        assertEquals("zero", map.get(0L));
+        assertEquals("minus one", map.get(-1L));
+        assertEquals("min", map.get(Long.MIN_VALUE));
+        assertEquals("max", map.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    void shouldKeepCollidingKeysReachable() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(EXPECTED_SIZE);
+        List<Long> keys = collidingKeys(4);
+        keys.forEach(key -> map.put(key, "value" + key));
+
+        keys.forEach(key -> assertEquals("value" + key, map.get(key)));
+        assertEquals(4, map.size());
+    }
+
+    @Test
+    void shouldShiftTheProbeChainBackOnRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>(EXPECTED_SIZE);
+        List<Long> keys = collidingKeys(4);
+        // a key with its home slot right after that of the colliding keys, so it is displaced by them
+        long neighbour = keyWithSlot((slot(keys.get(0)) + 1) % TABLE_SIZE);
+        keys.forEach(key -> map.put(key, "value" + key));
+        map.put(neighbour, "neighbour");
+
+        // remove from the start, the middle and the end of the chain
+        assertEquals("value" + keys.get(0), map.remove(keys.get(0)));
+        assertEquals("value" + keys.get(2), map.remove(keys.get(2)));
+        assertNull(map.remove(keys.get(2)));
+
+        assertNull(map.get(keys.get(0)));
+        assertNull(map.get(keys.get(2)));
+        assertEquals("value" + keys.get(1), map.get(keys.get(1)));
+        assertEquals("value" + keys.get(3), map.get(keys.get(3)));
+        assertEquals("neighbour", map.get(neighbour));
+        assertEquals(3, map.size());
+
+        assertEquals("value" + keys.get(3), map.remove(keys.get(3)));
+        assertEquals("neighbour", map.get(neighbour));
+        assertEquals("value" + keys.get(1), map.get(keys.get(1)));
+    }
+
+    @Test
+    void shouldGrowBeyondTheExpectedSize() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(1);
+        for (long key = 0; key < 10_000; key++) {
+            map.put(key * 31, key);
+        }
+
+        assertEquals(10_000, map.size());
+        for (long key = 0; key < 10_000; key++) {
+            assertEquals(Long.valueOf(key), map.get(key * 31));
+        }
+        assertEquals(10_000, map.values().size());
+    }
+
+    @Test
+    void shouldForgetAllEntriesOnClear() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        map.put(1L, "one");
+        map.put(2L, "two");
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+        assertTrue(map.values().isEmpty());
+        assertNull(map.put(1L, "one"));
+    }
+
+    /**
+     * Runs random operations on a small key range, so there are lots of collisions, removals from the middle of a
+     * probe chain and resizes, and compares the outcome with a HashMap.
+     */
+    @Test
+    void shouldBehaveLikeAHashMap() {
+        Random random = new Random(42);
+        LongObjectHashMap<Integer> map = new LongObjectHashMap<>(1);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(256);
+            int value = random.nextInt();
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                case 1:
+                    assertEquals(expected.putIfAbsent(key, value), map.putIfAbsent(key, value));
+                    break;
+                default:
+                    assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (long key = 0; key < 256; key++) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        assertEquals(expected.values().stream().sorted().collect(Collectors.toList()),
+                map.values().stream().sorted().collect(Collectors.toList()));
+    }
+
+    private static List<Long> collidingKeys(int count) {
+        List<Long> keys = new ArrayList<>();
+        int home = slot(1L);
+        for (long key = 1; keys.size() < count; key++) {
+            if (slot(key) == home) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static long keyWithSlot(int slot) {
+        long key = 1;
+        while (slot(key) != slot) {
+            key++;
+        }
+        return key;
+    }
+
+    /**
+     * The home slot of a key in a table of 16 slots, the same spread as the map uses.
+     */
+    private static int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (TABLE_SIZE - 1);
+    }
+}
@@ -0,0 +1,432 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.domain.api.Person;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the mutations of the in-memory person store, so the lightweight modules survive a restart
+ * without a database. Every mutation is logged before it is applied to the store and is replayed when the store is
+ * (re)loaded.
+ *
+ * Mutations are first collected in an in-memory batch. Writing that batch to the file (and the fsync) is done by
+ * whichever caller needs it first, while holding the flush lock. All callers that appended to the batch in the
+ * meantime wait for that lock, find their mutation has already been written and return. So many concurrent writers
+ * share one fsync (group commit).
+ *
+ * When writing a batch or its fsync fails, every caller of that batch gets the failure and the batch is cut off the
+ * log again, so a mutation that was reported as failed is not replayed. After a failed fsync we can no longer tell
+ * what did reach the disk, so the log refuses all further mutations. Only when cutting off fails as well, a mutation
+ * that was reported as failed may still be replayed. With the INTERVAL policy nobody waits for the batch, so a batch
+ * that failed to be written is kept and retried on the next interval instead, and a batch that failed to be fsynced
+ * is left in the log.
+ *
+ * Record format (big endian): length of the payload (int), CRC32 of the payload (int) and the payload: the type of
+ * mutation (byte), the id (long) and for a put the UTF-8 encoded first name and last name, each preceded by its
+ * length (int, -1 for null). A torn record at the end of the log, as example after a crash, is ignored and cut off.
+ *
+ * Replaying is idempotent: a put stores the person whether it exists or not and a delete removes it if present. So
+ * a log can be replayed on top of a snapshot that already contains some of its mutations, and the log can be emptied
+ * once a snapshot of the store has been written (see truncate).
+ */
+public class PersonWriteAheadLog implements Closeable {
+    private static final String PATH_PROPERTY = "persons.wal";
+    private static final String FSYNC_PROPERTY = "persons.wal.fsync";
+    private static final String INTERVAL_PROPERTY = "persons.wal.interval";
+    private static final long DEFAULT_INTERVAL_MILLIS = 10;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int NULL_LENGTH = -1;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * When a mutation is guaranteed to be durable.
+     */
+    public enum FsyncPolicy {
+        /** the mutation is written and fsynced before the call returns, concurrent callers share the fsync */
+        ALWAYS,
+        /** the mutation is written to the file before the call returns, the OS decides when it reaches the disk */
+        NEVER,
+        /** the mutation is written and fsynced in the background, a crash may lose the mutations of the last interval */
+        INTERVAL
+    }
+
+    public interface Replayer {
+        void put(Person person);
+        void delete(long id);
+    }
+
+    /**
+     * The mutations that are written to the file together, the callers that appended to it share its outcome.
+     */
+    private static final class Batch {
+        private final ByteArrayOutputStream records;
+        private volatile boolean done;
+        private volatile IOException failure;
+
+        private Batch(int size) {
+            records = new ByteArrayOutputStream(size);
+        }
+    }
+
+    private final FsyncPolicy policy;
+    private final FileChannel channel;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler;
+
+    private Batch pending = new Batch(32);
+    // the end of the last batch that was written completely, the next batch is written from here
+    private volatile long position;
+    private volatile IOException broken;
+
+    public PersonWriteAheadLog(Path file, FsyncPolicy policy, long intervalMillis) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE),
+                policy, intervalMillis);
+    }
+
+    PersonWriteAheadLog(FileChannel channel, FsyncPolicy policy, long intervalMillis) throws IOException {
+        this.policy = policy;
+        this.channel = channel;
+        this.position = channel.size();
+
+        if (policy == FsyncPolicy.INTERVAL) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "person-wal-fsync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Opens the log configured with the system properties 'persons.wal' (path), 'persons.wal.fsync' (ALWAYS, NEVER or
+     * INTERVAL, default ALWAYS) and 'persons.wal.interval' (milliseconds, default 10), or returns null if no log is
+     * configured.
+     */
+    public static PersonWriteAheadLog fromSystemProperties() {
+        String path = System.getProperty(PATH_PROPERTY);
+        if (path == null) {
+            return null;
+        }
+
+        FsyncPolicy policy = FsyncPolicy.valueOf(System.getProperty(FSYNC_PROPERTY, FsyncPolicy.ALWAYS.name()));
+        long interval = Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_MILLIS);
+        try {
+            return new PersonWriteAheadLog(Paths.get(path), policy, interval);
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to open person write-ahead log " + path, e);
+        }
+    }
+
+    /**
+     * Logs a put of the person and returns once it is as durable as the fsync policy promises. Call this while
+     * holding the lock that orders the mutations of this person in the store, and apply the mutation to the store
+     * only when this returns normally, so the store and the log agree.
+     */
+    public void put(Person person) throws IOException {
+        byte[] firstName = encode(person.getFirstName());
+        byte[] lastName = encode(person.getLastName());
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES + 2 * Integer.BYTES + length(firstName) + length(lastName));
+        payload.put(PUT).putLong(person.getId());
+        putString(payload, firstName);
+        putString(payload, lastName);
+
+        awaitDurable(append(payload.array()));
+    }
+
+    /**
+     * Logs a delete of the person, see put.
+     */
+    public void delete(long id) throws IOException {
+        awaitDurable(append(ByteBuffer.allocate(1 + Long.BYTES).put(DELETE).putLong(id).array()));
+    }
+
+    /**
+     * The number of bytes written to the log.
+     */
+    public long size() {
+        return position;
+    }
+
+    /**
+     * Replays all complete records in the log, in order, and cuts off a torn record at the end. The log is read as a
+     * stream, so its size is not limited by what can be mapped at once.
+     *
+     * @return the number of replayed mutations
+     */
+    public long replay(Replayer replayer) throws IOException {
+        flushLock.lock();
+        try {
+            flush(true);
+
+            long size = channel.size();
+            // not closed, that would close the channel
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel.position(0)), READ_BUFFER_SIZE));
+
+            long end = 0;
+            long count = 0;
+            while (size - end >= RECORD_HEADER_SIZE) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > size - end - RECORD_HEADER_SIZE) {
+                    break;
+                }
+
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                if (checksum != checksum(ByteBuffer.wrap(payload))) {
+                    break;
+                }
+
+                apply(ByteBuffer.wrap(payload), replayer);
+                end += RECORD_HEADER_SIZE + length;
+                count++;
+            }
+
+            channel.truncate(end);
+            position = end;
+            return count;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Empties the log, including the mutations that have not been written yet. Only call this when the store is not
+     * being changed and a snapshot holding all mutations so far has been written, see HardCodedPersonDAO.checkpoint.
+     */
+    public void truncate() throws IOException {
+        flushLock.lock();
+        try {
+            takePending().done = true;
+
+            channel.truncate(0);
+            channel.force(false);
+            position = 0;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+
+        try {
+            flush(true);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private synchronized Batch append(byte[] payload) {
+        DataOutputStream out = new DataOutputStream(pending.records);
+        try {
+            out.writeInt(payload.length);
+            out.writeInt(checksum(ByteBuffer.wrap(payload)));
+            out.write(payload);
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+
+        return pending;
+    }
+
+    private synchronized Batch takePending() {
+        Batch result = pending;
+        pending = new Batch(Math.max(32, result.records.size()));
+        return result;
+    }
+
+    private void awaitDurable(Batch batch) throws IOException {
+        if (policy == FsyncPolicy.INTERVAL) {
+            return;
+        }
+
+        flushLock.lock();
+        try {
+            // a batch that is not done yet is still the pending one, others may only take it while holding the lock
+            if (!batch.done) {
+                flush(policy == FsyncPolicy.ALWAYS);
+            }
+        } catch (IOException e) {
+            // it is the failure of the batch
+        } finally {
+            flushLock.unlock();
+        }
+
+        if (batch.failure != null) {
+            throw new IOException("unable to write to the person write-ahead log", batch.failure);
+        }
+    }
+
+    /**
+     * Writes everything that has been appended so far, optionally followed by an fsync. Callers that arrive while
+     * another caller is flushing wait, and usually find their mutations have been written by that caller.
+     */
+    private void flush(boolean force) throws IOException {
+        flushLock.lock();
+        try {
+            Batch batch = takePending();
+            if (batch.records.size() == 0) {
+                batch.done = true;
+                return;
+            }
+
+            try {
+                write(batch, force);
+            } catch (IOException e) {
+                if (policy == FsyncPolicy.INTERVAL && broken == null) {
+                    restorePending(batch);
+                } else {
+                    batch.failure = e;
+                    batch.done = true;
+                }
+                throw e;
+            }
+
+            batch.done = true;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(Batch batch, boolean force) throws IOException {
+        if (broken != null) {
+            throw new IOException("the person write-ahead log is unusable after an earlier failure", broken);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(batch.records.toByteArray());
+        long end = position;
+        try {
+            while (buffer.hasRemaining()) {
+                end += channel.write(buffer, end);
+            }
+        } catch (IOException e) {
+            cutOff(e);
+            throw e;
+        }
+
+        if (force) {
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                // the callers are told the batch failed, so it should not be replayed (unless nobody is told)
+                if (policy != FsyncPolicy.INTERVAL) {
+                    cutOff(e);
+                }
+                // we do not know what reached the disk, so we can no longer promise anything
+                broken = e;
+                throw e;
+            }
+        }
+
+        position = end;
+    }
+
+    /**
+     * Removes what was written of a failed batch, so it is not replayed. Best effort: when that fails as well, the log
+     * is unusable.
+     */
+    private void cutOff(IOException failure) {
+        try {
+            channel.truncate(position);
+            channel.force(false);
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+            broken = failure;
+        }
+    }
+
+    /**
+     * Puts a batch that could not be written back in front of the mutations appended since, so it is retried.
+     */
+    private synchronized void restorePending(Batch batch) {
+        batch.records.write(pending.records.toByteArray(), 0, pending.records.size());
+        pending = batch;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush(true);
+        } catch (IOException e) {
+            // the batch has been restored and will be retried on the next interval
+        }
+    }
+
+    private static void apply(ByteBuffer payload, Replayer replayer) throws IOException {
+        byte type = payload.get();
+        long id = payload.getLong();
+
+        if (type == PUT) {
+            String firstName = getString(payload);
+            String lastName = getString(payload);
+            replayer.put(new Person(id, firstName, lastName));
+        } else if (type == DELETE) {
+            replayer.delete(id);
+        } else {
+            throw new IOException("unknown mutation type " + type + " in person write-ahead log");
+        }
+    }
+
+    private static int checksum(ByteBuffer bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,20 @@
+package com.abnamro.examples.jaxrs.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the maximum request size in bytes the RestrictRequestSizeRequestFilter allows for a resource method. Use
+ * UNLIMITED for resources that process their body as a stream, like a bulk import. This is the only way to allow a
+ * body above the ceiling of the RestrictRequestSizePreMatchingFilter. The limit also applies to bodies without a
+ * Content-Length, those are cut off with a 413 as soon as they cross it.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface MaxRequestSize {
+    long UNLIMITED = -1;
+
+    long value();
+}
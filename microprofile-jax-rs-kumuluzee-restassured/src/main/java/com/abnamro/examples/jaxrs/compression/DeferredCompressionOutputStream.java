@@ -0,0 +1,73 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Buffers the first bytes written to it and only starts compressing once more than the threshold has been written.
+ * Smaller bodies are written as they are when the stream is closed, since compressing them costs more CPU than it
+ * saves in bytes, and a gzip header and trailer may even make them larger.
+ *
+ * Nothing is written to the underlying stream before the decision is made, so the response headers can still be
+ * changed in the Compressor, as example to add the Content-Encoding header.
+ */
+public class DeferredCompressionOutputStream extends OutputStream {
+
+    /**
+     * Called once, when the body turns out to be larger than the threshold.
+     */
+    public interface Compressor {
+        OutputStream compress(OutputStream out) throws IOException;
+    }
+
+    private final OutputStream out;
+    private final Compressor compressor;
+    private final byte[] buffer;
+    private int count;
+    private OutputStream target;
+
+    public DeferredCompressionOutputStream(OutputStream out, int threshold, Compressor compressor) {
+        this.out = out;
+        this.compressor = compressor;
+        this.buffer = new byte[Math.max(threshold, 0)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (target == null && count + len <= buffer.length) {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+            return;
+        }
+
+        if (target == null) {
+            target = compressor.compress(out);
+            target.write(buffer, 0, count);
+        }
+        target.write(b, off, len);
+    }
+
+    /**
+     * Only flushes once we know whether we compress, flushing the underlying stream would commit the headers.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (target != null) {
+            target.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (target == null) {
+            target = out;
+            target.write(buffer, 0, count);
+        }
+        target.close();
+    }
+}
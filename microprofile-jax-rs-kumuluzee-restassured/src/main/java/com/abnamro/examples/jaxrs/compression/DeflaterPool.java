@@ -0,0 +1,88 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+/**
+ * Bounded pool of Deflaters, together with the buffer their output is written to.
+ *
+ * Every Deflater holds native memory (about 256KB for the default settings), which is only released when it is ended
+ * or, much later, when the garbage collector gets to it. Creating one per compressed response therefore churns
+ * native memory under load. The pool hands out idle Deflaters and creates a new one when there is none, so a burst of
+ * requests is never blocked. Returned Deflaters are reset and kept until the pool is full, the rest are ended.
+ *
+ * The compression level and the size of the pool can be set with the system properties 'compression.level' (0 to 9,
+ * default 6) and 'compression.pool.size' (default twice the number of processors).
+ */
+public final class DeflaterPool {
+    private static final String LEVEL_PROPERTY = "compression.level";
+    private static final String SIZE_PROPERTY = "compression.pool.size";
+    private static final int DEFAULT_LEVEL = 6;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int level;
+    private final boolean nowrap;
+    private final BlockingQueue<PooledDeflater> idle;
+
+    /**
+     * @param level the compression level, from Deflater.NO_COMPRESSION to Deflater.BEST_COMPRESSION
+     * @param nowrap true for raw deflate data without the zlib header and checksum, as used inside gzip
+     * @param size the maximum number of idle Deflaters kept
+     */
+    public DeflaterPool(int level, boolean nowrap, int size) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("compression level should be between 0 and 9");
+        }
+
+        this.level = level;
+        this.nowrap = nowrap;
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * Creates a pool configured with the system properties 'compression.level' and 'compression.pool.size'.
+     */
+    public static DeflaterPool fromSystemProperties(boolean nowrap) {
+        int level = Integer.getInteger(LEVEL_PROPERTY, DEFAULT_LEVEL);
+        int size = Integer.getInteger(SIZE_PROPERTY, 2 * Runtime.getRuntime().availableProcessors());
+        return new DeflaterPool(level, nowrap, size);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public PooledDeflater borrow() {
+        PooledDeflater result = idle.poll();
+        return result == null ? new PooledDeflater(new Deflater(level, nowrap), new byte[BUFFER_SIZE]) : result;
+    }
+
+    /**
+     * Takes back a Deflater, whatever the state it is in. Do not use it after returning it.
+     */
+    public void release(PooledDeflater deflater) {
+        deflater.getDeflater().reset();
+        if (!idle.offer(deflater)) {
+            deflater.getDeflater().end();
+        }
+    }
+
+    public static final class PooledDeflater {
+        private final Deflater deflater;
+        private final byte[] buffer;
+
+        private PooledDeflater(Deflater deflater, byte[] buffer) {
+            this.deflater = deflater;
+            this.buffer = buffer;
+        }
+
+        public Deflater getDeflater() {
+            return deflater;
+        }
+
+        public byte[] getBuffer() {
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.abnamro.examples.jaxrs.exceptionhandling;
+
+import com.abnamro.examples.domain.api.ErrorResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+/**
+ * Serialized error response of one kind of exception with a fixed message, as example 'person does not exist'. When
+ * clients keep asking for ids that do not exist we serialize that ErrorResponse once instead of for every response.
+ * The bytes are handed to the JAX-RS runtime, which writes them as they are.
+ *
+ * Every exception mapper of such a kind has a cache of its own, so the exception type is the key, and it only keeps the
+ * body of the first message it is asked for. A response with another message is serialized every time, as is the
+ * response to an exception with a cause, since the message of the cause ends up in it (see toUncachedResponse). Errors
+ * whose messages carry data, like the 500s of the DefaultExceptionHandler, do not use a cache at all.
+ */
+final class ErrorResponseCache {
+    private static final ObjectWriter ERROR_WRITER = new ObjectMapper().writerFor(ErrorResponse.class);
+
+    private final Response.Status status;
+    private volatile Body cached;
+
+    ErrorResponseCache(Response.Status status) {
+        this.status = status;
+    }
+
+    Response toResponse(String message) {
+        Body body = cached;
+        if (body == null || !body.message.equals(message)) {
+            if (body != null || message == null) {
+                return toUncachedResponse(message);
+            }
+            // threads racing with the first message may each keep theirs, the last one stays
+            body = new Body(message, serialize(message));
+            cached = body;
+        }
+        return response(body.json);
+    }
+
+    Response toUncachedResponse(String message) {
+        return response(serialize(message));
+    }
+
+    private Response response(byte[] json) {
+        return Response.status(status)
+                .entity(json)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .build();
+    }
+
+    private byte[] serialize(String message) {
+        try {
+            return ERROR_WRITER.writeValueAsBytes(new ErrorResponse(status.name(), message));
+        } catch (JsonProcessingException e) {
+            // two strings always serialize
+            throw new IllegalStateException("unable to serialize error response", e);
+        }
+    }
+
+    private static final class Body {
+        private final String message;
+        private final byte[] json;
+
+        private Body(String message, byte[] json) {
+            this.message = message;
+            this.json = json;
+        }
+    }
+}
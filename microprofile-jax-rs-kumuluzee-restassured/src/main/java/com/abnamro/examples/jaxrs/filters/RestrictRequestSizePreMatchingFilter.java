@@ -0,0 +1,35 @@
+package com.abnamro.examples.jaxrs.filters;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Puts a ceiling on the size of every request body, before the resource is matched. Pre-matching filters are executed
+ * before JAX-RS looks up the resource method, so the ceiling also holds for requests that never reach a resource
+ * method with a limit of its own.
+ *
+ * Every body is wrapped in a SizeLimitedInputStream, that aborts reading with a 413 as soon as the ceiling is crossed,
+ * so chunked bodies are limited as well. The RestrictRequestSizeRequestFilter replaces the ceiling with the limit of
+ * the matched resource method. Only a method that is explicitly annotated with @MaxRequestSize, like the bulk import
+ * with UNLIMITED, gets a limit above the ceiling. That is also why we do not reject a Content-Length above the
+ * ceiling here: we do not know yet whether the resource method opted out, the filter after matching checks it.
+ *
+ * The ceiling is configured with the system property 'request.size.ceiling' (bytes, default 1 MB).
+ */
+@Provider
+@PreMatching
+public class RestrictRequestSizePreMatchingFilter implements ContainerRequestFilter {
+    static final String LIMITED_STREAM_PROPERTY = SizeLimitedInputStream.class.getName();
+
+    private static final String CEILING_PROPERTY = "request.size.ceiling";
+    private static final long CEILING = Long.getLong(CEILING_PROPERTY, 1024 * 1024);
+
+    @Override
+    public void filter(ContainerRequestContext context) {
+        SizeLimitedInputStream body = new SizeLimitedInputStream(context.getEntityStream(), CEILING);
+        context.setEntityStream(body);
+        context.setProperty(LIMITED_STREAM_PROPERTY, body);
+    }
+}
@@ -1,28 +1,54 @@
 package com.abnamro.examples.jaxrs.filters;
 
+import com.abnamro.examples.jaxrs.annotations.ResourceMethodAnnotations;
 import com.abnamro.examples.jaxrs.annotations.Status;
 
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
-import java.io.IOException;
-import java.lang.annotation.Annotation;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.core.Response;
 
 /**
  * This filter sets the http response status code if it detects the default 200 will be returned by checking if the API
  * method is annotated with our own implemented @Status annotation. It will then use the http status code given with
  * that annotation. This way we can prevent the use of the response code boilerplate.
+ *
+ * The annotation is looked up once per resource method, when the application is deployed: as a dynamic feature we get
+ * to see every resource method and bind a filter that already holds the status code to the methods with a @Status. So
+ * a response only costs a compare of the status, and methods without a @Status get no filter at all. The lookup also
+ * finds the annotation on the resource interface, the entity annotations of a response only hold the ones of the
+ * implementation.
  */
-@Status
-public class StatusFilter implements ContainerResponseFilter {
+public class StatusFilter implements DynamicFeature {
     @Override
-    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
-        if (responseContext.getStatus() == 200) {
-            for (Annotation annotation : responseContext.getEntityAnnotations()) {
-                if(annotation instanceof Status){
-                    responseContext.setStatus(((Status) annotation).value().getStatusCode());
-                    break;
-                }
+    public void configure(ResourceInfo resourceInfo, FeatureContext context) {
+        Status status = ResourceMethodAnnotations.find(
+                resourceInfo.getResourceClass(), resourceInfo.getResourceMethod(), Status.class);
+
+        if (status != null && status.value() != Response.Status.OK) {
+            context.register(new FixedStatusFilter(status.value().getStatusCode()));
+        }
+    }
+
+    /**
+     * Replaces the default 200 with the status code of the resource method it is bound to.
+     */
+    static final class FixedStatusFilter implements ContainerResponseFilter {
+        private static final int OK = Response.Status.OK.getStatusCode();
+
+        private final int statusCode;
+
+        FixedStatusFilter(int statusCode) {
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+            if (responseContext.getStatus() == OK) {
+                responseContext.setStatus(statusCode);
             }
         }
     }
@@ -0,0 +1,179 @@
+package com.abnamro.examples.jaxrs.streaming;
+
+import com.abnamro.examples.utils.InMemoryLogger;
+
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Follows the log of the InMemoryLogger as server-sent events: an event per statement with the sequence number as id,
+ * a 'dropped' event with the count as data when statements were overwritten before they could be sent, and a comment
+ * as heartbeat while nothing is logged. A reconnecting client continues after its Last-Event-ID.
+ *
+ * Unlike the LogTail a subscriber does not hold a request thread. The resource hands its event sink to a subscription
+ * and returns, and a single dispatcher thread waits for statements to be logged. When one is, or every TICK_MILLIS
+ * for the heartbeats and idle timeouts, it wakes all subscriptions. A woken subscription sends the statements after
+ * its cursor, at most BATCH_SIZE at a time, on a sender thread, and has at most one batch in flight: the next batch is
+ * only read when the previous one has been sent. A slow client only holds a sender thread while its batch is being
+ * written, and falls behind on its own.
+ *
+ * The dispatcher only waits for statements while there are subscriptions, so logging does not signal anyone otherwise.
+ * A subscription ends when sending fails because the client disconnected, or when nothing has been logged for the idle
+ * timeout (see LogTail.idleTimeout).
+ */
+public final class LogEvents {
+    private static final long TICK_MILLIS = 1000;
+
+    private static final Set<Subscription> SUBSCRIPTIONS = ConcurrentHashMap.newKeySet();
+    private static final Object SUBSCRIBED = new Object();
+    private static final ExecutorService SENDERS =
+            Executors.newCachedThreadPool(runnable -> daemon(runnable, "log-events-sender"));
+
+    static {
+        daemon(LogEvents::dispatch, "log-events-dispatcher").start();
+    }
+
+    private LogEvents() {
+    }
+
+    /**
+     * Sends the statements from sequence number 'from' on to the sink, and keeps sending new statements as they are
+     * logged until the client disconnects or nothing has been logged for the idle timeout.
+     */
+    public static void subscribe(SseEventSink sink, Sse sse, long from, long idleTimeoutMillis) {
+        Subscription subscription = new Subscription(sink, sse, from, LogTail.idleTimeout(idleTimeoutMillis));
+        SUBSCRIPTIONS.add(subscription);
+        synchronized (SUBSCRIBED) {
+            SUBSCRIBED.notifyAll();
+        }
+        subscription.wake();
+    }
+
+    static int subscriptions() {
+        return SUBSCRIPTIONS.size();
+    }
+
+    private static void dispatch() {
+        try {
+            while (true) {
+                synchronized (SUBSCRIBED) {
+                    while (SUBSCRIPTIONS.isEmpty()) {
+                        SUBSCRIBED.wait();
+                    }
+                }
+
+                // read before waking, so a statement logged while waking ends the wait right away
+                long next = InMemoryLogger.getNextSequence();
+                for (Subscription subscription : SUBSCRIPTIONS) {
+                    subscription.wake();
+                }
+                InMemoryLogger.awaitStatement(next, TICK_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Subscription {
+        private final SseEventSink sink;
+        private final Sse sse;
+        private final long idleTimeoutMillis;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        // only used while sending, and only one batch is sent at a time
+        private long cursor;
+        private long lastStatement = System.currentTimeMillis();
+        private long lastSend = lastStatement;
+
+        private Subscription(SseEventSink sink, Sse sse, long from, long idleTimeoutMillis) {
+            this.sink = sink;
+            this.sse = sse;
+            this.cursor = from;
+            this.idleTimeoutMillis = idleTimeoutMillis;
+        }
+
+        private void wake() {
+            if (sending.compareAndSet(false, true)) {
+                SENDERS.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                if (sink.isClosed()) {
+                    close();
+                    return;
+                }
+
+                List<InMemoryLogger.Statement> batch = InMemoryLogger.getLogStatements(cursor, LogTail.BATCH_SIZE);
+                long now = System.currentTimeMillis();
+                CompletionStage<?> sent = CompletableFuture.completedFuture(null);
+
+                if (batch.isEmpty()) {
+                    if (now - lastStatement >= idleTimeoutMillis) {
+                        close();
+                        return;
+                    }
+                    if (now - lastSend >= LogTail.HEARTBEAT_INTERVAL_MILLIS) {
+                        sent = sink.send(sse.newEventBuilder().comment("").build());
+                        lastSend = now;
+                    }
+                }
+
+                for (InMemoryLogger.Statement statement : batch) {
+                    if (statement.getSequence() > cursor) {
+                        sink.send(sse.newEventBuilder()
+                                .name("dropped")
+                                .data(String.valueOf(statement.getSequence() - cursor))
+                                .build());
+                    }
+                    sent = sink.send(sse.newEventBuilder()
+                            .id(String.valueOf(statement.getSequence()))
+                            .data(statement.getText())
+                            .build());
+                    cursor = statement.getSequence() + 1;
+                    lastStatement = now;
+                    lastSend = now;
+                }
+
+                long sentUpTo = cursor;
+                sent.whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        close();
+                        return;
+                    }
+                    sending.set(false);
+                    // a wake while sending was skipped, so check for statements logged meanwhile
+                    if (InMemoryLogger.getNextSequence() > sentUpTo) {
+                        wake();
+                    }
+                });
+            } catch (RuntimeException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            SUBSCRIPTIONS.remove(this);
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                // the client is gone already
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.abnamro.examples.jaxrs.streaming;
+
+import com.abnamro.examples.utils.InMemoryLogger;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Follows the log of the InMemoryLogger as newline delimited json: writes the statements from a sequence number on,
+ * and keeps writing new statements as they are logged. A client that lost its connection continues where it left off
+ * by passing the sequence number after the last statement it received. Every line is a json object:
+ *
+ *   {"sequence":n,"statement":"..."}  a statement
+ *   {"sequence":n,"dropped":count}    count statements from n on were overwritten before they could be written
+ *   {"sequence":n,"heartbeat":true}   nothing has been logged, n is the sequence number of the next statement
+ *
+ * A subscriber only keeps a cursor into the log and reads at most BATCH_SIZE statements at a time, so its memory use
+ * is bounded. Every batch is flushed to the client, and that flush blocks while the client does not keep up, so a
+ * slow client slows down its own reads and nothing else.
+ *
+ * A streaming output has a request thread of its own, but while the subscriber is caught up that thread waits for the
+ * next statement to be logged instead of polling for it. The stream ends when the client disconnects or when nothing
+ * has been logged for the idle timeout, so a forgotten subscriber does not keep its thread. While nothing is logged a
+ * heartbeat is written regularly, so we notice a client that went away. Server-sent events do not take a thread per
+ * subscriber, see LogEvents.
+ */
+public class LogTail implements StreamingOutput {
+    public static final long MAX_IDLE_TIMEOUT_MILLIS = 600_000;
+
+    static final int BATCH_SIZE = 256;
+    static final long HEARTBEAT_INTERVAL_MILLIS = 5000;
+
+    private final long from;
+    private final long idleTimeoutMillis;
+
+    /**
+     * @param from              the sequence number of the first statement to write
+     * @param idleTimeoutMillis end the stream when nothing has been logged for this long, at most (and when not
+     *                          positive) MAX_IDLE_TIMEOUT_MILLIS
+     */
+    public LogTail(long from, long idleTimeoutMillis) {
+        this.from = from;
+        this.idleTimeoutMillis = idleTimeout(idleTimeoutMillis);
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        long cursor = from;
+        long lastStatement = System.currentTimeMillis();
+        long lastWrite = lastStatement;
+        while (true) {
+            List<InMemoryLogger.Statement> batch = InMemoryLogger.getLogStatements(cursor, BATCH_SIZE);
+            long now = System.currentTimeMillis();
+
+            if (batch.isEmpty()) {
+                if (now - lastStatement >= idleTimeoutMillis) {
+                    out.flush();
+                    return;
+                }
+                if (now - lastWrite >= HEARTBEAT_INTERVAL_MILLIS) {
+                    out.write("{\"sequence\":" + cursor + ",\"heartbeat\":true}\n");
+                    out.flush();
+                    lastWrite = now;
+                }
+                long wait = Math.min(lastWrite + HEARTBEAT_INTERVAL_MILLIS, lastStatement + idleTimeoutMillis) - now;
+                if (!awaitStatement(cursor, wait)) {
+                    out.flush();
+                    return;
+                }
+                continue;
+            }
+
+            for (InMemoryLogger.Statement statement : batch) {
+                if (statement.getSequence() > cursor) {
+                    out.write("{\"sequence\":" + cursor + ",\"dropped\":" + (statement.getSequence() - cursor) + "}\n");
+                }
+                out.write("{\"sequence\":" + statement.getSequence() + ",\"statement\":\"");
+                out.write(JsonStringEncoder.getInstance().quoteAsString(statement.getText()));
+                out.write("\"}\n");
+                cursor = statement.getSequence() + 1;
+            }
+            out.flush();
+            lastStatement = now;
+            lastWrite = now;
+        }
+    }
+
+    /**
+     * Returns the idle timeout to use for the requested one, subscribers never follow the log forever.
+     */
+    static long idleTimeout(long idleTimeoutMillis) {
+        return idleTimeoutMillis > 0 ? Math.min(idleTimeoutMillis, MAX_IDLE_TIMEOUT_MILLIS) : MAX_IDLE_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * Waits for the statement to be logged or the timeout to pass, returns false when the thread was interrupted.
+     */
+    private static boolean awaitStatement(long sequence, long timeoutMillis) {
+        try {
+            InMemoryLogger.awaitStatement(sequence, timeoutMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.abnamro.examples.utils;
+
+import com.abnamro.examples.aspects.Logger;
+
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+
+/**
+ * Produces the Logger of the Tracer: logs to the file set with the system property 'logger.file' in the background
+ * (see the BatchingLogger), or in memory when no file is set, so the tests can verify what has been logged.
+ *
+ * The container disposes the logger when the application stops, the BatchingLogger then writes the statements that are
+ * still in its queue before its writer stops.
+ */
+@Singleton
+public class LoggerProducer {
+    @Produces
+    @Singleton
+    public Logger logger(InMemoryLogger inMemoryLogger) {
+        BatchingLogger fileLogger = BatchingLogger.fromSystemProperties();
+        return fileLogger == null ? inMemoryLogger : fileLogger;
+    }
+
+    public void close(@Disposes Logger logger) {
+        if (logger instanceof BatchingLogger) {
+            ((BatchingLogger) logger).close();
+        }
+    }
+}
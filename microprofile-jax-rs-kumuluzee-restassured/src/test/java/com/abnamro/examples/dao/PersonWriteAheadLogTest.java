@@ -0,0 +1,198 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.dao.PersonWriteAheadLog.FsyncPolicy;
+import com.abnamro.examples.domain.api.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonWriteAheadLogTest {
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("persons");
+        file = directory.resolve("persons.wal");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        Files.deleteIfExists(file);
+        Files.delete(directory);
+    }
+
+    @Test
+    void shouldReplayThePutsAndDeletesInOrder() throws IOException {
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            log.put(new Person(1L, "Jan", "Jansén"));
+            log.put(new Person(2L, null, "Pietersen"));
+            log.delete(1L);
+            log.put(new Person(2L, "Pieter", null));
+        }
+
+        assertEquals(Arrays.asList("put 1 Jan Jansén", "put 2 null Pietersen", "delete 1", "put 2 Pieter null"),
+                replay());
+    }
+
+    @Test
+    void shouldCutOffATornRecordAndAppendAfterTheLastCompleteRecord() throws IOException {
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            log.put(new Person(1L, "Jan", "Janssen"));
+            log.put(new Person(2L, "Pieter", "Pietersen"));
+        }
+        long size = Files.size(file);
+        // the start of a record that was being written during a crash
+        Files.write(file, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            assertEquals(2, log.replay(new Recorder()));
+            assertEquals(size, log.size());
+            assertEquals(size, Files.size(file));
+
+            log.put(new Person(3L, "Erik", "Eriksen"));
+        }
+
+        assertEquals(Arrays.asList("put 1 Jan Janssen", "put 2 Pieter Pietersen", "put 3 Erik Eriksen"), replay());
+    }
+
+    @Test
+    void shouldStopReplayingAtACorruptRecord() throws IOException {
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            log.put(new Person(1L, "Jan", "Janssen"));
+            log.put(new Person(2L, "Pieter", "Pietersen"));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        assertEquals(Collections.singletonList("put 1 Jan Janssen"), replay());
+    }
+
+    @Test
+    void shouldReportAFailedWriteAndNeverReplayIt() throws IOException {
+        FailingFileChannel channel = new FailingFileChannel(file);
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(channel, FsyncPolicy.ALWAYS, 0)) {
+            log.put(new Person(1L, "Jan", "Janssen"));
+            long size = log.size();
+
+            channel.failNextWrite(true);
+            assertThrows(IOException.class, () -> log.put(new Person(2L, "Pieter", "Pietersen")));
+            assertEquals(size, log.size());
+            assertEquals(size, Files.size(file));
+
+            log.put(new Person(3L, "Erik", "Eriksen"));
+        }
+
+        assertEquals(Arrays.asList("put 1 Jan Janssen", "put 3 Erik Eriksen"), replay());
+    }
+
+    @Test
+    void shouldRefuseAllMutationsAfterAFailedFsyncAndNeverReplayTheFailedOne() throws IOException {
+        FailingFileChannel channel = new FailingFileChannel(file);
+        PersonWriteAheadLog log = new PersonWriteAheadLog(channel, FsyncPolicy.ALWAYS, 0);
+        log.put(new Person(1L, "Jan", "Janssen"));
+        long size = log.size();
+
+        channel.failForce(true);
+        assertThrows(IOException.class, () -> log.put(new Person(2L, "Pieter", "Pietersen")));
+        assertEquals(size, Files.size(file));
+        channel.failForce(false);
+        assertThrows(IOException.class, () -> log.delete(1L));
+
+        channel.close();
+        assertEquals(Collections.singletonList("put 1 Jan Janssen"), replay());
+    }
+
+    @Test
+    void shouldRetryAFailedBatchWithTheIntervalPolicy() throws Exception {
+        FailingFileChannel channel = new FailingFileChannel(file);
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(channel, FsyncPolicy.INTERVAL, 1)) {
+            channel.failNextWrite(true);
+            // nobody waits for the batch, so the failure is not reported
+            log.put(new Person(1L, "Jan", "Janssen"));
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while ((channel.failures() == 0 || log.size() == 0) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, channel.failures());
+        }
+
+        assertEquals(Collections.singletonList("put 1 Jan Janssen"), replay());
+    }
+
+    @Test
+    void shouldEmptyTheLogOnTruncate() throws IOException {
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            log.put(new Person(1L, "Jan", "Janssen"));
+
+            log.truncate();
+            assertEquals(0, log.size());
+
+            log.put(new Person(2L, "Pieter", "Pietersen"));
+        }
+
+        assertEquals(Collections.singletonList("put 2 Pieter Pietersen"), replay());
+    }
+
+    @Test
+    void shouldLogTheMutationsOfConcurrentWriters() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 8; writer++) {
+                long firstId = writer * 100L;
+                writers.add(executor.submit(() -> {
+                    for (long id = firstId; id < firstId + 100; id++) {
+                        log.put(new Person(id, "First" + id, "Last" + id));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(800, replay().size());
+    }
+
+    private List<String> replay() throws IOException {
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(file, FsyncPolicy.ALWAYS, 0)) {
+            Recorder recorder = new Recorder();
+            log.replay(recorder);
+            return recorder.mutations;
+        }
+    }
+
+    private static class Recorder implements PersonWriteAheadLog.Replayer {
+        private final List<String> mutations = new ArrayList<>();
+
+        @Override
+        public void put(Person person) {
+            mutations.add("put " + person.getId() + " " + person.getFirstName() + " " + person.getLastName());
+        }
+
+        @Override
+        public void delete(long id) {
+            mutations.add("delete " + id);
+        }
+    }
+}
@@ -1,16 +1,31 @@
 package com.abnamro.examples.jaxrs.resources;
 
+import com.abnamro.examples.aspects.LatencyHistogram;
+import com.abnamro.examples.aspects.Tracer;
 import com.abnamro.examples.domain.api.SafeList;
 import com.abnamro.examples.jaxrs.annotations.Status;
+import com.abnamro.examples.jaxrs.streaming.LogEvents;
+import com.abnamro.examples.jaxrs.streaming.LogTail;
 import com.abnamro.examples.utils.InMemoryLogger;
 
 import javax.inject.Inject;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.sse.Sse;
+import javax.ws.rs.sse.SseEventSink;
+import java.util.Map;
+
+import static com.abnamro.examples.jaxrs.streaming.BulkPersonImport.APPLICATION_NDJSON;
 
 /**
  * Testing with Arquillian the application runs in a different JVM then the test! So in order to verify if
@@ -34,10 +49,54 @@ public class LoggingResource {
         return new SafeList<>(logger.getLogStatements());
     }
 
+    /**
+     * Returns the count, p50, p99, p999 and max latency (in nanoseconds) of every traced method.
+     */
+    @GET
+    @Path("latencies")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, LatencyHistogram.Snapshot> latencies() {
+        return Tracer.latencies();
+    }
+
+    /**
+     * Follows the log as newline delimited json: streams the statements from sequence number 'from' on (default the
+     * statements logged from now on), until the client disconnects or nothing has been logged for 'idle' milliseconds
+     * (default a minute, at most ten). See the LogTail.
+     */
+    @GET
+    @Path("tail")
+    @Produces(APPLICATION_NDJSON)
+    public StreamingOutput tail(@QueryParam("from") Long from,
+                                @QueryParam("idle") @DefaultValue("60000") long idleTimeoutMillis) {
+        return new LogTail(cursor(from, null), idleTimeoutMillis);
+    }
+
+    /**
+     * Follows the log as server-sent events, see tail. A reconnecting client continues after its Last-Event-ID. The
+     * events are sent by the LogEvents, this request thread returns right away.
+     */
+    @GET
+    @Path("tail")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void tailEvents(@Context SseEventSink sink,
+                           @Context Sse sse,
+                           @QueryParam("from") Long from,
+                           @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) Long lastEventId,
+                           @QueryParam("idle") @DefaultValue("60000") long idleTimeoutMillis) {
+        LogEvents.subscribe(sink, sse, cursor(from, lastEventId), idleTimeoutMillis);
+    }
+
     @PUT
     @Status(Response.Status.NO_CONTENT)
     public void reset() {
         logger.reset();
     }
 
+    private static long cursor(Long from, Long lastEventId) {
+        if (lastEventId != null) {
+            return lastEventId + 1;
+        }
+        return from == null ? InMemoryLogger.getNextSequence() : from;
+    }
 }
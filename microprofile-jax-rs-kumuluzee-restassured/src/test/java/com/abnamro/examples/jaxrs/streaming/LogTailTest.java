@@ -0,0 +1,62 @@
+package com.abnamro.examples.jaxrs.streaming;
+
+import com.abnamro.examples.utils.InMemoryLogger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogTailTest {
+    private final InMemoryLogger logger = new InMemoryLogger();
+
+    @BeforeEach
+    void setup() {
+        InMemoryLogger.reset();
+    }
+
+    @Test
+    void shouldWriteTheStatementsFromASequenceNumberAsJsonLines() throws Exception {
+        long first = InMemoryLogger.getNextSequence();
+        logger.debug("Test", "first");
+        logger.debug("Test", "second \"quoted\"");
+
+        assertEquals("{\"sequence\":" + (first + 1) + ",\"statement\":\"Test second \\\"quoted\\\"\"}\n",
+                tail(new LogTail(first + 1, 100)));
+    }
+
+    @Test
+    void shouldWriteAStatementLoggedWhileFollowingAndEndWhenIdle() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            long next = InMemoryLogger.getNextSequence();
+            Future<String> output = executor.submit(() -> tail(new LogTail(next, 500)));
+            Thread.sleep(100);
+            logger.debug("Test", "while following");
+
+            assertEquals("{\"sequence\":" + next + ",\"statement\":\"Test while following\"}\n",
+                    output.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldNeverFollowTheLogForever() {
+        assertEquals(1000, LogTail.idleTimeout(1000));
+        assertEquals(LogTail.MAX_IDLE_TIMEOUT_MILLIS, LogTail.idleTimeout(0));
+        assertEquals(LogTail.MAX_IDLE_TIMEOUT_MILLIS, LogTail.idleTimeout(Long.MAX_VALUE));
+    }
+
+    private static String tail(LogTail tail) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        tail.write(output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
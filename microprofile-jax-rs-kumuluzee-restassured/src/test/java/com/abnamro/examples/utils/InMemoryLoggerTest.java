@@ -0,0 +1,140 @@
+package com.abnamro.examples.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test of the ring buffer of the InMemoryLogger: many threads log at the same time, while another thread
+ * keeps taking snapshots.
+ */
+class InMemoryLoggerTest {
+    private static final int THREADS = 8;
+
+    private final InMemoryLogger logger = new InMemoryLogger();
+
+    @BeforeEach
+    void setup() {
+        InMemoryLogger.reset();
+    }
+
+    @Test
+    void shouldKeepAllStatementsInOrderWhenLoggingConcurrentlyBelowCapacity() throws Exception {
+        int perThread = InMemoryLogger.getCapacity() / THREADS;
+
+        logConcurrently(perThread);
+
+        List<String> statements = InMemoryLogger.getLogStatements();
+        assertEquals(THREADS * perThread, statements.size());
+        assertEquals(0, InMemoryLogger.getDroppedCount());
+        assertLoggedInOrderPerThread(statements, perThread);
+    }
+
+    @Test
+    void shouldOverwriteTheOldestStatementsWhenLoggingConcurrentlyAboveCapacity() throws Exception {
+        int perThread = InMemoryLogger.getCapacity();
+
+        logConcurrently(perThread);
+
+        List<String> statements = InMemoryLogger.getLogStatements();
+        assertEquals(InMemoryLogger.getCapacity(), statements.size());
+        assertEquals((long) THREADS * perThread - InMemoryLogger.getCapacity(), InMemoryLogger.getDroppedCount());
+        assertLoggedInOrderPerThread(statements, perThread);
+    }
+
+    @Test
+    void shouldForgetStatementsOnReset() {
+        logger.debug("Test", "before");
+        InMemoryLogger.reset();
+        logger.debug("Test", "after");
+
+        assertEquals(1, InMemoryLogger.getLogStatements().size());
+        assertEquals("Test after", InMemoryLogger.getLogStatements().get(0));
+    }
+
+    @Test
+    void shouldWakeAReaderWaitingForTheNextStatement() throws Exception {
+        long next = InMemoryLogger.getNextSequence();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> logged = executor.submit(() -> InMemoryLogger.awaitStatement(next, 10_000));
+            logger.debug("Test", "woken");
+
+            assertTrue(logged.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldStopWaitingForTheNextStatementAfterTheTimeout() throws Exception {
+        logger.debug("Test", "logged");
+
+        assertTrue(InMemoryLogger.awaitStatement(InMemoryLogger.getNextSequence() - 1, 0));
+        assertFalse(InMemoryLogger.awaitStatement(InMemoryLogger.getNextSequence(), 50));
+    }
+
+    private void logConcurrently(int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> loggers = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String thread = "thread-" + t;
+                loggers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        logger.debug(thread, Integer.toString(i));
+                    }
+                    return null;
+                }));
+            }
+
+            Future<?> reader = executor.submit(() -> {
+                start.await();
+                while (!loggers.stream().allMatch(Future::isDone)) {
+                    assertLoggedInOrderPerThread(InMemoryLogger.getLogStatements(), perThread);
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> future : loggers) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Every statement must be one that has been logged, and the statements of a thread must be in the order that
+     * thread logged them.
+     */
+    private static void assertLoggedInOrderPerThread(List<String> statements, int perThread) {
+        Map<String, Integer> last = new HashMap<>();
+        for (String statement : statements) {
+            String[] parts = statement.split(" ");
+            assertEquals(2, parts.length, statement);
+            assertTrue(parts[0].startsWith("thread-"), statement);
+
+            int sequence = Integer.parseInt(parts[1]);
+            assertTrue(sequence < perThread, statement);
+
+            Integer previous = last.put(parts[0], sequence);
+            assertTrue(previous == null || previous < sequence, statement);
+        }
+    }
+}
@@ -174,10 +174,11 @@ public class DefaultPersonResourceIT {
     @RunAsClient
     @InSequence(8)
     public void shouldRejectPersistPersonRequestBecauseRequestIsToLarge() {
-        int statusCode = given().when().contentType(ContentType.JSON).body(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)))
-                .post(BASE_API).andReturn().getStatusCode();
+        ErrorResponse errorResponse = given().when().contentType(ContentType.JSON).body(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)))
+                .post(BASE_API).then().statusCode(413).extract().as(ErrorResponse.class);
 
-        assertThat(statusCode).isEqualTo(400);
+        assertThat(errorResponse.getCode()).isEqualTo("REQUEST_ENTITY_TOO_LARGE");
+        assertThat(errorResponse.getMessage()).isEqualTo("the request body is larger than the allowed 1024 bytes");
 
         // we don't even enter the method so tracer will record nothing
         SafeList<String> logEntries = given().when().get(BASE_API_LOG)
@@ -203,7 +204,7 @@ public class DefaultPersonResourceIT {
         Response response = given().when().contentType(ContentType.JSON).body(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)))
                 .post(BASE_API).andReturn();
 
-        assertThat(response.getStatusCode()).isEqualTo(400);
+        assertThat(response.getStatusCode()).isEqualTo(413);
         assertThat(response.getHeader(AddCustomHeaderResponseFilter.CUSTOM_HEADER)).isEqualTo(AddCustomHeaderResponseFilter.CUSTOM_HEADER_VALUE);
     }
 
@@ -224,10 +225,10 @@ public class DefaultPersonResourceIT {
     @RunAsClient
     @InSequence(12)
     public void shouldTriggerInterceptorToReplaceUnacceptableLastName() {
-        Person person = given().when().contentType(ContentType.JSON).body(new Person(5L, "John", "Asshole")).post(BASE_API).as(Person.class);
+        Person person = given().when().contentType(ContentType.JSON).body(new Person(6L, "John", "Asshole")).post(BASE_API).as(Person.class);
 
         assertThat(person).isNotNull();
-        assertThat(person).isEqualTo(new Person(5l, "John", "A***e"));
+        assertThat(person).isEqualTo(new Person(6l, "John", "A***e"));
     }
 
 
@@ -0,0 +1,130 @@
+package com.abnamro.examples.aspects;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, in the spirit of the HdrHistogram: values are counted in buckets
+ * whose width grows with the value, so every value is recorded with a relative error of less than 1% (128 buckets per
+ * power of two) while the whole range of latencies we are interested in fits in a fixed array.
+ *
+ * Recording a value is an increment of one element of an AtomicLongArray, so concurrent callers never block each
+ * other and recording does not allocate. Percentiles are computed from a snapshot of the counts, that snapshot is not
+ * atomic but the counts only grow, so at worst it misses the values recorded while it is being taken.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // values below 2^48 ns (about 78 hours), larger values are counted in the last bucket
+    private static final int MAX_SHIFT = 40;
+    private static final int BUCKETS = SUB_BUCKETS * (MAX_SHIFT + 2);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(indexOf(value));
+
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        return new Snapshot(snapshot, count, max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = Math.min(63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS, MAX_SHIFT);
+        int subBucket = (int) Math.min(value >>> shift, 2 * SUB_BUCKETS - 1) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the highest value that is counted in the bucket.
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket) << shift) + (1L << shift) - 1;
+    }
+
+    /**
+     * The counts of a histogram at one point in time, with the percentiles we usually look at as properties, so a
+     * snapshot can be returned as json.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50() {
+            return valueAtPercentile(50.0);
+        }
+
+        public long getP99() {
+            return valueAtPercentile(99.0);
+        }
+
+        public long getP999() {
+            return valueAtPercentile(99.9);
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Returns the value (in nanoseconds) that the given percentage of the recorded values does not exceed, or 0 if
+         * no values have been recorded.
+         */
+        public long valueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    // the last bucket has no upper bound, the max is the best estimate we have
+                    return i == counts.length - 1 ? max : Math.min(highestValueOf(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d p50=%dns p99=%dns p999=%dns max=%dns",
+                    count, getP50(), getP99(), getP999(), max);
+        }
+    }
+}
@@ -6,15 +6,55 @@ import com.abnamro.examples.dao.exceptions.PersonDoesNotExistException;
 import com.abnamro.examples.domain.api.Person;
 
 import javax.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of a person-finder that has no runtime dependencies and that we can control for test purposes.
  *
+ * The persons are kept in a concurrent map keyed by id, so lookups by id do not depend on the size of the data-set
+ * and concurrent writes do not corrupt the state. A secondary index on last name maps every last name onto the sorted
+ * ids of the persons having that last name, and a sorted view holds the persons in id order. So we can hand persons
+ * out in id order without sorting them first, and a page that starts after a given id is found by seeking to that id
+ * in the sorted view or set, so every page is as fast as the first one. All changes to a person, and to the index
+ * entries of that person, are done while holding the lock of that person (one of a fixed set of striped locks), so the
+ * maps stay consistent and the write-ahead log gets the mutations of a person in the order they are applied.
+ *
+ * The data-set is static and loaded once, when this class is initialized. The resources may create a DAO per request,
+ * so every instance works on the same data-set and creating one does not throw away the changes made before.
+ *
+ * At startup the data-set can be loaded from a binary snapshot (see PersonSnapshot) instead of the hard coded initial
+ * content, by setting the system property 'persons.snapshot' to the path of the snapshot file. Use writeSnapshot to
+ * create one. Every person of the snapshot is decoded and indexed on load, so this saves the POST per person, but the
+ * load time still grows with the size of the snapshot.
+ *
+ * To make the mutations survive a restart, set the system property 'persons.wal' to the path of a write-ahead log (see
+ * PersonWriteAheadLog). Every add, update and delete is then appended to that log and only applied to the data-set
+ * once it has been logged, so a mutation that fails to be logged fails as a whole. The log is replayed on top of the
+ * initial content when the data-set is reset. When a snapshot is configured as well, the data-set is written to that
+ * snapshot and the log is emptied (a checkpoint) whenever the log has grown beyond 'persons.wal.checkpoint.size'
+ * bytes, default 64MB.
+ *
  * Note that this is NOT an implementation you would use in production :)... it is just here to support the
  * demo!
  */
@@ -27,68 +67,322 @@ public class HardCodedPersonDAO implements PersonDAO<Person> {
             new Person(2L, "Pieter", "Pietersen"),
             new Person(3L, "Erik", "Eriksen"));
 
-    private static List<Person> persons = new ArrayList<>();
+    private static final String SNAPSHOT_PROPERTY = "persons.snapshot";
+    private static final String CHECKPOINT_SIZE_PROPERTY = "persons.wal.checkpoint.size";
+    private static final long DEFAULT_CHECKPOINT_SIZE = 64L * 1024 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    private static final Map<Long, Person> persons = new ConcurrentHashMap<>();
+    private static final ConcurrentNavigableMap<Long, Person> personsInIdOrder = new ConcurrentSkipListMap<>();
+    private static final Map<String, NavigableSet<Long>> personIdsByLastName = new ConcurrentHashMap<>();
+
+    private static final Lock[] personLocks = createPersonLocks();
+    // mutations share it, a checkpoint takes it exclusively so the snapshot and the emptied log agree
+    private static final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private static final AtomicBoolean checkpointing = new AtomicBoolean();
+    private static final long checkpointSize = Long.getLong(CHECKPOINT_SIZE_PROPERTY, DEFAULT_CHECKPOINT_SIZE);
+    private static volatile PersonWriteAheadLog writeAheadLog = PersonWriteAheadLog.fromSystemProperties();
 
-    public HardCodedPersonDAO() {
+    static {
         reset();
     }
 
     @Override
     public List<Person> findAll() {
-        return persons;
+        return new ArrayList<>(personsInIdOrder.values());
     }
 
+    /**
+     * Walks the sorted view, so persons added or removed while streaming may or may not be part of the result.
+     */
     @Override
-    public Person findById(long id) {
-        Optional<Person> optional = persons.stream().filter(person -> person.getId() == id).findFirst();
+    public Stream<Person> streamAll() {
+        return personsInIdOrder.values().stream();
+    }
+
+    @Override
+    public List<Person> findAll(Long afterId, int limit) {
+        NavigableMap<Long, Person> page = afterId == null ? personsInIdOrder : personsInIdOrder.tailMap(afterId, false);
 
-        return optional.orElse(null);
+        return page.values().stream().limit(limit).collect(Collectors.toList());
+    }
 
+    @Override
+    public Person findById(long id) {
+        return persons.get(id);
     }
 
     @Override
     public List<Person> findWithLastName(String lastName) {
-        return persons.stream().filter(person -> person.getLastName().equals(lastName)).collect(Collectors.toList());
+        return findWithLastName(lastName, null, Integer.MAX_VALUE);
     }
 
     @Override
-    public Person add(Person person) throws DataAccessException, PersonAlreadyExistsException {
-        if(exists(person)) {
-            throw new PersonAlreadyExistsException("person already exists");
+    public List<Person> findWithLastName(String lastName, Long afterId, int limit) {
+        NavigableSet<Long> ids = lastName == null ? null : personIdsByLastName.get(lastName);
+        if(ids == null) {
+            return Collections.emptyList();
         }
 
-        persons.add(person);
+        NavigableSet<Long> page = afterId == null ? ids : ids.tailSet(afterId, false);
+
+        return page.stream().map(persons::get).filter(Objects::nonNull).limit(limit).collect(Collectors.toList());
+    }
+
+    @Override
+    public Person add(Person person) throws DataAccessException, PersonAlreadyExistsException {
+        Lock lock = lockPerson(person.getId());
+        try {
+            if(persons.containsKey(person.getId())) {
+                throw new PersonAlreadyExistsException("person already exists");
+            }
+
+            logPut(person);
+            persons.put(person.getId(), index(person));
+        } finally {
+            unlockPerson(lock);
+        }
 
+        checkpointIfLogIsFull();
         return person;
     }
 
     @Override
     public void update(Person person) throws DataAccessException, PersonDoesNotExistException {
-        if(!exists(person)) {
-            throw new PersonDoesNotExistException("person does not exist");
+        Lock lock = lockPerson(person.getId());
+        try {
+            Person current = persons.get(person.getId());
+            if(current == null) {
+                throw new PersonDoesNotExistException("person does not exist");
+            }
+
+            logPut(person);
+            persons.put(person.getId(), reindex(current, new Person(person)));
+        } finally {
+            unlockPerson(lock);
         }
 
-        persons.stream().filter(any -> any.getId() == person.getId()).forEach(
-                item -> {
-                    item.setFirstName(person.getFirstName());
-                    item.setLastName(person.getLastName());
-                }
-        );
+        checkpointIfLogIsFull();
     }
 
     @Override
     public void delete(Long id) {
-        persons.removeIf(person -> person.getId() == id);
+        Lock lock = lockPerson(id);
+        try {
+            Person current = persons.get(id);
+            if(current == null) {
+                return;
+            }
+
+            logDelete(id);
+            persons.remove(id);
+            unindex(current);
+        } catch (DataAccessException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            unlockPerson(lock);
+        }
+
+        checkpointIfLogIsFull();
     }
 
-    private boolean exists(Person person) {
-        return persons.stream().anyMatch(any -> any.getId() == person.getId());
+    /**
+     * Writes the data-set to the snapshot and empties the write-ahead log, so a restart does not replay every mutation
+     * since the log was created. Pass the snapshot that is loaded at startup ('persons.snapshot'), or the mutations in
+     * the log are lost. Mutations wait while the checkpoint runs.
+     */
+    public static void checkpoint(Path snapshot) throws IOException {
+        PersonWriteAheadLog log = writeAheadLog;
+        if(log == null) {
+            throw new IllegalStateException("no write-ahead log configured");
+        }
+
+        checkpointLock.writeLock().lock();
+        try {
+            // the snapshot is durable once written, so a crash in between is harmless: replaying the log on top of
+            // the new snapshot changes nothing
+            writeSnapshot(snapshot);
+            log.truncate();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
     }
 
     /**
-     * We need to ability to reset the state of the data-set to the initial state for test purposes.
+     * Replaces the write-ahead log, for test purposes only. Pass null to stop logging.
+     */
+    static void useWriteAheadLog(PersonWriteAheadLog log) {
+        writeAheadLog = log;
+    }
+
+    private static void checkpointIfLogIsFull() {
+        PersonWriteAheadLog log = writeAheadLog;
+        String snapshot = System.getProperty(SNAPSHOT_PROPERTY);
+        if(log == null || snapshot == null || log.size() < checkpointSize || !checkpointing.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            checkpoint(Paths.get(snapshot));
+        } catch (IOException e) {
+            // the mutations are still in the log, the next mutation tries again
+        } finally {
+            checkpointing.set(false);
+        }
+    }
+
+    private static Lock lockPerson(long id) {
+        checkpointLock.readLock().lock();
+        Lock lock = personLocks[Long.hashCode(id) & (LOCK_STRIPES - 1)];
+        lock.lock();
+        return lock;
+    }
+
+    private static void unlockPerson(Lock lock) {
+        lock.unlock();
+        checkpointLock.readLock().unlock();
+    }
+
+    private static Lock[] createPersonLocks() {
+        Lock[] locks = new Lock[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private static void logPut(Person person) throws DataAccessException {
+        PersonWriteAheadLog log = writeAheadLog;
+        if(log == null) {
+            return;
+        }
+
+        try {
+            log.put(person);
+        } catch (IOException e) {
+            throw new DataAccessException("unable to write to the write-ahead log", e);
+        }
+    }
+
+    private static void logDelete(long id) throws DataAccessException {
+        PersonWriteAheadLog log = writeAheadLog;
+        if(log == null) {
+            return;
+        }
+
+        try {
+            log.delete(id);
+        } catch (IOException e) {
+            throw new DataAccessException("unable to write to the write-ahead log", e);
+        }
+    }
+
+    private static Person index(Person person) {
+        personsInIdOrder.put(person.getId(), person);
+        if(person.getLastName() == null) {
+            return person;
+        }
+
+        personIdsByLastName.compute(person.getLastName(), (lastName, ids) -> {
+            NavigableSet<Long> result = ids == null ? new ConcurrentSkipListSet<>() : ids;
+            result.add(person.getId());
+            return result;
+        });
+
+        return person;
+    }
+
+    private static void unindex(Person person) {
+        personsInIdOrder.remove(person.getId());
+        if(person.getLastName() == null) {
+            return;
+        }
+
+        personIdsByLastName.computeIfPresent(person.getLastName(), (lastName, ids) -> {
+            ids.remove(person.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Person reindex(Person current, Person updated) {
+        if(Objects.equals(current.getLastName(), updated.getLastName())) {
+            personsInIdOrder.put(updated.getId(), updated);
+        } else {
+            unindex(current);
+            index(updated);
+        }
+
+        return updated;
+    }
+
+    /**
+     * We need to ability to reset the state of the data-set to the initial state for test purposes only, the DAO itself
+     * never calls it after the data-set has been loaded. The initial state
+     * is the snapshot configured with the 'persons.snapshot' system property, or the hard coded initial content,
+     * followed by the mutations in the write-ahead log if one is configured.
      */
     public static void reset() {
-        persons = initialContent.stream().map(Person::new).collect(Collectors.toList());
+        String snapshot = System.getProperty(SNAPSHOT_PROPERTY);
+        if(snapshot != null) {
+            loadSnapshot(Paths.get(snapshot));
+        } else {
+            persons.clear();
+            personsInIdOrder.clear();
+            personIdsByLastName.clear();
+
+            initialContent.stream().map(Person::new).forEach(person -> persons.put(person.getId(), index(person)));
+        }
+
+        if(writeAheadLog != null) {
+            replayWriteAheadLog();
+        }
+    }
+
+    private static void replayWriteAheadLog() {
+        try {
+            writeAheadLog.replay(new PersonWriteAheadLog.Replayer() {
+                @Override
+                public void put(Person person) {
+                    persons.compute(person.getId(), (id, current) -> {
+                        if(current != null) {
+                            unindex(current);
+                        }
+                        return index(person);
+                    });
+                }
+
+                @Override
+                public void delete(long id) {
+                    persons.computeIfPresent(id, (key, current) -> {
+                        unindex(current);
+                        return null;
+                    });
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to replay the write-ahead log", e);
+        }
+    }
+
+    /**
+     * Replaces the current data-set with the persons from the snapshot.
+     */
+    public static void loadSnapshot(Path file) {
+        persons.clear();
+        personsInIdOrder.clear();
+        personIdsByLastName.clear();
+
+        try {
+            PersonSnapshot.read(file, person -> persons.put(person.getId(), index(person)));
+        } catch (IOException e) {
+            throw new IllegalStateException("unable to load person snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Writes the current data-set, ordered by id, to a snapshot that can be loaded at startup.
+     */
+    public static void writeSnapshot(Path file) throws IOException {
+        PersonSnapshot.write(file, new ArrayList<>(personsInIdOrder.values()));
     }
 }
@@ -0,0 +1,44 @@
+package com.abnamro.examples.domain.api;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * The reason a single person of a bulk import was rejected. The index is the position of the person in the imported
+ * body (starting at 0), the id is only present when the person could be parsed.
+ *
+ * Registered for reflection because it is not a return type of a resource, see the ErrorResponse.
+ */
+@RegisterForReflection
+public class BulkImportError {
+    private long index;
+    private Long id;
+    private String code;
+    private String message;
+
+    public BulkImportError() {
+        // only here for (de)serialization frameworks
+    }
+
+    public BulkImportError(long index, Long id, String code, String message) {
+        this.index = index;
+        this.id = id;
+        this.code = code;
+        this.message = message;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,52 @@
+package com.abnamro.examples.domain.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a bulk import: the number of imported and rejected persons and the reasons they were rejected.
+ *
+ * Only the first MAX_REPORTED_ERRORS rejections are reported, so the result stays small when a whole body is rejected.
+ * The errorsTruncated flag tells the client there were more.
+ */
+public class BulkImportResult {
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private long imported;
+    private long rejected;
+    private boolean errorsTruncated;
+    private List<BulkImportError> errors = new ArrayList<>();
+
+    public BulkImportResult() {
+        // also used by (de)serialization frameworks
+    }
+
+    public void imported() {
+        imported++;
+    }
+
+    public void rejected(BulkImportError error) {
+        rejected++;
+        if(errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(error);
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public List<BulkImportError> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,50 @@
+package com.abnamro.examples.jaxrs.annotations;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+/**
+ * Looks up the annotations of a resource method. The JAX-RS annotations of our resources can be placed on the resource
+ * interface instead of the implementation (see the PersonResource) and annotations on interface methods are not
+ * inherited, so we look at the methods of the interfaces as well.
+ */
+public final class ResourceMethodAnnotations {
+    private static final String ERROR_MESSAGE_CONSTRUCTOR = "not allowed to instantiate the resource-method-annotations utility class";
+
+    private ResourceMethodAnnotations() {
+        throw new UnsupportedOperationException(ERROR_MESSAGE_CONSTRUCTOR);
+    }
+
+    /**
+     * Returns the annotation of the method or of the method it implements, or null if neither is annotated.
+     */
+    public static <A extends Annotation> A find(Class<?> resourceClass, Method method, Class<A> annotationType) {
+        if(method == null) {
+            return null;
+        }
+
+        A annotation = method.getAnnotation(annotationType);
+        if(annotation != null || resourceClass == null) {
+            return annotation;
+        }
+
+        for (Class<?> type = resourceClass; type != null; type = type.getSuperclass()) {
+            for (Class<?> anInterface : type.getInterfaces()) {
+                annotation = findOnInterface(anInterface, method, annotationType);
+                if(annotation != null) {
+                    return annotation;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static <A extends Annotation> A findOnInterface(Class<?> anInterface, Method method, Class<A> annotationType) {
+        try {
+            return anInterface.getMethod(method.getName(), method.getParameterTypes()).getAnnotation(annotationType);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
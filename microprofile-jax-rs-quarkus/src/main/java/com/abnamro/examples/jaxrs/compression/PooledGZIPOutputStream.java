@@ -0,0 +1,55 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Drop-in replacement for the GZIPOutputStream, see the PooledDeflaterOutputStream. The pool should hand out raw
+ * (nowrap) Deflaters, this class writes the gzip header and trailer itself.
+ */
+public class PooledGZIPOutputStream extends PooledDeflaterOutputStream {
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b,      // magic number
+            Deflater.DEFLATED,      // compression method
+            0,                      // flags
+            0, 0, 0, 0,             // modification time
+            0,                      // extra flags
+            (byte) 0xff             // operating system: unknown
+    };
+    private static final int TRAILER_SIZE = 8;
+
+    private final CRC32 crc = new CRC32();
+
+    public PooledGZIPOutputStream(OutputStream out, DeflaterPool pool) throws IOException {
+        super(out, pool);
+
+        try {
+            out.write(HEADER);
+        } catch (IOException e) {
+            releaseDeflater();
+            throw e;
+        }
+    }
+
+    @Override
+    protected void beforeDeflate(byte[] b, int off, int len) {
+        crc.update(b, off, len);
+    }
+
+    @Override
+    protected void writeTrailer(Deflater deflater) throws IOException {
+        byte[] trailer = new byte[TRAILER_SIZE];
+        writeIntLittleEndian(trailer, 0, (int) crc.getValue());
+        writeIntLittleEndian(trailer, 4, (int) deflater.getBytesRead());
+        out.write(trailer);
+    }
+
+    private static void writeIntLittleEndian(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >> 8);
+        target[offset + 2] = (byte) (value >> 16);
+        target[offset + 3] = (byte) (value >> 24);
+    }
+}
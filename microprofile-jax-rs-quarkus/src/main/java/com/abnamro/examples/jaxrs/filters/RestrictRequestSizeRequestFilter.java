@@ -1,9 +1,21 @@
 package com.abnamro.examples.jaxrs.filters;
 
+import com.abnamro.examples.jaxrs.annotations.MaxRequestSize;
+import com.abnamro.examples.jaxrs.annotations.ResourceMethodAnnotations;
+
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
-import javax.ws.rs.core.Response;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Example JAX-RS request filter to demonstrate using JAX-RS filters and how to test them in an Jersey unit integration test.
@@ -20,16 +32,71 @@ import javax.ws.rs.ext.Provider;
  * the ClientRequestFilter interface.
  *
  * Note: this filter is executed after the resource has been matched. If you want it to be executed before the resource
- * has been matched then add the @PreMatching annotation to this filter class.
+ * has been matched then add the @PreMatching annotation to this filter class. We need the matched resource, a resource
+ * method can override the maximum request size with @MaxRequestSize. The RestrictRequestSizePreMatchingFilter puts a
+ * ceiling on every body before matching, the default maximum request size can only lower it, an explicit
+ * @MaxRequestSize replaces it (the bulk import opts out of the ceiling with UNLIMITED).
+ *
+ * The Content-Length of a body is only known up front when the client sends it, so we also limit the body while it is
+ * being read (see the SizeLimitedInputStream) and reject it with a 413 as soon as it crosses the limit. The json
+ * provider may wrap the exception of the stream in one of its own, so this class is a reader interceptor as well,
+ * that turns any failure to read a body that is too large back into the 413.
+ *
+ * The default maximum request size is configured with the system property 'request.size.max' (bytes, default 1024).
  */
 @Provider
-public class RestrictRequestSizeRequestFilter implements ContainerRequestFilter {
-    private static int MAX_ALLOWED_REQUEST_SIZE = 1024;
+public class RestrictRequestSizeRequestFilter implements ContainerRequestFilter, ReaderInterceptor {
+    private static final String MAX_SIZE_PROPERTY = "request.size.max";
+    private static final long MAX_ALLOWED_REQUEST_SIZE = Long.getLong(MAX_SIZE_PROPERTY, 1024);
+
+    private static final Map<Method, Optional<MaxRequestSize>> MAX_SIZE_PER_METHOD = new ConcurrentHashMap<>();
+
+    @Context
+    private ResourceInfo resourceInfo;
 
     @Override
     public void filter(ContainerRequestContext context) {
-        if (MAX_ALLOWED_REQUEST_SIZE < context.getLength()) {
-            context.abortWith(Response.status(Response.Status.BAD_REQUEST).build());
+        Optional<MaxRequestSize> maxRequestSize = maxRequestSize();
+        long maxAllowedRequestSize = maxRequestSize.map(MaxRequestSize::value).orElse(MAX_ALLOWED_REQUEST_SIZE);
+        if (maxAllowedRequestSize != MaxRequestSize.UNLIMITED && maxAllowedRequestSize < context.getLength()) {
+            context.abortWith(SizeLimitedInputStream.tooLargeResponse(maxAllowedRequestSize));
+            return;
+        }
+
+        Object body = context.getProperty(RestrictRequestSizePreMatchingFilter.LIMITED_STREAM_PROPERTY);
+        if (body instanceof SizeLimitedInputStream && maxRequestSize.isPresent()) {
+            ((SizeLimitedInputStream) body).liftTo(maxAllowedRequestSize);
+        } else if (body instanceof SizeLimitedInputStream) {
+            ((SizeLimitedInputStream) body).restrictTo(maxAllowedRequestSize);
+        } else if (maxAllowedRequestSize != MaxRequestSize.UNLIMITED) {
+            SizeLimitedInputStream limited = new SizeLimitedInputStream(context.getEntityStream(),
+                    maxAllowedRequestSize);
+            context.setEntityStream(limited);
+            context.setProperty(RestrictRequestSizePreMatchingFilter.LIMITED_STREAM_PROPERTY, limited);
         }
     }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException, WebApplicationException {
+        try {
+            return context.proceed();
+        } catch (IOException | RuntimeException e) {
+            Object body = context.getProperty(RestrictRequestSizePreMatchingFilter.LIMITED_STREAM_PROPERTY);
+            if (body instanceof SizeLimitedInputStream && ((SizeLimitedInputStream) body).isExceeded()) {
+                throw SizeLimitedInputStream.tooLarge(((SizeLimitedInputStream) body).getLimit());
+            }
+            throw e;
+        }
+    }
+
+    private Optional<MaxRequestSize> maxRequestSize() {
+        Method method = resourceInfo == null ? null : resourceInfo.getResourceMethod();
+        if (method == null) {
+            return Optional.empty();
+        }
+
+        // the annotations of a method do not change, so we look them up once
+        return MAX_SIZE_PER_METHOD.computeIfAbsent(method, key -> Optional.ofNullable(
+                ResourceMethodAnnotations.find(resourceInfo.getResourceClass(), key, MaxRequestSize.class)));
+    }
 }
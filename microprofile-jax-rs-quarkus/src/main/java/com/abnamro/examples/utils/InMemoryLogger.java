@@ -2,28 +2,138 @@ package com.abnamro.examples.utils;
 
 import com.abnamro.examples.aspects.Logger;
 
+import javax.enterprise.inject.Typed;
 import javax.inject.Singleton;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Logger that keeps the most recent log statements in memory, so tests can verify what has been logged.
+ *
+ * The statements are kept in a bounded ring buffer that any number of threads can log to without locking: a thread
+ * claims the next sequence number and stores its entry in the slot of that sequence, overwriting the oldest entry
+ * once the buffer is full. The number of statements that have been overwritten, and are no longer returned, is
+ * available as getDroppedCount(). The capacity is set with the system property 'logger.capacity' (rounded up to a
+ * power of two, default 4096).
+ *
+ * The statements are formatted when they are read, so logging itself only allocates the statement.
+ *
+ * This bean is only injected as an InMemoryLogger, as example in the LoggingResource. The Logger of the Tracer is
+ * produced by the LoggerProducer, that hands out this logger unless a log file is configured.
+ */
 @Singleton
+@Typed(InMemoryLogger.class)
 public class InMemoryLogger implements Logger {
     private static final String LOG_STATEMENT_TEMPLATE = "%s %s";
+    private static final String CAPACITY_PROPERTY = "logger.capacity";
+    private static final int DEFAULT_CAPACITY = 4096;
 
-    private static final List<String> LOG_STATEMENTS = new ArrayList<>();
+    private static final AtomicReferenceArray<Statement> ENTRIES = new AtomicReferenceArray<>(capacityFor(
+            Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY)));
+    private static final int MASK = ENTRIES.length() - 1;
+
+    // the sequence number of the next statement
+    private static final AtomicLong NEXT = new AtomicLong();
+    // the sequence number of the first statement after the last reset
+    private static volatile long first;
 
     @Override
     public void debug(final String loggingClassName, final String message) {
-        getLogStatements().add(
-                String.format(LOG_STATEMENT_TEMPLATE, loggingClassName, message)
-        );
+        final long sequence = NEXT.getAndIncrement();
+        final Statement statement = new Statement(sequence, loggingClassName, message);
+        final int slot = (int) sequence & MASK;
+
+        Statement current = ENTRIES.get(slot);
+        // a thread that was preempted after claiming its sequence must not overwrite a newer statement
+        while ((current == null || current.sequence < sequence) && !ENTRIES.compareAndSet(slot, current, statement)) {
+            current = ENTRIES.get(slot);
+        }
     }
 
+    /**
+     * Returns the statements logged since the last reset that have not been overwritten, in the order they were
+     * logged. The result is a snapshot: statements logged while it is taken are either left out entirely, or they
+     * are included together with all statements before them.
+     */
     public static List<String> getLogStatements() {
-        return LOG_STATEMENTS;
+        final List<String> result = new ArrayList<>();
+        for (Statement statement : getLogStatements(first, Integer.MAX_VALUE)) {
+            result.add(statement.getText());
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns at most max statements, starting at the statement with sequence number from, so a reader can follow
+     * the log with a cursor: pass the sequence number of the last statement it received plus one (or getNextSequence()
+     * when there is none) to get the next statements. Statements that were overwritten or logged before the last
+     * reset are skipped, so the sequence numbers of the result may start higher than from or have gaps.
+     */
+    public static List<Statement> getLogStatements(final long from, final int max) {
+        final long end = NEXT.get();
+        final long start = Math.max(Math.min(from, end), Math.max(first, end - ENTRIES.length()));
+
+        final List<Statement> result = new ArrayList<>((int) Math.min(end - start, max));
+        for (long sequence = start; sequence < end && result.size() < max; sequence++) {
+            final Statement statement = ENTRIES.get((int) sequence & MASK);
+            if (statement == null || statement.sequence < sequence) {
+                // claimed but not stored yet, the statements from here on are still being logged
+                break;
+            }
+            if (statement.sequence == sequence) {
+                result.add(statement);
+            }
+            // else overwritten while we were reading, we lost it to a newer statement
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sequence number the next statement will get.
+     */
+    public static long getNextSequence() {
+        return NEXT.get();
+    }
+
+    /**
+     * Returns the number of statements that have been logged since the last reset, but were overwritten.
+     */
+    public static long getDroppedCount() {
+        return Math.max(0, NEXT.get() - first - ENTRIES.length());
+    }
+
+    public static int getCapacity() {
+        return ENTRIES.length();
     }
 
     public static void reset() {
-        getLogStatements().clear();
+        first = NEXT.get();
+    }
+
+    private static int capacityFor(final int capacity) {
+        return Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    }
+
+    public static final class Statement {
+        private final long sequence;
+        private final String loggingClassName;
+        private final String message;
+
+        private Statement(final long sequence, final String loggingClassName, final String message) {
+            this.sequence = sequence;
+            this.loggingClassName = loggingClassName;
+            this.message = message;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public String getText() {
+            return String.format(LOG_STATEMENT_TEMPLATE, loggingClassName, message);
+        }
     }
 }
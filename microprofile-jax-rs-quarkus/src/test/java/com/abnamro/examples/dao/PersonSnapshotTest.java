@@ -0,0 +1,169 @@
+package com.abnamro.examples.dao;
+
+import com.abnamro.examples.domain.api.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonSnapshotTest {
+    private static final int MAGIC = 0x50455253;
+    private static final int VERSION = 1;
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("persons");
+        file = directory.resolve("persons.snapshot");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+
+        HardCodedPersonDAO.reset();
+    }
+
+    @Test
+    void shouldWriteAHeaderFollowedByARecordPerPerson() throws IOException {
+        PersonSnapshot.write(file, Arrays.asList(new Person(1L, "Jan", "Jansén"), new Person(2L, null, "Eriksen")));
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)));
+        assertEquals(MAGIC, in.readInt());
+        assertEquals(VERSION, in.readInt());
+        assertEquals(2L, in.readLong());
+
+        assertEquals(1L, in.readLong());
+        assertEquals("Jan", readString(in));
+        // é takes two bytes in UTF-8
+        assertEquals(7, in.readInt());
+        assertEquals("Jansén", new String(readBytes(in, 7), StandardCharsets.UTF_8));
+
+        assertEquals(2L, in.readLong());
+        assertEquals(-1, in.readInt());
+        assertEquals("Eriksen", readString(in));
+
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void shouldReadThePersonsInTheOrderTheyWereWritten() throws IOException {
+        List<Person> written = new ArrayList<>();
+        for (long id = 1; id <= 1_000; id++) {
+            written.add(new Person(id, id % 7 == 0 ? null : "First" + id, id % 3 == 0 ? "" : "Lâst" + id));
+        }
+        PersonSnapshot.write(file, written);
+
+        List<Person> read = new ArrayList<>();
+        assertEquals(1_000, PersonSnapshot.read(file, read::add));
+
+        assertEquals(describe(written), describe(read));
+        assertFalse(Files.exists(directory.resolve("persons.snapshot.tmp")));
+    }
+
+    @Test
+    void shouldReadAnEmptySnapshot() throws IOException {
+        PersonSnapshot.write(file, Collections.emptyList());
+
+        assertEquals(0, PersonSnapshot.read(file, person -> fail("no persons expected")));
+    }
+
+    @Test
+    void shouldReplaceAnExistingSnapshot() throws IOException {
+        PersonSnapshot.write(file, Arrays.asList(new Person(1L, "Jan", "Janssen"), new Person(2L, "Erik", "Eriksen")));
+        PersonSnapshot.write(file, Collections.singletonList(new Person(3L, "Pieter", "Pietersen")));
+
+        List<Person> read = new ArrayList<>();
+        PersonSnapshot.read(file, read::add);
+
+        assertEquals(Collections.singletonList("3 Pieter Pietersen"), describe(read));
+    }
+
+    @Test
+    void shouldRejectAFileThatIsNotASnapshot() throws IOException {
+        Files.write(file, "this is not a snapshot".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class, () -> PersonSnapshot.read(file, person -> { }));
+
+        Files.write(file, new byte[] {0x50, 0x45});
+        assertThrows(IOException.class, () -> PersonSnapshot.read(file, person -> { }));
+    }
+
+    @Test
+    void shouldRejectAnUnsupportedVersion() throws IOException {
+        PersonSnapshot.write(file, Collections.emptyList());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, VERSION + 1), Integer.BYTES);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> PersonSnapshot.read(file, person -> { }));
+        assertTrue(e.getMessage().contains("version"));
+    }
+
+    @Test
+    void shouldRejectATruncatedSnapshot() throws IOException {
+        PersonSnapshot.write(file, Arrays.asList(new Person(1L, "Jan", "Janssen"), new Person(2L, "Erik", "Eriksen")));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<Person> read = new ArrayList<>();
+        IOException e = assertThrows(IOException.class, () -> PersonSnapshot.read(file, read::add));
+        assertTrue(e.getMessage().contains("truncated"));
+        assertEquals(Collections.singletonList("1 Jan Janssen"), describe(read));
+    }
+
+    @Test
+    void shouldLoadTheDataSetOfTheDAOFromASnapshot() throws Exception {
+        HardCodedPersonDAO dao = new HardCodedPersonDAO();
+        dao.add(new Person(42L, "Jan", "Snapshot"));
+        List<String> expected = describe(dao.findAll());
+        HardCodedPersonDAO.writeSnapshot(file);
+
+        HardCodedPersonDAO.reset();
+        assertNull(dao.findById(42L));
+
+        HardCodedPersonDAO.loadSnapshot(file);
+        assertEquals(expected, describe(dao.findAll()));
+        assertEquals(Collections.singletonList("42 Jan Snapshot"), describe(dao.findWithLastName("Snapshot")));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return new String(readBytes(in, in.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static List<String> describe(List<Person> persons) {
+        return persons.stream()
+                .map(person -> person.getId() + " " + person.getFirstName() + " " + person.getLastName())
+                .collect(Collectors.toList());
+    }
+}
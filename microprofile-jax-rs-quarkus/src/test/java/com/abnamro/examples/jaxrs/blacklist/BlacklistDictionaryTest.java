@@ -0,0 +1,148 @@
+package com.abnamro.examples.jaxrs.blacklist;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlacklistDictionaryTest {
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("blacklist");
+        file = directory.resolve("blacklist.properties");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory.resolve("blacklist.tmp"));
+        Files.delete(directory);
+    }
+
+    @Test
+    void shouldCompileTheFile() throws IOException {
+        write("Janssen=J***n\nÉrik=E***k\n");
+
+        try (BlacklistDictionary dictionary = new BlacklistDictionary(file, 0)) {
+            assertEquals("J***n and E***k", dictionary.replaceAll("Janssen and Érik"));
+            assertEquals(1, dictionary.metrics().getBuilds());
+            assertEquals(2, dictionary.metrics().getTerms());
+        }
+    }
+
+    @Test
+    void shouldOnlyReloadAChangedFile() throws IOException {
+        write("Janssen=J***n\n");
+
+        try (BlacklistDictionary dictionary = new BlacklistDictionary(file, 0)) {
+            Blacklist first = dictionary.current();
+            assertFalse(dictionary.reload());
+            assertSame(first, dictionary.current());
+
+            write("Pietersen=P***n\n");
+            assertTrue(dictionary.reload());
+
+            assertEquals("Janssen P***n", dictionary.replaceAll("Janssen Pietersen"));
+            assertEquals(2, dictionary.metrics().getBuilds());
+            // a request that is using the previous blacklist keeps using it
+            assertEquals("J***n Pietersen", first.replaceAll("Janssen Pietersen"));
+        }
+    }
+
+    @Test
+    void shouldKeepTheCurrentBlacklistWhenTheFileCannotBeCompiled() throws IOException {
+        write("Janssen=J***n\n");
+
+        try (BlacklistDictionary dictionary = new BlacklistDictionary(file, 0)) {
+            Blacklist current = dictionary.current();
+
+            write("Janssen=\\uZZZZ\n");
+            assertThrows(IllegalArgumentException.class, dictionary::reload);
+            assertSame(current, dictionary.current());
+            assertEquals(1, dictionary.metrics().getFailedBuilds());
+
+            Files.delete(file);
+            assertThrows(IOException.class, dictionary::reload);
+            assertSame(current, dictionary.current());
+
+            // the file is compiled once it is fixed
+            write("Janssen=J**n\n");
+            assertTrue(dictionary.reload());
+            assertEquals("J**n", dictionary.replaceAll("Janssen"));
+        }
+    }
+
+    @Test
+    void shouldRejectAFileThatCannotBeReadAtStartUp() {
+        assertThrows(IOException.class, () -> new BlacklistDictionary(file, 0));
+    }
+
+    @Test
+    void shouldReloadInTheBackground() throws Exception {
+        write("Janssen=J***n\n");
+
+        try (BlacklistDictionary dictionary = new BlacklistDictionary(file, 10)) {
+            // replace the file as a whole, so the reload never reads a half written file
+            Path replacement = directory.resolve("blacklist.tmp");
+            Files.write(replacement, "Pietersen=P***n\n".getBytes(StandardCharsets.UTF_8));
+            Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (dictionary.metrics().getBuilds() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertEquals("Janssen P***n", dictionary.replaceAll("Janssen Pietersen"));
+        }
+    }
+
+    @Test
+    void shouldStopReloadingWhenClosed() throws Exception {
+        write("Janssen=J***n\n");
+        BlacklistDictionary dictionary = new BlacklistDictionary(file, 10);
+
+        dictionary.close();
+        write("Pietersen=P***n\n");
+        Thread.sleep(100);
+
+        assertEquals(1, dictionary.metrics().getBuilds());
+        assertEquals("J***n Pietersen", dictionary.replaceAll("Janssen Pietersen"));
+    }
+
+    @Test
+    void shouldNeverReloadAFixedBlacklist() throws IOException {
+        BlacklistDictionary dictionary = BlacklistDictionary.of(Blacklist.defaults());
+
+        assertFalse(dictionary.reload());
+        assertEquals("A***e", dictionary.replaceAll("Asshole"));
+        assertEquals(2, dictionary.metrics().getTerms());
+    }
+
+    @Test
+    void shouldCountTheScansAndMatches() {
+        BlacklistDictionary dictionary = BlacklistDictionary.of(Blacklist.defaults());
+
+        dictionary.replaceAll("Asshole Shitface");
+        dictionary.replaceAll("Janssen");
+
+        BlacklistMetrics metrics = dictionary.metrics();
+        assertEquals(2, metrics.getScans());
+        assertEquals(1, metrics.getScansWithMatches());
+        assertEquals(2, metrics.getMatches());
+        assertEquals(23, metrics.getScannedBytes());
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,101 @@
+package com.abnamro.examples.jaxrs.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredCompressionOutputStreamTest {
+    private static final int THRESHOLD = 1024;
+    private static final byte[] BODY = PooledGZIPOutputStreamTest.body(10_000);
+
+    private final DeflaterPool pool = new DeflaterPool(6, true, 1);
+    private final AtomicInteger compressed = new AtomicInteger();
+
+    @Test
+    void shouldWriteABodyBelowTheThresholdAsItIs() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        try (OutputStream out = new DeferredCompressionOutputStream(target, THRESHOLD, this::gzip)) {
+            out.write(BODY, 0, 1000);
+            out.write(BODY[1000]);
+            out.write(BODY, 1001, 23);
+        }
+
+        assertEquals(0, compressed.get());
+        assertArrayEquals(Arrays.copyOf(BODY, THRESHOLD), target.toByteArray());
+    }
+
+    @Test
+    void shouldCompressABodyAboveTheThreshold() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        try (OutputStream out = new DeferredCompressionOutputStream(target, THRESHOLD, this::gzip)) {
+            out.write(BODY, 0, 1000);
+            out.write(BODY, 1000, BODY.length - 1000);
+        }
+
+        assertEquals(1, compressed.get());
+        assertTrue(target.size() < BODY.length);
+        assertArrayEquals(BODY, gunzip(target.toByteArray()));
+    }
+
+    @Test
+    void shouldCompressWhenTheThresholdIsPassedByASingleByte() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+        try (OutputStream out = new DeferredCompressionOutputStream(target, THRESHOLD, this::gzip)) {
+            out.write(BODY, 0, THRESHOLD);
+            assertEquals(0, compressed.get());
+            out.write(BODY[THRESHOLD]);
+        }
+
+        assertEquals(1, compressed.get());
+        assertArrayEquals(Arrays.copyOf(BODY, THRESHOLD + 1), gunzip(target.toByteArray()));
+    }
+
+    @Test
+    void shouldNotWriteOrFlushAnythingBeforeTheDecision() throws IOException {
+        FlushCountingOutputStream target = new FlushCountingOutputStream();
+
+        OutputStream out = new DeferredCompressionOutputStream(target, THRESHOLD, this::gzip);
+        out.write(BODY, 0, 100);
+        out.flush();
+
+        assertEquals(0, target.size());
+        assertEquals(0, target.flushes);
+
+        out.write(BODY, 100, THRESHOLD);
+        out.flush();
+        assertEquals(1, target.flushes);
+        out.close();
+    }
+
+    private OutputStream gzip(OutputStream out) throws IOException {
+        compressed.incrementAndGet();
+        return new PooledGZIPOutputStream(out, pool);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
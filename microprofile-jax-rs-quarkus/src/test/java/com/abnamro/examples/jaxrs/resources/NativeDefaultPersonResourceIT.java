@@ -94,10 +94,11 @@ class NativeDefaultPersonResourceIT {
 
     @Test
     public void shouldRejectPersistPersonRequestBecauseRequestIsToLarge() {
-        int statusCode = given().when().contentType(ContentType.JSON).body(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)))
-                .post(BASE_API).andReturn().getStatusCode();
+        ErrorResponse errorResponse = given().when().contentType(ContentType.JSON).body(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)))
+                .post(BASE_API).then().statusCode(HttpStatus.SC_REQUEST_TOO_LONG).extract().as(ErrorResponse.class);
 
-        assertEquals(HttpStatus.SC_BAD_REQUEST, statusCode);
+        assertEquals("REQUEST_ENTITY_TOO_LARGE", errorResponse.getCode());
+        assertEquals("the request body is larger than the allowed 1024 bytes", errorResponse.getMessage());
     }
 
     @Test
@@ -114,7 +115,7 @@ class NativeDefaultPersonResourceIT {
         Response response = given().when().contentType(ContentType.JSON).body(new Person(5L, "Despicable", StringUtils.repeat("Ooops", 250)))
                 .post(BASE_API).andReturn();
 
-        assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusCode());
+        assertEquals(HttpStatus.SC_REQUEST_TOO_LONG, response.getStatusCode());
         assertEquals(AddCustomHeaderResponseFilter.CUSTOM_HEADER_VALUE, response.getHeader(AddCustomHeaderResponseFilter.CUSTOM_HEADER));
     }
 
@@ -0,0 +1,111 @@
+package com.example.examples.dao;
+
+import com.example.examples.AvailableProfiles;
+import com.example.examples.BenchmarkApplication;
+import com.example.examples.dao.exceptions.PersonAlreadyExistsException;
+import com.example.examples.dao.exceptions.PersonNotFoundException;
+import com.example.examples.domain.api.Person;
+import com.example.examples.domain.db.PersonEntity;
+import com.example.examples.repositories.PersonEntityRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the latency of adding and updating a person against HSQLDB as the DBPersonDAO did it before, first checking
+ * whether the person exists and then saving it, which merges the detached entity and so selects it once more, with the
+ * DBPersonDAO now, which adds or updates the person with one statement:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="PersonWriteBenchmark"
+ *
+ * The persons are added with a given id, like the clients of our API do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonWriteBenchmark {
+    private static final int PERSONS = 10_000;
+
+    private final AtomicLong nextId = new AtomicLong(1_000_000_000L);
+
+    private ConfigurableApplicationContext context;
+    private PersonEntityRepository repository;
+    private DBPersonDAO dao;
+    private long[] ids;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start("writebenchmarkdb", AvailableProfiles.LOCAL);
+        repository = context.getBean(PersonEntityRepository.class);
+        dao = context.getBean(DBPersonDAO.class);
+
+        List<PersonEntity> persons = new ArrayList<>(PERSONS);
+        for (int i = 0; i < PERSONS; i++) {
+            persons.add(new PersonEntity(null, "First" + i, "Last" + i));
+        }
+        ids = repository.insertAll(persons).stream().mapToLong(PersonEntity::getId).toArray();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Person addBefore() throws PersonAlreadyExistsException {
+        Person person = newPerson();
+        if (repository.existsById(person.getId())) {
+            throw new PersonAlreadyExistsException(person, "person already exists");
+        }
+        return new Person(repository.save(new PersonEntity(person)));
+    }
+
+    @Benchmark
+    public Person addAfter() throws PersonAlreadyExistsException {
+        return dao.add(newPerson());
+    }
+
+    @Benchmark
+    public void updateBefore() throws PersonNotFoundException {
+        Person person = existingPerson();
+        if (!repository.existsById(person.getId())) {
+            throw new PersonNotFoundException(person, "person does not exit");
+        }
+        repository.save(new PersonEntity(person));
+    }
+
+    @Benchmark
+    public void updateAfter() throws PersonNotFoundException {
+        dao.update(existingPerson());
+    }
+
+    private Person newPerson() {
+        return new Person(nextId.getAndIncrement(), "Katy", "Perry");
+    }
+
+    /**
+     * Returns an existing person with a new last name, so the update really changes the row.
+     */
+    private Person existingPerson() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new Person(ids[random.nextInt(ids.length)], "Katy", "Perry" + random.nextInt());
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.examples.hibernate;
+
+import com.example.examples.domain.db.PersonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares getting the given id of an entity as the IdGenerator did it before, looking the getter up and invoking it
+ * reflectively for every insert, with the getter that is looked up once per entity class and kept as a method handle,
+ * and with the typed fast path for our PersonEntity:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="IdGeneratorBenchmark -prof gc"
+ *
+ * An entity with an id is never handed to the hi/lo generator, so no session is needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+    private final IdGenerator generator = new IdGenerator();
+    private final PersonEntity person = new PersonEntity(42L, "Katy", "Perry");
+    private final OtherEntity other = new OtherEntity(42L);
+
+    /**
+     * An entity that is not a PersonEntity, so its id comes from the getter.
+     */
+    public static class OtherEntity {
+        private final Long id;
+
+        public OtherEntity(Long id) {
+            this.id = id;
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+
+    @Benchmark
+    public Serializable reflective() throws NoSuchMethodException, IllegalAccessException, InvocationTargetException {
+        Method getIdMethod = person.getClass().getMethod("getId");
+        return (Serializable) getIdMethod.invoke(person);
+    }
+
+    @Benchmark
+    public Serializable methodHandle() {
+        return generator.generate(null, other);
+    }
+
+    @Benchmark
+    public Serializable personEntity() {
+        return generator.generate(null, person);
+    }
+}
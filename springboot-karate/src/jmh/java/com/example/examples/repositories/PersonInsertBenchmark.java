@@ -0,0 +1,62 @@
+package com.example.examples.repositories;
+
+import com.example.examples.AvailableProfiles;
+import com.example.examples.BenchmarkApplication;
+import com.example.examples.domain.db.PersonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of inserting one person against HSQLDB with an id that is given, which the IdGenerator keeps,
+ * and without an id, which the IdGenerator leaves to the hi/lo generator:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="PersonInsertBenchmark"
+ *
+ * Compare the difference with the IdGeneratorBenchmark to see how much of an insert getting the id costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonInsertBenchmark {
+    private final AtomicLong nextId = new AtomicLong(1_000_000_000L);
+
+    private ConfigurableApplicationContext context;
+    private PersonEntityRepository repository;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start("insertbenchmarkdb", AvailableProfiles.LOCAL);
+        repository = context.getBean(PersonEntityRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PersonEntity givenId() {
+        return repository.insert(new PersonEntity(nextId.getAndIncrement(), "Katy", "Perry"));
+    }
+
+    @Benchmark
+    public PersonEntity generatedId() {
+        return repository.insert(new PersonEntity(null, "Katy", "Perry"));
+    }
+}
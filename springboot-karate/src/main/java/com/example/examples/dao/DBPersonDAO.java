@@ -5,15 +5,25 @@ import com.example.examples.dao.exceptions.PersonNotFoundException;
 import com.example.examples.domain.api.Person;
 import com.example.examples.domain.db.PersonEntity;
 import com.example.examples.repositories.PersonEntityRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Component
 public class DBPersonDAO implements PersonDAO<Person>{
+    // SQL state of a unique constraint (or primary key) violation
+    private static final String DUPLICATE_KEY = "23505";
+
     private final PersonEntityRepository personRepository;
 
     public DBPersonDAO(PersonEntityRepository personRepository) {
@@ -27,6 +37,19 @@ public class DBPersonDAO implements PersonDAO<Person>{
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Person> findAll(Long afterId, int limit) {
+        Pageable firstRows = PageRequest.of(0, limit);
+
+        List<PersonEntity> page = afterId == null
+                ? personRepository.findAllByOrderByIdAsc(firstRows)
+                : personRepository.findByIdGreaterThanOrderByIdAsc(afterId, firstRows);
+
+        return page.stream()
+                .map(Person::new)
+                .collect(Collectors.toList());
+    }
+
     // todo : cleanup - never return null!
     @Override
     public Person findById(long id) {
@@ -46,21 +69,51 @@ public class DBPersonDAO implements PersonDAO<Person>{
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Inserts the person without reading it first. Our id generator keeps a given id, so when a person with that id
+     * already exists the insert fails on the primary key and that is how we find out.
+     */
     @Override
     public Person add(Person person) throws PersonAlreadyExistsException {
-        if(existsById(person.getId())) {
-            throw new PersonAlreadyExistsException(person, "person already exists");
+        try {
+            return new Person(personRepository.insert(new PersonEntity(person)));
+        } catch (DataIntegrityViolationException e) {
+            if(isDuplicateKey(e)) {
+                throw new PersonAlreadyExistsException(person, "person already exists");
+            }
+            throw e;
         }
-        return new Person(personRepository.save(new PersonEntity(person)));
     }
 
+    /**
+     * Inserts the persons in JDBC batches, without reading them first. As with add, a person that already exists is
+     * found by the primary key violation, which rolls back the whole batch. Only then we look up which person it was.
+     */
+    @Override
+    public List<Person> addAll(List<Person> persons) throws PersonAlreadyExistsException {
+        List<PersonEntity> entities = persons.stream().map(PersonEntity::new).collect(Collectors.toList());
+        try {
+            return personRepository.insertAll(entities).stream()
+                    .map(Person::new)
+                    .collect(Collectors.toList());
+        } catch (DataIntegrityViolationException e) {
+            Person existing = isDuplicateKey(e) ? firstWithTakenId(persons) : null;
+            if(existing != null) {
+                throw new PersonAlreadyExistsException(existing, "person already exists");
+            }
+            // not a taken id we can point at, e.g. the person was deleted in the meantime
+            throw e;
+        }
+    }
+
+    /**
+     * Updates the person with one statement, the number of updated rows tells us whether the person exists.
+     */
     @Override
     public void update(Person person) throws PersonNotFoundException {
-        if(!existsById(person.getId())) {
+        if(personRepository.updateNames(person.getId(), person.getFirstName(), person.getLastName()) == 0) {
             throw new PersonNotFoundException(person, "person does not exit");
         }
-
-        personRepository.save(new PersonEntity(person));
     }
 
     @Override
@@ -72,4 +125,31 @@ public class DBPersonDAO implements PersonDAO<Person>{
     public boolean existsById(Long id) {
         return id != null && personRepository.existsById(id);
     }
+
+    /**
+     * Returns the first person with an id that is taken, by a stored person or by a person before it in the list, or
+     * null when there is none (anymore).
+     */
+    private Person firstWithTakenId(List<Person> persons) {
+        List<Long> ids = persons.stream().map(Person::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        Set<Long> takenIds = personRepository.findAllById(ids).stream()
+                .map(PersonEntity::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        for(Person person : persons) {
+            if(person.getId() != null && !takenIds.add(person.getId())) {
+                return person;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isDuplicateKey(DataIntegrityViolationException exception) {
+        for(Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if(cause instanceof SQLException && DUPLICATE_KEY.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -10,7 +10,20 @@ public interface PersonDAO<T> extends Serializable {
     T findById(long id);
     List<T> findWithLastName(String lastName);
 
+    /**
+     * Returns a page of at most limit persons ordered by id, starting after the person with the given id, or at the
+     * first person when afterId is null. Pass the id of the last person of a page to get the next page.
+     */
+    List<T> findAll(Long afterId, int limit);
+
     T add(T person) throws PersonAlreadyExistsException;
+
+    /**
+     * Adds all persons or, when one of them already exists, none of them. Returns the added persons, in the given
+     * order.
+     */
+    List<T> addAll(List<T> persons) throws PersonAlreadyExistsException;
+
     void update(T person) throws PersonNotFoundException;
     void delete(Long id);
     boolean existsById(Long id);
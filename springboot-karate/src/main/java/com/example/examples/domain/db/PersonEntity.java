@@ -1,6 +1,8 @@
 package com.example.examples.domain.db;
 
 import com.example.examples.domain.api.Person;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.Parameter;
 
@@ -11,9 +13,18 @@ import java.util.Objects;
  * We implemented a custom id generator to enable setting the id's ourselves by simply setting it! If it is not null,
  * it won't be overwritten. This is to enable DB state manipulation for test purposes from Karate using the API under
  * test.
+ *
+ * Ids that are not given come from blocks of ids, reserved per access of the id table and handed out from memory, so
+ * neither a batch of inserts nor concurrent inserts read and update that table for every person. See the
+ * HiLoIdGenerator.
+ *
+ * Persons are kept in the second-level cache region 'persons' when that cache is enabled (see the 'cached' profile).
+ * Read-write, so a person that is changed is updated in the cache when the transaction commits.
  */
 @Entity
 @Table(name = "PERSONS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "persons")
 public class PersonEntity {
     @Id
     @GeneratedValue(generator="idGenerator")
@@ -7,6 +7,8 @@ public enum ErrorCodes {
     PERSON_ALREADY_EXISTS("0015", HttpStatus.BAD_REQUEST),
     PERSON_INVALID("0020", HttpStatus.BAD_REQUEST),
 
+    PAGE_INVALID("0030", HttpStatus.BAD_REQUEST),
+
     TOO_MANY_REQUESTS("0101", HttpStatus.TOO_MANY_REQUESTS),
 
     UNEXPECTED_EXCEPTION("9999", HttpStatus.INTERNAL_SERVER_ERROR)
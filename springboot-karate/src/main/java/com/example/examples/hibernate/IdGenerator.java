@@ -1,38 +1,69 @@
 package com.example.examples.hibernate;
 
+import com.example.examples.domain.db.PersonEntity;
 import org.hibernate.HibernateException;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
-import org.hibernate.id.enhanced.TableGenerator;
 
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
 
 /**
  * Custom ID generator that allows us to add new entities with a given ID where hibernate won't overwrite it!
  *
- * It assumes there is a property id with a getter getId. If it fails... it will delegate to hibernate.
+ * It assumes there is a property id with a getter getId. If there is no such getter, or it returns null, it will
+ * delegate to the hi/lo generator. If the getter itself fails the insert fails with a HibernateException, rather than
+ * silently getting a generated ID the caller did not ask for.
  *
  * We need this custom generator for testing purposes. Using Karate we setup/cleanup the test state from Karate using
  * the real API's. So we fill and empty the database using the API's actually under test. Therefore need to control the
  * ID generation otherwise it will be difficult to write tests.
  *
  * Another option would be to write a utility class that manipulates the DB state and to call that from Karate.
+ *
+ * The getter is looked up once per entity class and kept as a method handle, so an insert does not pay for a
+ * reflective lookup. For our PersonEntity we do not need the getter at all, we simply call getId.
  */
-public class IdGenerator extends TableGenerator {
+public class IdGenerator extends HiLoIdGenerator {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final ClassValue<Optional<MethodHandle>> ID_GETTERS = new ClassValue<Optional<MethodHandle>>() {
+        @Override
+        protected Optional<MethodHandle> computeValue(Class<?> entityClass) {
+            try {
+                MethodHandle getter = MethodHandles.publicLookup().unreflect(entityClass.getMethod("getId"));
+                return Optional.of(getter.asType(GETTER_TYPE));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                // no (accessible) getter... let hibernate have its way for every entity of this class
+                return Optional.empty();
+            }
+        }
+    };
 
     @Override
     public Serializable generate(SharedSessionContractImplementor implementor, Object object) throws HibernateException {
-        try {
-            Method getIdMethod = object.getClass().getMethod("getId");
-            Object idValue = getIdMethod.invoke(object);
-            if (idValue != null) {
-                return (Serializable) idValue;
-            }
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            // swallow... let hibernate have its way
+        Object idValue = object instanceof PersonEntity ? ((PersonEntity) object).getId() : getId(object);
+        if (idValue != null) {
+            return (Serializable) idValue;
         }
 
         return super.generate(implementor, object);
     }
+
+    private static Object getId(Object object) {
+        Optional<MethodHandle> getter = ID_GETTERS.get(object.getClass());
+        if (!getter.isPresent()) {
+            return null;
+        }
+
+        try {
+            return getter.get().invokeExact(object);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new HibernateException("Could not get the id of " + object.getClass().getName(), e);
+        }
+    }
 }
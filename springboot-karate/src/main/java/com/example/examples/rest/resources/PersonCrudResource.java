@@ -5,11 +5,14 @@ import com.example.examples.dao.exceptions.PersonAlreadyExistsException;
 import com.example.examples.dao.exceptions.PersonNotFoundException;
 import com.example.examples.domain.api.Person;
 import com.example.examples.domain.api.SafeList;
+import com.example.examples.exceptions.InvalidPageException;
 import com.example.examples.rest.exceptionhandlers.PersonResourceExceptionHandling;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.Optional;
 
 /**
  * This rest resource is bound to a specific error handler by the PersonResourceExceptionHandling-annotation.
@@ -21,6 +24,11 @@ import javax.validation.Valid;
  * This is because if you return a json like "[...]" - a top level json array - then you are vulnerable to a CSRF attack!
  * So it is best to always wrap a List / Array in a wrapper object, which is exactly what our SafeList implementation
  * does.
+ *
+ * The get persons resource returns all persons, or a page of them when a cursor or limit is given (see KeysetPage).
+ *
+ * The bulk resource adds many persons in one request and one transaction, inserted in JDBC batches. Either all persons
+ * are added or, when one of them already exists, none. The persons are wrapped in a SafeList, like the ones we return.
  */
 @RestController
 @RequestMapping("/api/person")
@@ -34,8 +42,15 @@ public class PersonCrudResource {
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public SafeList<Person> allPersons() {
-        return new SafeList<>(personDao.findAll());
+    public SafeList<Person> allPersons(@RequestParam(name = "cursor", required = false) String cursor,
+                                       @RequestParam(name = "limit", required = false) Integer limit)
+            throws InvalidPageException {
+        if(!KeysetPage.isRequested(cursor, limit)) {
+            return new SafeList<>(personDao.findAll());
+        }
+
+        KeysetPage page = KeysetPage.of(cursor, limit);
+        return page.toSafeList(personDao.findAll(page.afterId(), page.fetchSize()));
     }
 
     @PostMapping
@@ -44,6 +59,13 @@ public class PersonCrudResource {
         return personDao.add(person);
     }
 
+    @PostMapping(path="/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public SafeList<Person> addPersons(@Valid @RequestBody SafeList<Person> persons)
+            throws PersonAlreadyExistsException {
+        return new SafeList<>(personDao.addAll(Optional.ofNullable(persons.getItems()).orElse(new ArrayList<>())));
+    }
+
     @PutMapping
     @ResponseStatus(HttpStatus.OK)
     public void updatePerson(@Valid @RequestBody Person person) throws PersonNotFoundException {
@@ -0,0 +1,113 @@
+package com.example.examples.hibernate;
+
+import com.example.examples.AvailableProfiles;
+import com.example.examples.FantasticSpringbootApplication;
+import com.example.examples.domain.db.PersonEntity;
+import com.example.examples.repositories.PersonEntityRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This wired unit test runs two application instances against one database, like two nodes of a cluster: the instance
+ * of the test and a second one, without a web server, that uses the schema of the first. Each has an id generator of
+ * its own, they only share the id table, so their blocks of ids must never overlap.
+ *
+ * Note that the test uses a database of its own, the blocks it reserves do not affect the other tests.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = HiLoIdGeneratorTest.DATASOURCE_URL)
+@ActiveProfiles(AvailableProfiles.LOCAL)
+class HiLoIdGeneratorTest {
+    static final String DATASOURCE_URL = "spring.datasource.url=jdbc:hsqldb:mem:hilodb;DB_CLOSE_DELAY=-1";
+
+    private static final int THREADS_PER_INSTANCE = 2;
+    private static final int PERSONS_PER_THREAD = 120;
+    private static final int BLOCK_SIZE = 50;
+    private static final long INITIAL_VALUE = 1001;
+
+    @Autowired
+    private PersonEntityRepository underTest;
+
+    private ConfigurableApplicationContext otherInstance;
+
+    @BeforeEach
+    void startOtherInstance() {
+        otherInstance = new SpringApplicationBuilder(FantasticSpringbootApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(AvailableProfiles.LOCAL)
+                // command line arguments, the properties of the builder are defaults that application.yml overrides
+                .run("--" + DATASOURCE_URL, "--spring.jpa.hibernate.ddl-auto=none");
+    }
+
+    @AfterEach
+    void stopOtherInstance() {
+        otherInstance.close();
+    }
+
+    @Test
+    void shouldHandOutDisjointBlocksOfIdsFromTwoInstances() throws Exception {
+        PersonEntityRepository other = otherInstance.getBean(PersonEntityRepository.class);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2 * THREADS_PER_INSTANCE);
+        List<Long> ids;
+        List<Long> otherIds;
+        try {
+            List<Future<List<Long>>> ours = new ArrayList<>();
+            List<Future<List<Long>>> theirs = new ArrayList<>();
+            for (int thread = 0; thread < THREADS_PER_INSTANCE; thread++) {
+                ours.add(executor.submit(() -> insert(underTest)));
+                theirs.add(executor.submit(() -> insert(other)));
+            }
+            ids = collect(ours);
+            otherIds = collect(theirs);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<Long> all = new HashSet<>(ids);
+        all.addAll(otherIds);
+        assertThat(all).hasSize(2 * THREADS_PER_INSTANCE * PERSONS_PER_THREAD).allMatch(id -> id >= INITIAL_VALUE);
+        assertThat(blocks(ids)).doesNotContainAnyElementsOf(blocks(otherIds));
+    }
+
+    private static List<Long> insert(PersonEntityRepository repository) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < PERSONS_PER_THREAD; i++) {
+            ids.add(repository.insert(new PersonEntity(null, "Katy", "Perry")).getId());
+        }
+        return ids;
+    }
+
+    private static List<Long> collect(List<Future<List<Long>>> futures) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            ids.addAll(future.get(60, TimeUnit.SECONDS));
+        }
+        return ids;
+    }
+
+    private static Set<Long> blocks(List<Long> ids) {
+        return ids.stream().map(id -> (id - INITIAL_VALUE) / BLOCK_SIZE).collect(Collectors.toSet());
+    }
+}
@@ -6,6 +6,8 @@ import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.core.api.dataset.ExpectedDataSet;
 import com.github.database.rider.core.api.dataset.SeedStrategy;
 import com.github.database.rider.spring.api.DBRider;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +15,10 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 /**
@@ -52,6 +58,9 @@ class PersonEntityRepositoryFullyWiredTest {
     @Autowired
     private PersonEntityRepository underTest;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Test
     @DataSet(value = "persons.yml", cleanBefore = true, cleanAfter = true, strategy = SeedStrategy.CLEAN_INSERT)
     void shouldListAllPersons() {
@@ -74,6 +83,19 @@ class PersonEntityRepositoryFullyWiredTest {
         underTest.save(new PersonEntity(null, "Katy", "Perry"));
     }
 
+    @Test
+    @DataSet(value = "persons.yml", cleanBefore = true, cleanAfter = true, strategy = SeedStrategy.CLEAN_INSERT)
+    void shouldAddPersonsInBulk() {
+        assertThat(underTest).isNotNull();
+
+        List<PersonEntity> added = underTest.insertAll(Arrays.asList(
+                new PersonEntity(null, "Katy", "Perry"),
+                new PersonEntity(null, "Bruno", "Mars")));
+
+        assertThat(added).allMatch(person -> person.getId() != null && person.getId() > 1000);
+        assertThat(underTest.findAll()).hasSize(5).containsAll(added);
+    }
+
     @Test
     @DataSet(value = "persons.yml", cleanBefore = true, cleanAfter = true, strategy = SeedStrategy.CLEAN_INSERT)
     @ExpectedDataSet("expected_persons_after_update.yml")
@@ -83,6 +105,35 @@ class PersonEntityRepositoryFullyWiredTest {
         underTest.save(new PersonEntity(3L, "Erik", "Erikson"));
     }
 
+    @Test
+    @DataSet(value = "persons.yml", cleanBefore = true, cleanAfter = true, strategy = SeedStrategy.CLEAN_INSERT)
+    @ExpectedDataSet("expected_persons_after_update.yml")
+    void shouldUpdateTheNamesWithoutReadingThePerson() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+        long loads = statistics.getEntityLoadCount();
+
+        assertThat(underTest.updateNames(3L, "Erik", "Erikson")).isEqualTo(1);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements + 1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(loads);
+    }
+
+    @Test
+    @DataSet(value = "persons.yml", cleanBefore = true, cleanAfter = true, strategy = SeedStrategy.CLEAN_INSERT)
+    @ExpectedDataSet("persons.yml")
+    void shouldNotUpdateAPersonThatDoesNotExist() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+        long loads = statistics.getEntityLoadCount();
+
+        assertThat(underTest.updateNames(25L, "Johnie", "Hacker")).isEqualTo(0);
+
+        // the update itself tells us the person does not exist, there is no select
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements + 1);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(loads);
+    }
+
     @Test
     @DataSet(value = "persons.yml", cleanBefore = true, cleanAfter = true, strategy = SeedStrategy.CLEAN_INSERT)
     @ExpectedDataSet("expected_persons_after_delete.yml")
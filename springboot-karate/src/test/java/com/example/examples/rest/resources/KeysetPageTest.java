@@ -0,0 +1,84 @@
+package com.example.examples.rest.resources;
+
+import com.example.examples.domain.api.Person;
+import com.example.examples.domain.api.SafeList;
+import com.example.examples.exceptions.InvalidPageException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetPageTest {
+    @Test
+    void shouldStartAtTheFirstPersonWithTheDefaultLimit() throws Exception {
+        KeysetPage page = KeysetPage.of(null, null);
+
+        assertThat(page.afterId()).isNull();
+        assertThat(page.fetchSize()).isEqualTo(KeysetPage.DEFAULT_LIMIT + 1);
+    }
+
+    @Test
+    void shouldOnlyPageWhenAPagingParameterIsPassed() {
+        assertThat(KeysetPage.isRequested(null, null)).isFalse();
+        assertThat(KeysetPage.isRequested("AAAAAAAAAAE", null)).isTrue();
+        assertThat(KeysetPage.isRequested(null, 10)).isTrue();
+    }
+
+    @Test
+    void shouldRejectALimitOutOfRange() throws Exception {
+        assertThatThrownBy(() -> KeysetPage.of(null, 0)).isInstanceOf(InvalidPageException.class);
+        assertThatThrownBy(() -> KeysetPage.of(null, KeysetPage.MAX_LIMIT + 1)).isInstanceOf(InvalidPageException.class);
+        assertThat(KeysetPage.of(null, KeysetPage.MAX_LIMIT).fetchSize()).isEqualTo(KeysetPage.MAX_LIMIT + 1);
+    }
+
+    @Test
+    void shouldRejectACursorThatWasNotHandedOut() {
+        // not base64, too short and too long
+        for (String cursor : new String[] {"not a cursor!", "AAAA", "AAAAAAAAAAAA"}) {
+            assertThatThrownBy(() -> KeysetPage.of(cursor, null))
+                    .isInstanceOf(InvalidPageException.class)
+                    .hasMessage("invalid cursor");
+        }
+    }
+
+    @Test
+    void shouldHandOutACursorThatStartsTheNextPageAfterTheLastPerson() throws Exception {
+        SafeList<Person> persons = KeysetPage.of(null, 2).toSafeList(persons(1L, 2L, 3L));
+
+        assertThat(persons.getItems()).extracting(Person::getId).containsExactly(1L, 2L);
+        assertThat(persons.getNext()).isNotNull();
+        assertThat(KeysetPage.of(persons.getNext(), 2).afterId()).isEqualTo(2L);
+    }
+
+    @Test
+    void shouldHandOutAUrlSafeCursorForAnyId() throws Exception {
+        for (long id : new long[] {0, -1, Long.MIN_VALUE, Long.MAX_VALUE, 0xFBFF_FFFF_FFFF_FFFFL}) {
+            String next = KeysetPage.of(null, 1).toSafeList(persons(id, id)).getNext();
+
+            assertThat(next).matches("[A-Za-z0-9_-]+");
+            assertThat(KeysetPage.of(next, 1).afterId()).isEqualTo(id);
+        }
+        assertThat(Base64.getUrlDecoder().decode(KeysetPage.of(null, 1).toSafeList(persons(42L, 43L)).getNext()))
+                .containsExactly(new byte[] {0, 0, 0, 0, 0, 0, 0, 42});
+    }
+
+    @Test
+    void shouldNotHandOutACursorOnTheLastPage() throws Exception {
+        KeysetPage page = KeysetPage.of(null, 3);
+
+        assertThat(page.toSafeList(persons(1L, 2L, 3L)).getNext()).isNull();
+        assertThat(page.toSafeList(persons()).getNext()).isNull();
+    }
+
+    private static List<Person> persons(long... ids) {
+        List<Person> persons = new ArrayList<>();
+        for (long id : ids) {
+            persons.add(new Person(id, "First" + id, "Last" + id));
+        }
+        return persons;
+    }
+}
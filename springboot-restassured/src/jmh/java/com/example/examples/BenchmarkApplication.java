@@ -0,0 +1,41 @@
+package com.example.examples;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts our Spring Boot application for a benchmark, on a random port and against an in-memory database of its own.
+ *
+ * Everything is passed as command line arguments, the properties of a SpringApplicationBuilder are only defaults that
+ * application.yml overrides. The SQL log and the session metrics of the Hibernate statistics are switched off, both
+ * print for every statement or session and would otherwise be measured along with it.
+ */
+public final class BenchmarkApplication {
+    private static final String PROPERTY_SERVER_PORT = "local.server.port";
+
+    private static final String ARGUMENT_START_WITH_RANDOM_PORT = "--server.port=0";
+    private static final String ARGUMENT_ACTIVE_PROFILES_TEMPLATE = "--spring.profiles.active=%s";
+    private static final String ARGUMENT_DATASOURCE_URL_TEMPLATE = "--spring.datasource.url=jdbc:hsqldb:mem:%s;DB_CLOSE_DELAY=-1";
+    private static final String ARGUMENT_NO_SQL_LOG = "--spring.jpa.show_sql=false";
+    private static final String ARGUMENT_NO_SESSION_METRICS_LOG =
+            "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN";
+    private static final String ARGUMENT_NO_BANNER = "--spring.main.banner-mode=off";
+
+    private BenchmarkApplication() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static ConfigurableApplicationContext start(String database, String... profiles) {
+        return SpringApplication.run(FantasticSpringbootApplication.class,
+                ARGUMENT_START_WITH_RANDOM_PORT,
+                String.format(ARGUMENT_ACTIVE_PROFILES_TEMPLATE, String.join(",", profiles)),
+                String.format(ARGUMENT_DATASOURCE_URL_TEMPLATE, database),
+                ARGUMENT_NO_SQL_LOG,
+                ARGUMENT_NO_SESSION_METRICS_LOG,
+                ARGUMENT_NO_BANNER);
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty(PROPERTY_SERVER_PORT, Integer.class);
+    }
+}
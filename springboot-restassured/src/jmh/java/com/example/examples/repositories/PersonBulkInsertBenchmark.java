@@ -0,0 +1,80 @@
+package com.example.examples.repositories;
+
+import com.example.examples.AvailableProfiles;
+import com.example.examples.BenchmarkApplication;
+import com.example.examples.domain.db.PersonEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rows per second of inserting 100k persons against HSQLDB with insertAll, in JDBC batches and clearing
+ * the persistence context after every batch, and with the saveAll of Spring Data, which keeps all persons in the
+ * persistence context until the transaction commits:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="PersonBulkInsertBenchmark"
+ *
+ * The persons are deleted after every insert, so every insert starts with an empty table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(PersonBulkInsertBenchmark.PERSONS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PersonBulkInsertBenchmark {
+    static final int PERSONS = 100_000;
+
+    private ConfigurableApplicationContext context;
+    private PersonEntityRepository repository;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkApplication.start("bulkbenchmarkdb", AvailableProfiles.LOCAL);
+        repository = context.getBean(PersonEntityRepository.class);
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteAll() {
+        repository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<PersonEntity> insertAll() {
+        return repository.insertAll(persons());
+    }
+
+    @Benchmark
+    public List<PersonEntity> saveAll() {
+        return repository.saveAll(persons());
+    }
+
+    private static List<PersonEntity> persons() {
+        List<PersonEntity> persons = new ArrayList<>(PERSONS);
+        for (int i = 0; i < PERSONS; i++) {
+            persons.add(new PersonEntity(null, "First" + i, "Last" + i));
+        }
+        return persons;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.examples.repositories;
+
+import com.example.examples.AvailableProfiles;
+import com.example.examples.BenchmarkApplication;
+import com.example.examples.domain.db.PersonEntity;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput without and with the second-level and query cache of the 'cached' profile, at a read-mostly
+ * mix of 95 reads to 5 updateNames calls on random persons, by four threads like concurrent requests. The reads are
+ * findById, findByLastName or a GET /api/person of all persons:
+ *
+ *   mvn -Pjmh test-compile exec:exec -Djmh.args="PersonReadBenchmark"
+ *
+ * The persons are inserted with insertAll, which bypasses the cache, so the cache fills up during the warmup. The hits
+ * and misses of the caches are printed at the end of every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonReadBenchmark {
+    private static final int PERSONS = 1_000;
+    private static final int LAST_NAMES = 100;
+    private static final int WRITE_PERCENTAGE = 5;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private ConfigurableApplicationContext context;
+    private PersonEntityRepository repository;
+    private Statistics statistics;
+    private long[] ids;
+
+    private HttpClient client;
+    private HttpRequest getPersons;
+
+    @Setup
+    public void setup() {
+        context = cached
+                ? BenchmarkApplication.start("readbenchmarkdb", AvailableProfiles.LOCAL, AvailableProfiles.CACHED)
+                : BenchmarkApplication.start("readbenchmarkdb", AvailableProfiles.LOCAL);
+        repository = context.getBean(PersonEntityRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        List<PersonEntity> persons = new ArrayList<>(PERSONS);
+        for (int i = 0; i < PERSONS; i++) {
+            persons.add(new PersonEntity(null, "First" + i, lastName(i)));
+        }
+        ids = repository.insertAll(persons).stream().mapToLong(PersonEntity::getId).toArray();
+
+        client = HttpClient.newHttpClient();
+        getPersons = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + BenchmarkApplication.port(context) + "/api/person")).build();
+        statistics.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println();
+        System.out.println("second-level cache hits/misses: "
+                + statistics.getSecondLevelCacheHitCount() + "/" + statistics.getSecondLevelCacheMissCount()
+                + ", query cache hits/misses: "
+                + statistics.getQueryCacheHitCount() + "/" + statistics.getQueryCacheMissCount());
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object findById() {
+        if (isWrite()) {
+            return updateNames();
+        }
+
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object findByLastName() {
+        if (isWrite()) {
+            return updateNames();
+        }
+
+        return repository.findByLastName(lastName(ThreadLocalRandom.current().nextInt(LAST_NAMES)));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object getPersons() throws IOException, InterruptedException {
+        if (isWrite()) {
+            return updateNames();
+        }
+
+        return client.send(getPersons, HttpResponse.BodyHandlers.ofByteArray()).body();
+    }
+
+    private boolean isWrite() {
+        return ThreadLocalRandom.current().nextInt(100) < WRITE_PERCENTAGE;
+    }
+
+    private int updateNames() {
+        long id = randomId();
+        return repository.updateNames(id, "First" + id, lastName(ThreadLocalRandom.current().nextInt(LAST_NAMES)));
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static String lastName(int i) {
+        return "Last" + i % LAST_NAMES;
+    }
+}
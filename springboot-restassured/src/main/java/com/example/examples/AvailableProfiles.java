@@ -2,4 +2,5 @@ package com.example.examples;
 
 public class AvailableProfiles {
     public static final String LOCAL = "local";
+    public static final String CACHED = "cached";
 }
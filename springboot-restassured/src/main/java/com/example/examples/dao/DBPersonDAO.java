@@ -5,11 +5,15 @@ import com.example.examples.dao.exceptions.PersonNotFoundException;
 import com.example.examples.domain.api.Person;
 import com.example.examples.domain.db.PersonEntity;
 import com.example.examples.repositories.PersonEntityRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Component
@@ -27,6 +31,19 @@ public class DBPersonDAO implements PersonDAO<Person>{
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<Person> findAll(Long afterId, int limit) {
+        Pageable firstRows = PageRequest.of(0, limit);
+
+        List<PersonEntity> page = afterId == null
+                ? personRepository.findAllByOrderByIdAsc(firstRows)
+                : personRepository.findByIdGreaterThanOrderByIdAsc(afterId, firstRows);
+
+        return page.stream()
+                .map(Person::new)
+                .collect(Collectors.toList());
+    }
+
     // todo : cleanup - never return null!
     @Override
     public Person findById(long id) {
@@ -44,21 +61,42 @@ public class DBPersonDAO implements PersonDAO<Person>{
         return null;
     }
 
+    /**
+     * Inserts the person without reading it first. The id generator replaces a given id, so only a given id can
+     * belong to a person that already exists, and only then we check that first.
+     */
     @Override
     public Person add(Person person) throws PersonAlreadyExistsException {
-        if(existsById(person.getId())) {
+        if(person.getId() != null && existsById(person.getId())) {
             throw new PersonAlreadyExistsException(person, "person already exists");
         }
-        return new Person(personRepository.save(new PersonEntity(person)));
+        return new Person(personRepository.insert(new PersonEntity(person)));
     }
 
+    /**
+     * Inserts the persons in JDBC batches. Like add, we check the given ids first, for all persons with one query.
+     */
+    @Override
+    public List<Person> addAll(List<Person> persons) throws PersonAlreadyExistsException {
+        Person existing = firstExisting(persons);
+        if(existing != null) {
+            throw new PersonAlreadyExistsException(existing, "person already exists");
+        }
+
+        List<PersonEntity> entities = persons.stream().map(PersonEntity::new).collect(Collectors.toList());
+        return personRepository.insertAll(entities).stream()
+                .map(Person::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Updates the person with one statement, the number of updated rows tells us whether the person exists.
+     */
     @Override
     public void update(Person person) throws PersonNotFoundException {
-        if(!existsById(person.getId())) {
+        if(personRepository.updateNames(person.getId(), person.getFirstName(), person.getLastName()) == 0) {
             throw new PersonNotFoundException(person, "person does not exit");
         }
-
-        personRepository.save(new PersonEntity(person));
     }
 
     @Override
@@ -70,4 +108,16 @@ public class DBPersonDAO implements PersonDAO<Person>{
     public boolean existsById(Long id) {
         return id != null && personRepository.existsById(id);
     }
+
+    private Person firstExisting(List<Person> persons) {
+        List<Long> ids = persons.stream().map(Person::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        if(ids.isEmpty()) {
+            return null;
+        }
+
+        Set<Long> existingIds = personRepository.findAllById(ids).stream()
+                .map(PersonEntity::getId)
+                .collect(Collectors.toSet());
+        return persons.stream().filter(person -> existingIds.contains(person.getId())).findFirst().orElse(null);
+    }
 }
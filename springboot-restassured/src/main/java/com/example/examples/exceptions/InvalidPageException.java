@@ -0,0 +1,10 @@
+package com.example.examples.exceptions;
+
+/**
+ * Thrown when a client asks for a page with a cursor we did not hand out or a limit that is out of range.
+ */
+public class InvalidPageException extends Exception {
+    public InvalidPageException(final String message) {
+        super(message);
+    }
+}
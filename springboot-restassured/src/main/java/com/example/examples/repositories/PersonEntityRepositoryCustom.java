@@ -0,0 +1,35 @@
+package com.example.examples.repositories;
+
+import com.example.examples.domain.db.PersonEntity;
+
+import java.util.List;
+
+/**
+ * Write methods Spring Data cannot derive for us, implemented by the PersonEntityRepositoryImpl.
+ */
+public interface PersonEntityRepositoryCustom {
+
+    /**
+     * Inserts the person with one INSERT statement and returns it with its id. Unlike save, which merges an entity
+     * that has an id and so first selects it, this never reads the person. Whether a given id is kept is up to the id
+     * generator of the PersonEntity. When it is kept and a person with that id exists, the insert fails with a
+     * DataIntegrityViolationException.
+     */
+    PersonEntity insert(PersonEntity person);
+
+    /**
+     * Inserts the persons in one transaction, in JDBC batches of 'hibernate.jdbc.batch_size' INSERT statements, and
+     * returns them with their ids. The persistence context is cleared after every batch, so it does not grow with the
+     * number of persons, entities loaded before in the same transaction are detached as well. The inserted persons are
+     * not put in the second-level cache, so a bulk load does not evict the persons that are read.
+     */
+    List<PersonEntity> insertAll(List<PersonEntity> persons);
+
+    /**
+     * Updates the names of the person with one UPDATE statement and returns the number of updated persons, 0 when
+     * there is no person with the id. Without the second-level cache the person is not loaded first. With the cache the
+     * person is loaded, usually from the cache, and updated in the cache as well. A bulk update statement would evict
+     * all cached persons instead.
+     */
+    int updateNames(Long id, String firstName, String lastName);
+}
@@ -0,0 +1,88 @@
+package com.example.examples.repositories;
+
+import com.example.examples.domain.db.PersonEntity;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Spring Data picks this implementation up by its name, the name of the repository with the 'Impl' postfix.
+ */
+public class PersonEntityRepositoryImpl implements PersonEntityRepositoryCustom {
+    private static final String UPDATE_NAMES =
+            "update PersonEntity p set p.firstName = :firstName, p.lastName = :lastName where p.id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public PersonEntity insert(PersonEntity person) {
+        // JPA's persist refuses an entity with an id, Hibernate's save always inserts and asks the id generator
+        entityManager.unwrap(Session.class).save(person);
+        // flush now, so a duplicate id fails inside the repository and is translated like any other data access error
+        entityManager.flush();
+        return person;
+    }
+
+    @Override
+    @Transactional
+    public List<PersonEntity> insertAll(List<PersonEntity> persons) {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try {
+            insertInBatches(session, persons);
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+        return persons;
+    }
+
+    @Override
+    @Transactional
+    public int updateNames(Long id, String firstName, String lastName) {
+        if (!isSecondLevelCacheEnabled()) {
+            return entityManager.createQuery(UPDATE_NAMES)
+                    .setParameter("id", id)
+                    .setParameter("firstName", firstName)
+                    .setParameter("lastName", lastName)
+                    .executeUpdate();
+        }
+
+        PersonEntity person = entityManager.find(PersonEntity.class, id);
+        if (person == null) {
+            return 0;
+        }
+        person.setFirstName(firstName);
+        person.setLastName(lastName);
+        return 1;
+    }
+
+    private void insertInBatches(Session session, List<PersonEntity> persons) {
+        for (int i = 0; i < persons.size(); i++) {
+            session.save(persons.get(i));
+            if ((i + 1) % batchSize == 0) {
+                // Hibernate sends the queued inserts as one JDBC batch
+                session.flush();
+                session.clear();
+            }
+        }
+        session.flush();
+        session.clear();
+    }
+
+    private boolean isSecondLevelCacheEnabled() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+                .getSessionFactoryOptions().isSecondLevelCacheEnabled();
+    }
+}
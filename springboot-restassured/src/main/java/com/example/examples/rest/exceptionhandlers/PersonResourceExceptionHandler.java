@@ -5,6 +5,7 @@ import com.example.examples.dao.exceptions.PersonNotFoundException;
 import com.example.examples.domain.api.ErrorResponse;
 import com.example.examples.domain.api.Person;
 import com.example.examples.exceptions.ErrorCodes;
+import com.example.examples.exceptions.InvalidPageException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -38,6 +39,13 @@ public class PersonResourceExceptionHandler {
         return new ErrorResponse<>(exception.getPerson(), ErrorCodes.PERSON_ALREADY_EXISTS.getCode());
     }
 
+    @ResponseBody
+    @ExceptionHandler(InvalidPageException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    ErrorResponse<Person> invalidPageHandler(InvalidPageException exception) {
+        return new ErrorResponse<>(ErrorCodes.PAGE_INVALID.getCode());
+    }
+
     /**
      * This handler handles the bean validations defined for the bean arguments of the person rest-resource. The spring-
      * binder will bind the json to an instance of a person an perform all validations. If any validation fails a
@@ -88,6 +88,35 @@ class PersonCrudResourceUsingMockMvcWithoutMockingAnythingIT {
                 .contains(testPersons());
     }
 
+    @Test
+    @DataSet(value = "persons.yml", cleanBefore = true, cleanAfter = true, strategy = SeedStrategy.CLEAN_INSERT)
+    void shouldReturnAllPersonsPageByPage() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/person").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn();
+        SafeList<Person> firstPage = getObjectMapper().readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<SafeList<Person>>() {});
+
+        assertThat(firstPage.getItems()).containsExactly(testPersons()[0], testPersons()[1]);
+        assertThat(firstPage.getNext()).isNotNull();
+
+        mvcResult = mockMvc.perform(get("/api/person").param("limit", "2").param("cursor", firstPage.getNext()))
+                .andExpect(status().isOk())
+                .andReturn();
+        SafeList<Person> lastPage = getObjectMapper().readValue(mvcResult.getResponse().getContentAsString(), new TypeReference<SafeList<Person>>() {});
+
+        assertThat(lastPage.getItems()).containsExactly(testPersons()[2]);
+        assertThat(lastPage.getNext()).isNull();
+    }
+
+    @Test
+    @DataSet(value = "persons.yml", cleanBefore = true, cleanAfter = true, strategy = SeedStrategy.CLEAN_INSERT)
+    void shouldRejectAnInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/person").param("cursor", "invalid"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", is(ErrorCodes.PAGE_INVALID.getCode())))
+                ;
+    }
+
     private Person[] testPersons() {
         return new Person[] {
                 new Person(1L, "Jan", "Janssen"),
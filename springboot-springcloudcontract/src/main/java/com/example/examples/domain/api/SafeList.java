@@ -1,5 +1,8 @@
 package com.example.examples.domain.api;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import javax.validation.Valid;
 import java.util.List;
 
 /**
@@ -8,9 +11,17 @@ import java.util.List;
  * As example, the person-resource returns a SafeList<Person>. This is because if you return a json like "[...]" - a
  * top level json array - then you are vulnerable to a CSRF attack! So it is best to always wrap a List / Array in a
  * wrapper object, which is exactly what our SafeList implementation does.
+ *
+ * When the list is a page of a larger result, next holds the cursor of the next page. It is left out of the json when
+ * there is no next page.
+ *
+ * The items are validated along with the list, when a SafeList is the validated body of a request.
  */
 public class SafeList<T> {
+    @Valid
     private List<T> items;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String next;
 
     public SafeList() {
         // required by (de)serialization framework
@@ -20,7 +31,16 @@ public class SafeList<T> {
         this.items = items;
     }
 
+    public SafeList(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
     public List<T> getItems() {
         return items;
     }
+
+    public String getNext() {
+        return next;
+    }
 }
@@ -1,21 +1,39 @@
 package com.example.examples.domain.db;
 
 import com.example.examples.domain.api.Person;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.Objects;
 
 /**
- * A table-generator is specified and used for the 'id' generation so we can control the initial value of the generated
- * id's. This way we have reserved the first 1000 entries for test data sets and programmatically added persons will
- * start with an id > 1000, so we will not have any uniqueness constraint validations.
+ * A hi/lo table generator is specified and used for the 'id' generation so we can control the initial value of the
+ * generated id's. This way we have reserved the first 1000 entries for test data sets and programmatically added
+ * persons will start with an id > 1000, so we will not have any uniqueness constraint validations.
+ *
+ * The generator reserves a block of ids per access of the id table and hands them out from memory, so neither a batch
+ * of inserts nor concurrent inserts read and update that table for every person. See the HiLoIdGenerator.
+ *
+ * Persons are kept in the second-level cache region 'persons' when that cache is enabled (see the 'cached' profile).
+ * Read-write, so a person that is changed is updated in the cache when the transaction commits.
  */
 @Entity
 @Table(name = "PERSONS")
-@TableGenerator(name = "GEN_PERSONS", table = "ID_PERSONS", initialValue = 1000)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "persons")
 public class PersonEntity {
     @Id
     @GeneratedValue(generator = "GEN_PERSONS")
+    @GenericGenerator(
+            name = "GEN_PERSONS", strategy = "com.example.examples.hibernate.HiLoIdGenerator",
+            parameters = {
+                    @Parameter(name = "table_name", value = "ID_PERSONS"),
+                    @Parameter(name = "initial_value", value = "1001")
+            }
+    )
     private Long id;
 
     @Column(nullable = false, name = "FIRST_NAME")
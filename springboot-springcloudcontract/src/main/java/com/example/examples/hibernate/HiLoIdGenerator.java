@@ -0,0 +1,100 @@
+package com.example.examples.hibernate;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hi/lo id generator that reserves a block of ids with one access of the id table and hands out the ids of that block
+ * from memory. The table holds the number of the last reserved block (hi), the ids of block hi are initial_value +
+ * hi * block size up to the next block (lo).
+ *
+ * Within a block handing out an id is a single atomic increment, so concurrent inserts do not wait for each other.
+ * Only the thread that finds the block exhausted reserves the next one, in its own transaction like any table
+ * generator, while the others wait for that block.
+ *
+ * The block size is the Hibernate setting 'id_generator.block_size' (spring.jpa.properties in application.yml) or, if
+ * that is not set, the 'block_size' parameter of the generator, default 50. Do not change it for an existing id
+ * table, the blocks would overlap the ones reserved before. Ids that were reserved but not used are lost on a restart.
+ *
+ * The other parameters are those of the Hibernate TableGenerator, like 'table_name', except for 'initial_value', which
+ * is the first id handed out. The id is a Long.
+ */
+public class HiLoIdGenerator extends TableGenerator {
+    public static final String BLOCK_SIZE_SETTING = "id_generator.block_size";
+    public static final String BLOCK_SIZE_PARAM = "block_size";
+    private static final int DEFAULT_BLOCK_SIZE = 50;
+    private static final long DEFAULT_INITIAL_VALUE = 1;
+
+    private long initialValue;
+    private int blockSize;
+    private volatile Block block;
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        initialValue = Long.parseLong(params.getProperty(INITIAL_PARAM, String.valueOf(DEFAULT_INITIAL_VALUE)));
+        blockSize = ConfigurationHelper.getInt(BLOCK_SIZE_SETTING,
+                serviceRegistry.getService(ConfigurationService.class).getSettings(),
+                ConfigurationHelper.getInt(BLOCK_SIZE_PARAM, params, DEFAULT_BLOCK_SIZE));
+        if (blockSize < 1) {
+            throw new MappingException("id generator block size should be at least 1, not " + blockSize);
+        }
+
+        // the table generator counts the blocks, starting at block 0
+        Properties tableParams = new Properties();
+        tableParams.putAll(params);
+        tableParams.setProperty(INITIAL_PARAM, "0");
+        tableParams.setProperty(INCREMENT_PARAM, "1");
+        tableParams.setProperty(OPT_PARAM, StandardOptimizerDescriptor.NONE.getExternalName());
+        super.configure(type, tableParams, serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        while (true) {
+            Block current = block;
+            if (current != null) {
+                long id = current.next.getAndIncrement();
+                if (id < current.end) {
+                    return id;
+                }
+            }
+            reserveBlock(session, object, current);
+        }
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private synchronized void reserveBlock(SharedSessionContractImplementor session, Object object, Block exhausted) {
+        if (block != exhausted) {
+            // another thread reserved the next block while we were waiting
+            return;
+        }
+
+        long hi = ((Number) super.generate(session, object)).longValue();
+        long start = initialValue + hi * blockSize;
+        block = new Block(start, start + blockSize);
+    }
+}
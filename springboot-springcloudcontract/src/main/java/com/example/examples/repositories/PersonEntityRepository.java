@@ -1,10 +1,13 @@
 package com.example.examples.repositories;
 
 import com.example.examples.domain.db.PersonEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 /**
@@ -13,13 +16,31 @@ import java.util.List;
  */
 @Repository
 @Transactional
-public interface PersonEntityRepository extends JpaRepository<PersonEntity, Long> {
+public interface PersonEntityRepository extends JpaRepository<PersonEntity, Long>, PersonEntityRepositoryCustom {
 
     /**
      * This method was required to be able to write a unit test (see PersonEntityRepositorySlicedTest)
      * using the DataJpaTest annotation. :(
+     *
+     * The result is kept in the query cache region 'persons-by-last-name' when the query cache is enabled (see the
+     * 'cached' profile). Any change to the persons table invalidates it.
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "persons-by-last-name")
+    })
     List<PersonEntity> findByLastName(String lastName);
 
+    /**
+     * The first page of persons in id order, pass a Pageable for the first page only to limit the number of persons.
+     */
+    List<PersonEntity> findAllByOrderByIdAsc(Pageable pageable);
+
+    /**
+     * The persons in id order after the given id, so we can seek to the next page using the primary key index instead
+     * of skipping all persons on the previous pages (OFFSET).
+     */
+    List<PersonEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
     void deleteById(Long id);
 }
@@ -0,0 +1,97 @@
+package com.example.examples.rest.resources;
+
+import com.example.examples.domain.api.Person;
+import com.example.examples.domain.api.SafeList;
+import com.example.examples.exceptions.InvalidPageException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A requested page of persons, for the resources that support keyset pagination with the request parameters 'cursor'
+ * and 'limit'.
+ *
+ * Instead of skipping the first N persons (OFFSET), which gets slower for every next page, a page starts right after
+ * the last person of the previous page. The persons are ordered by id, so the database can seek to that id using the
+ * primary key index. The cursor is that id, but clients should treat it as opaque: we hand it out as the 'next'
+ * property of a page and they pass it back unchanged to get the next page. There is no 'next' on the last page.
+ *
+ * We fetch one person more than the limit, so we know whether there is a next page without counting all persons.
+ */
+public final class KeysetPage {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private static final Base64.Encoder CURSOR_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder CURSOR_DECODER = Base64.getUrlDecoder();
+
+    private final Long afterId;
+    private final int limit;
+
+    private KeysetPage(Long afterId, int limit) {
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns true if the client asked for a page, without any paging parameter the resources return all persons as
+     * they always did.
+     */
+    public static boolean isRequested(String cursor, Integer limit) {
+        return cursor != null || limit != null;
+    }
+
+    /**
+     * @param cursor the 'next' cursor of the previous page, or null for the first page
+     * @param limit the maximum number of persons on the page, or null for the default
+     * @throws InvalidPageException if the cursor was not handed out by us or the limit is out of range
+     */
+    public static KeysetPage of(String cursor, Integer limit) throws InvalidPageException {
+        if(limit != null && (limit < 1 || limit > MAX_LIMIT)) {
+            throw new InvalidPageException("limit should be between 1 and " + MAX_LIMIT);
+        }
+
+        return new KeysetPage(cursor == null ? null : decode(cursor), limit == null ? DEFAULT_LIMIT : limit);
+    }
+
+    /**
+     * Returns the id of the last person of the previous page, or null for the first page.
+     */
+    public Long afterId() {
+        return afterId;
+    }
+
+    /**
+     * Returns the number of persons to fetch, one more than the limit.
+     */
+    public int fetchSize() {
+        return limit + 1;
+    }
+
+    public <T extends Person> SafeList<T> toSafeList(List<T> fetched) {
+        if(fetched.size() <= limit) {
+            return new SafeList<>(fetched);
+        }
+
+        return new SafeList<>(fetched.subList(0, limit), encode(fetched.get(limit - 1).getId()));
+    }
+
+    private static String encode(long id) {
+        return CURSOR_ENCODER.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+    }
+
+    private static Long decode(String cursor) throws InvalidPageException {
+        byte[] bytes;
+        try {
+            bytes = CURSOR_DECODER.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageException("invalid cursor");
+        }
+
+        if(bytes.length != Long.BYTES) {
+            throw new InvalidPageException("invalid cursor");
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.examples.repositories;
+
+import com.example.examples.AvailableProfiles;
+import com.example.examples.domain.db.PersonEntity;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * This wired unit test runs the repository with the second-level cache of the 'cached' profile enabled.
+ *
+ * Note that the test uses a database of its own. The cache does not see changes made to the database directly, like
+ * the data sets of DBRider, so we only change the persons using the repository.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:hsqldb:mem:cacheddb;DB_CLOSE_DELAY=-1")
+@ActiveProfiles({AvailableProfiles.LOCAL, AvailableProfiles.CACHED})
+class PersonEntityRepositoryCachedTest {
+
+    @Autowired
+    private PersonEntityRepository underTest;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void shouldFindAPersonInTheCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        PersonEntity person = underTest.insert(new PersonEntity(null, "Katy", "Perry"));
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        assertThat(underTest.findById(person.getId())).contains(person);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    void shouldUpdateACachedPerson() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        PersonEntity person = underTest.insert(new PersonEntity(null, "Katy", "Perry"));
+
+        assertThat(underTest.updateNames(person.getId(), "Katy", "Hudson")).isEqualTo(1);
+        assertThat(entityManagerFactory.getCache().contains(PersonEntity.class, person.getId())).isTrue();
+
+        // the cached entry holds the new names, so the person is read from the cache and not from the database
+        long hits = statistics.getSecondLevelCacheHitCount();
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(underTest.findById(person.getId())).contains(new PersonEntity(person.getId(), "Katy", "Hudson"));
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(hits + 1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    void shouldNotFindAnUpdatedPersonByItsOldLastName() {
+        PersonEntity person = underTest.insert(new PersonEntity(null, "Miley", "Cyrus"));
+        assertThat(underTest.findByLastName("Cyrus")).containsExactly(person);
+
+        assertThat(underTest.updateNames(person.getId(), "Miley", "Hemsworth")).isEqualTo(1);
+
+        assertThat(underTest.findByLastName("Cyrus")).isEmpty();
+        assertThat(underTest.findByLastName("Hemsworth"))
+                .containsExactly(new PersonEntity(person.getId(), "Miley", "Hemsworth"));
+    }
+
+    @Test
+    void shouldNotUpdateAPersonThatDoesNotExist() {
+        assertThat(underTest.updateNames(999L, "Katy", "Hudson")).isEqualTo(0);
+    }
+}